@@ -0,0 +1,29 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.error.Result;
+import me.darknet.assembler.parser.BytecodeFormat;
+import me.darknet.assembler.parser.processor.ASTProcessor;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ASTProcessorBenchmark extends CorpusState {
+
+    private List<ASTElement> declarations;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        declarations = Corpus.parse(Corpus.tokenize(Corpus.disassemble(Corpus.classFile(className))));
+    }
+
+    @Benchmark
+    public Result<List<ASTElement>> process() {
+        return new ASTProcessor(BytecodeFormat.JVM).processAST(declarations);
+    }
+}
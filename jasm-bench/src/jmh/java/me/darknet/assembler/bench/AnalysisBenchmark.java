@@ -0,0 +1,107 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.compile.analysis.AnalysisException;
+import me.darknet.assembler.compile.analysis.Local;
+import me.darknet.assembler.compile.analysis.frame.Frame;
+import me.darknet.assembler.compile.analysis.jvm.AnalysisSimulation;
+import me.darknet.assembler.compile.analysis.jvm.JvmAnalysisEngine;
+import me.darknet.assembler.compile.analysis.jvm.TypedJvmAnalysisEngine;
+import me.darknet.assembler.compile.analysis.jvm.ValuedJvmAnalysisEngine;
+
+import dev.xdark.blw.asm.AsmBytecodeLibrary;
+import dev.xdark.blw.asm.ClassWriterProvider;
+import dev.xdark.blw.classfile.AccessFlag;
+import dev.xdark.blw.classfile.ClassFileView;
+import dev.xdark.blw.classfile.Method;
+import dev.xdark.blw.classfile.generic.GenericClassBuilder;
+import dev.xdark.blw.code.Code;
+import dev.xdark.blw.type.ClassType;
+import dev.xdark.blw.type.Types;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stack analysis of every method of a compiled class, without the rest of the compiler around it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AnalysisBenchmark extends CorpusState {
+
+    @Param({ "typed", "valued" })
+    public String engine;
+
+    private final List<MethodInput> methods = new ArrayList<>();
+    private JvmCompilerOptions options;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        options = new JvmCompilerOptions();
+        switch (engine) {
+            case "typed" -> options.engineProvider(TypedJvmAnalysisEngine::new);
+            case "valued" -> options.engineProvider(ValuedJvmAnalysisEngine::new);
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+
+        byte[] classFile = Corpus.compile(
+                Corpus.process(Corpus.parse(Corpus.tokenize(Corpus.disassemble(Corpus.classFile(className))))),
+                new JvmCompilerOptions()
+        );
+        GenericClassBuilder builder = new GenericClassBuilder();
+        new AsmBytecodeLibrary(ClassWriterProvider.flags(0)).read(new ByteArrayInputStream(classFile), builder);
+        ClassFileView view = builder.build();
+        for (Method method : view.methods()) {
+            Code code = method.code();
+            if (code != null)
+                methods.add(new MethodInput(parameters(view, method), code));
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void analyze(Blackhole blackhole) {
+        for (MethodInput method : methods) {
+            JvmAnalysisEngine<Frame> analysisEngine = (JvmAnalysisEngine<Frame>) options
+                    .createEngine(index -> "v" + index);
+            AnalysisSimulation simulation = new AnalysisSimulation(analysisEngine.newFrameOps());
+            try {
+                simulation.execute(
+                        analysisEngine,
+                        new AnalysisSimulation.Info(
+                                options.inheritanceChecker(), method.parameters(), method.code().elements(),
+                                method.code().tryCatchBlocks()
+                        )
+                );
+            } catch (AnalysisException e) {
+                analysisEngine.setAnalysisFailure(e);
+            }
+            blackhole.consume(analysisEngine.frames());
+        }
+    }
+
+    // same layout as the compiler uses, with null for the second slot of wide parameters
+    private static List<Local> parameters(ClassFileView view, Method method) {
+        List<Local> parameters = new ArrayList<>();
+        int index = 0;
+        if ((method.accessFlags() & AccessFlag.ACC_STATIC) == 0)
+            parameters.add(new Local(index++, "this", view.type()));
+        for (ClassType type : method.type().parameterTypes()) {
+            parameters.add(new Local(index, "p" + index, type));
+            index++;
+            if (type == Types.LONG || type == Types.DOUBLE) {
+                parameters.add(null);
+                index++;
+            }
+        }
+        return parameters;
+    }
+
+    private record MethodInput(List<Local> parameters, Code code) {
+    }
+}
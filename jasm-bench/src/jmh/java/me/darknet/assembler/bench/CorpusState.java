@@ -0,0 +1,16 @@
+package me.darknet.assembler.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shared parameters of the stage benchmarks. Other classes can be measured with
+ * {@code -p className=java/util/ArrayList,...} when running the benchmark jar directly.
+ */
+@State(Scope.Benchmark)
+public abstract class CorpusState {
+
+    @Param({ "java/lang/String", "java/util/HashMap", "java/util/regex/Pattern" })
+    public String className;
+}
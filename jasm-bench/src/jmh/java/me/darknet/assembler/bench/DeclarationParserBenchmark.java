@@ -0,0 +1,29 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.error.Result;
+import me.darknet.assembler.parser.DeclarationParser;
+import me.darknet.assembler.parser.Token;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DeclarationParserBenchmark extends CorpusState {
+
+    private List<Token> tokens;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tokens = Corpus.tokenize(Corpus.disassemble(Corpus.classFile(className)));
+    }
+
+    @Benchmark
+    public Result<List<ASTElement>> parse() {
+        return new DeclarationParser().parseDeclarations(tokens);
+    }
+}
@@ -0,0 +1,52 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.util.EscapeUtil;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EscapeUtilBenchmark extends CorpusState {
+
+    private List<String> constants;
+    private List<String> escaped;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // the strings of a class file, most of which need no escaping at all
+        constants = Corpus.utf8Constants(Corpus.classFile(className));
+        escaped = constants.stream().map(EscapeUtil::escapeLiteral).toList();
+    }
+
+    @Benchmark
+    public void escapeString(Blackhole blackhole) {
+        for (String constant : constants)
+            blackhole.consume(EscapeUtil.escapeString(constant));
+    }
+
+    @Benchmark
+    public void escapeLiteral(Blackhole blackhole) {
+        for (String constant : constants)
+            blackhole.consume(EscapeUtil.escapeLiteral(constant));
+    }
+
+    @Benchmark
+    public String escapeLiteralToWriter() throws IOException {
+        StringWriter writer = new StringWriter();
+        for (String constant : constants)
+            EscapeUtil.escapeLiteral(constant, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public void unescape(Blackhole blackhole) {
+        for (String literal : escaped)
+            blackhole.consume(EscapeUtil.unescape(literal));
+    }
+}
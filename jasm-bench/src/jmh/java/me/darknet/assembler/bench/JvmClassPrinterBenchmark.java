@@ -0,0 +1,28 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.printer.JvmClassPrinter;
+import me.darknet.assembler.printer.PrintContext;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JvmClassPrinterBenchmark extends CorpusState {
+
+    private byte[] classFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        classFile = Corpus.classFile(className);
+    }
+
+    @Benchmark
+    public String print() throws IOException {
+        PrintContext<?> ctx = new PrintContext<>("    ");
+        new JvmClassPrinter(classFile).print(ctx);
+        return ctx.toString();
+    }
+}
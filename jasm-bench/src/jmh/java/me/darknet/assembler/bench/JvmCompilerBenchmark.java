@@ -0,0 +1,43 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.compile.JvmCompiler;
+import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.compile.visitor.JavaCompileResult;
+import me.darknet.assembler.error.Result;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compilation of processed ASTs to class files, including the analysis which runs as part of it, next to compilation
+ * without analysis which writes to ASM straight from the AST.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JvmCompilerBenchmark extends CorpusState {
+
+    private List<ASTElement> ast;
+    private JvmCompilerOptions options;
+    private JvmCompilerOptions directOptions;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ast = Corpus.process(Corpus.parse(Corpus.tokenize(Corpus.disassemble(Corpus.classFile(className)))));
+        options = new JvmCompilerOptions();
+        directOptions = new JvmCompilerOptions().analysis(false);
+    }
+
+    @Benchmark
+    public Result<JavaCompileResult> compile() {
+        return new JvmCompiler().compile(ast, options);
+    }
+
+    @Benchmark
+    public Result<JavaCompileResult> compileWithoutAnalysis() {
+        return new JvmCompiler().compile(ast, directOptions);
+    }
+}
@@ -0,0 +1,31 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.compile.JvmCompilerOptions;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every stage end to end, disassembling a class and assembling the output again.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RoundTripBenchmark extends CorpusState {
+
+    private byte[] classFile;
+    private JvmCompilerOptions options;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        classFile = Corpus.classFile(className);
+        options = new JvmCompilerOptions();
+    }
+
+    @Benchmark
+    public byte[] roundTrip() throws IOException {
+        String source = Corpus.disassemble(classFile);
+        return Corpus.compile(Corpus.process(Corpus.parse(Corpus.tokenize(source))), options);
+    }
+}
@@ -0,0 +1,33 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.error.Result;
+import me.darknet.assembler.parser.Token;
+import me.darknet.assembler.parser.Tokenizer;
+import me.darknet.assembler.util.SymbolTable;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TokenizerBenchmark extends CorpusState {
+
+    @Param({ "false", "true" })
+    public boolean symbols;
+
+    private String source;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        source = Corpus.disassemble(Corpus.classFile(className));
+    }
+
+    @Benchmark
+    public Result<List<Token>> tokenize() {
+        // a fresh table per invocation, so the cost of filling it is part of the measurement
+        return new Tokenizer(symbols ? new SymbolTable() : null).tokenize("<bench>", source);
+    }
+}
@@ -0,0 +1,120 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.compile.JvmCompiler;
+import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.error.Error;
+import me.darknet.assembler.error.Result;
+import me.darknet.assembler.parser.BytecodeFormat;
+import me.darknet.assembler.parser.DeclarationParser;
+import me.darknet.assembler.parser.Token;
+import me.darknet.assembler.parser.Tokenizer;
+import me.darknet.assembler.parser.processor.ASTProcessor;
+import me.darknet.assembler.printer.JvmClassPrinter;
+import me.darknet.assembler.printer.PrintContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark inputs, produced by disassembling classes of the running JDK like the round-trip tests do.
+ */
+public final class Corpus {
+
+    private static final String INDENT = "    ";
+
+    private Corpus() {
+    }
+
+    /**
+     * @return The {@code jrt:/} image of the running JDK.
+     */
+    public static FileSystem jrt() {
+        return FileSystems.getFileSystem(URI.create("jrt:/"));
+    }
+
+    /**
+     * @param internalName
+     *                     Internal name of a {@code java.base} class.
+     *
+     * @return Class file of the class.
+     *
+     * @throws IOException
+     *                     When the class could not be read.
+     */
+    public static byte[] classFile(String internalName) throws IOException {
+        Path path = jrt().getPath("modules", "java.base", internalName + ".class");
+        return Files.readAllBytes(path);
+    }
+
+    /**
+     * @param classFile
+     *                  Class file to read.
+     *
+     * @return Contents of the {@code CONSTANT_Utf8} entries of the constant pool.
+     *
+     * @throws IOException
+     *                     When the constant pool could not be read.
+     */
+    public static List<String> utf8Constants(byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        in.skipBytes(8); // magic, minor and major version
+        int count = in.readUnsignedShort();
+        List<String> constants = new ArrayList<>(count);
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> constants.add(in.readUTF());
+                case 7, 8, 16, 19, 20 -> in.skipBytes(2);
+                case 15 -> in.skipBytes(3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipBytes(4);
+                case 5, 6 -> {
+                    in.skipBytes(8);
+                    i++;
+                }
+                default -> throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        return constants;
+    }
+
+    public static String disassemble(byte[] classFile) throws IOException {
+        PrintContext<?> ctx = new PrintContext<>(INDENT);
+        new JvmClassPrinter(classFile).print(ctx);
+        return ctx.toString();
+    }
+
+    public static List<Token> tokenize(String source) {
+        return check(new Tokenizer().tokenize("<bench>", source));
+    }
+
+    public static List<ASTElement> parse(List<Token> tokens) {
+        return check(new DeclarationParser().parseDeclarations(tokens));
+    }
+
+    public static List<ASTElement> process(List<ASTElement> declarations) {
+        return check(new ASTProcessor(BytecodeFormat.JVM).processAST(declarations));
+    }
+
+    public static byte[] compile(List<ASTElement> ast, JvmCompilerOptions options) {
+        return check(new JvmCompiler().compile(ast, options)).representation().classFile();
+    }
+
+    private static <T> T check(Result<T> result) {
+        if (result.hasErr()) {
+            StringBuilder message = new StringBuilder("Corpus input failed to round-trip:");
+            for (Error error : result.errors())
+                message.append("\n  ").append(error);
+            throw new IllegalStateException(message.toString());
+        }
+        return result.get();
+    }
+}
@@ -0,0 +1,211 @@
+package me.darknet.assembler.bench;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.parser.Token;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Disassembles and reassembles every class of a module of the running JDK, reporting throughput, peak heap and the
+ * time spent in each phase.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@code --module <name>} module to read from {@code jrt:/}, {@code java.base} by default.</li>
+ * <li>{@code --warmup <n>} passes over the module before measuring, {@code 1} by default.</li>
+ * <li>{@code --report <file>} file to write the JSON report to.</li>
+ * <li>{@code --baseline <file>} earlier report to compare against.</li>
+ * <li>{@code --threshold <percent>} allowed throughput drop against the baseline, {@code 10} by default.</li>
+ * </ul>
+ * The process exits with {@code 1} when the throughput dropped more than the threshold.
+ */
+public class MacroRoundTrip {
+
+    private static final Pattern CLASSES_PER_SECOND = Pattern.compile("\"classesPerSecond\"\\s*:\\s*([0-9.eE+-]+)");
+
+    public enum Phase {
+        PRINT,
+        TOKENIZE,
+        PARSE,
+        PROCESS,
+        COMPILE
+    }
+
+    public static void main(String[] args) throws IOException {
+        String module = "java.base";
+        int warmup = 1;
+        Path report = null;
+        Path baseline = null;
+        double threshold = 10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--module" -> module = args[++i];
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--report" -> report = Path.of(args[++i]);
+                case "--baseline" -> baseline = Path.of(args[++i]);
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<byte[]> classes = readModule(module);
+        for (int i = 0; i < warmup; i++)
+            run(classes);
+
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        Result result = run(classes);
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools)
+            peakHeap += pool.getPeakUsage().getUsed();
+
+        String json = result.toJson(module, peakHeap);
+        System.out.println(json);
+        if (report != null)
+            Files.writeString(report, json);
+
+        if (baseline != null) {
+            double expected = readClassesPerSecond(Files.readString(baseline));
+            double actual = result.classesPerSecond();
+            double drop = (expected - actual) / expected * 100;
+            System.out.printf(
+                    Locale.ROOT, "Baseline: %.2f classes/s, current: %.2f classes/s (%+.2f%%)%n", expected, actual,
+                    -drop
+            );
+            if (drop > threshold) {
+                System.err.printf(
+                        Locale.ROOT, "Throughput dropped %.2f%%, more than the allowed %.2f%%%n", drop, threshold
+                );
+                System.exit(1);
+            }
+        }
+    }
+
+    private static List<byte[]> readModule(String module) throws IOException {
+        List<byte[]> classes = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(Corpus.jrt().getPath("modules", module))) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.toString();
+                if (name.endsWith(".class") && !name.endsWith("module-info.class"))
+                    classes.add(Files.readAllBytes(path));
+            }
+        }
+        return classes;
+    }
+
+    private static Result run(List<byte[]> classes) {
+        Map<Phase, Long> times = new EnumMap<>(Phase.class);
+        Map<Phase, Integer> failures = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            times.put(phase, 0L);
+            failures.put(phase, 0);
+        }
+        JvmCompilerOptions options = new JvmCompilerOptions();
+        int succeeded = 0;
+        long start = System.nanoTime();
+        for (byte[] classFile : classes) {
+            Phase phase = Phase.PRINT;
+            long phaseStart = System.nanoTime();
+            try {
+                String source = Corpus.disassemble(classFile);
+                phaseStart = next(times, phase, phaseStart);
+                phase = Phase.TOKENIZE;
+                List<Token> tokens = Corpus.tokenize(source);
+                phaseStart = next(times, phase, phaseStart);
+                phase = Phase.PARSE;
+                List<ASTElement> declarations = Corpus.parse(tokens);
+                phaseStart = next(times, phase, phaseStart);
+                phase = Phase.PROCESS;
+                List<ASTElement> ast = Corpus.process(declarations);
+                phaseStart = next(times, phase, phaseStart);
+                phase = Phase.COMPILE;
+                Corpus.compile(ast, options);
+                next(times, phase, phaseStart);
+                succeeded++;
+            } catch (Exception | StackOverflowError e) {
+                next(times, phase, phaseStart);
+                failures.merge(phase, 1, Integer::sum);
+            }
+        }
+        return new Result(classes.size(), succeeded, System.nanoTime() - start, times, failures);
+    }
+
+    private static long next(Map<Phase, Long> times, Phase phase, long phaseStart) {
+        long now = System.nanoTime();
+        times.merge(phase, now - phaseStart, Long::sum);
+        return now;
+    }
+
+    static double readClassesPerSecond(String report) {
+        Matcher matcher = CLASSES_PER_SECOND.matcher(report);
+        if (!matcher.find())
+            throw new IllegalArgumentException("Report does not contain classesPerSecond");
+        return Double.parseDouble(matcher.group(1));
+    }
+
+    /**
+     * @param classes
+     *                  Number of classes in the module.
+     * @param succeeded
+     *                  Number of classes which made it through every phase.
+     * @param wallTime
+     *                  Total time in nanoseconds.
+     * @param times
+     *                  Time in nanoseconds spent in each phase.
+     * @param failures
+     *                  Number of classes which failed in each phase.
+     */
+    public record Result(int classes, int succeeded, long wallTime, Map<Phase, Long> times,
+            Map<Phase, Integer> failures) {
+
+        /**
+         * @return Classes which made it through every phase per second, so that failing early does not count as
+         *         being faster.
+         */
+        public double classesPerSecond() {
+            return succeeded / (wallTime / 1e9);
+        }
+
+        String toJson(String module, long peakHeap) {
+            StringBuilder sb = new StringBuilder("{\n");
+            sb.append("  \"module\": \"").append(module).append("\",\n");
+            sb.append("  \"javaVersion\": \"").append(System.getProperty("java.version")).append("\",\n");
+            sb.append("  \"classes\": ").append(classes).append(",\n");
+            sb.append("  \"succeeded\": ").append(succeeded).append(",\n");
+            sb.append("  \"wallTimeMillis\": ").append(wallTime / 1_000_000).append(",\n");
+            sb.append("  \"classesPerSecond\": ").append(String.format(Locale.ROOT, "%.2f", classesPerSecond()))
+                    .append(",\n");
+            sb.append("  \"peakHeapBytes\": ").append(peakHeap).append(",\n");
+            sb.append("  \"phases\": {");
+            Phase[] phases = Phase.values();
+            for (int i = 0; i < phases.length; i++) {
+                Phase phase = phases[i];
+                sb.append(i == 0 ? "\n" : ",\n");
+                sb.append("    \"").append(phase.name().toLowerCase(Locale.ROOT)).append("\": { \"timeMillis\": ")
+                        .append(times.get(phase) / 1_000_000).append(", \"failures\": ").append(failures.get(phase))
+                        .append(" }");
+            }
+            sb.append("\n  }\n}\n");
+            return sb.toString();
+        }
+    }
+}
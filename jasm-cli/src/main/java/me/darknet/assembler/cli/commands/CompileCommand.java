@@ -1,13 +1,16 @@
 package me.darknet.assembler.cli.commands;
 
 import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.cache.ASTCache;
 import me.darknet.assembler.cli.compile.jvm.SafeClassLoader;
 import me.darknet.assembler.compile.JavaClassRepresentation;
 import me.darknet.assembler.compile.JvmCompiler;
 import me.darknet.assembler.compile.JvmCompilerOptions;
 import me.darknet.assembler.compiler.*;
 import me.darknet.assembler.compiler.Compiler;
+import me.darknet.assembler.error.DiagnosticSink;
 import me.darknet.assembler.helper.Processor;
+import me.darknet.assembler.helper.ProcessorOptions;
 
 import picocli.CommandLine;
 
@@ -58,7 +61,20 @@ public class CompileCommand implements Runnable {
     )
     private Optional<String> libraryFolder;
 
+    @CommandLine.Option(
+            names = { "-c",
+                    "--cache" }, description = "Directory to cache processed sources in", paramLabel = "path"
+    )
+    private Optional<Path> cacheFolder;
+
+    @CommandLine.Option(
+            names = { "-me",
+                    "--max-errors" }, description = "Number of errors to stop after (default: ${DEFAULT-VALUE})", defaultValue = "100", paramLabel = "count"
+    )
+    private int maxErrors;
+
     private Compiler compiler;
+    private DiagnosticSink diagnostics;
     private CompilerOptions<?> options;
 
     private void configureCompiler() {
@@ -71,10 +87,30 @@ private void configureCompiler() {
             default -> throw new UnsupportedOperationException("Unknown target: " + MainCommand.target);
         }
 
-        InheritanceChecker inheritanceChecker = new ReflectiveInheritanceChecker(new SafeClassLoader(new URL[0]));
-        if (this.libraryFolder.isPresent()) {
-            URL[] urls = new URL[0];
-            try (var stream = Files.walk(Paths.get(this.libraryFolder.get()))) {
+        InheritanceChecker inheritanceChecker = inheritanceChecker(libraryFolder);
+
+        options.version(bytecodeVersion).overlay(new JavaClassRepresentation(overlay.map(file -> {
+            try {
+                return Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                System.err.println("Failed to read overlay file: " + e.getMessage());
+                System.exit(1);
+                return null;
+            }
+        }).orElse(null))).annotationPath(annotationTarget.orElse(null))
+        .inheritanceChecker(inheritanceChecker).diagnostics(diagnostics);
+    }
+
+    /**
+     * @param libraryFolder
+     *                      Folder of classes and jars to resolve types from, besides the runtime.
+     *
+     * @return Inheritance checker resolving types from the folder.
+     */
+    static InheritanceChecker inheritanceChecker(Optional<String> libraryFolder) {
+        URL[] urls = new URL[0];
+        if (libraryFolder.isPresent()) {
+            try (var stream = Files.walk(Paths.get(libraryFolder.get()))) {
                 urls = stream
                         .filter(Files::isRegularFile)
                         .filter(path -> path.toString().endsWith(".class") || path.toString().endsWith(".jar"))
@@ -92,19 +128,8 @@ private void configureCompiler() {
                 System.err.println("Failed to read library folder: " + e.getMessage());
                 System.exit(1);
             }
-            inheritanceChecker = new ReflectiveInheritanceChecker(new SafeClassLoader(urls));
         }
-
-        options.version(bytecodeVersion).overlay(new JavaClassRepresentation(overlay.map(file -> {
-            try {
-                return Files.readAllBytes(file.toPath());
-            } catch (IOException e) {
-                System.err.println("Failed to read overlay file: " + e.getMessage());
-                System.exit(1);
-                return null;
-            }
-        }).orElse(null))).annotationPath(annotationTarget.orElse(null))
-        .inheritanceChecker(inheritanceChecker);
+        return new ReflectiveInheritanceChecker(new SafeClassLoader(urls));
     }
 
     private void validateAst(List<ASTElement> ast) {
@@ -150,14 +175,15 @@ public void run() {
             }
         }
 
+        // Errors are printed as they are found, so broken input fails fast instead of piling up errors
+        diagnostics = DiagnosticSink.limit(System.err::println, maxErrors);
         configureCompiler();
 
         Processor.processSource(code, src, ast -> {
             validateAst(ast);
 
             compiler.compile(ast, options).ifErr((unused, errors) -> {
-                System.err.println("Failed to compile source file:");
-                errors.forEach(System.err::println);
+                System.err.println("Failed to compile source file");
                 System.exit(1);
             }).ifOk((result) -> {
                 ClassRepresentation representation = result.representation();
@@ -174,10 +200,10 @@ public void run() {
                     default -> throw new UnsupportedOperationException("Unknown target: " + MainCommand.target);
                 }
             });
-        }, errors -> {
-            System.err.println("Failed to parse source file:");
-            errors.forEach(System.err::println);
+        }, (unused, errors) -> {
+            System.err.println("Failed to parse source file");
             System.exit(1);
-        }, MainCommand.target);
+        }, new ProcessorOptions().format(MainCommand.target).cache(cacheFolder.map(ASTCache::new).orElse(null))
+                .diagnostics(diagnostics));
     }
 }
@@ -1,5 +1,6 @@
 package me.darknet.assembler.cli.commands;
 
+import me.darknet.assembler.printer.DisassemblyCache;
 import me.darknet.assembler.printer.JvmClassPrinter;
 import me.darknet.assembler.printer.PrintContext;
 import me.darknet.assembler.printer.Printer;
@@ -10,6 +11,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Optional;
@@ -32,9 +34,23 @@ public class DecompileCommand implements Runnable {
     @CommandLine.Option(names = { "-c", "--class" }, description = "Class name (in java format a.b.c) if a archive file is used", paramLabel = "name")
     private Optional<String> className;
 
+    @CommandLine.Option(names = { "-lp", "--label-prefix" }, description = "Prefix of label names", paramLabel = "prefix")
+    private Optional<String> labelPrefix;
+
+    @CommandLine.Option(
+            names = { "-cd",
+                    "--cache" }, description = "Directory to cache decompiled classes in", paramLabel = "path"
+    )
+    private Optional<Path> cacheFolder;
+
+    // classes of the current run, on top of the cache directory
+    private static final long CACHE_CHARS = 64L * 1024 * 1024;
+    private DisassemblyCache cache;
+
     @Override
     public void run() {
         OutputStream out = System.out;
+        cache = cacheFolder.map(path -> new DisassemblyCache(CACHE_CHARS, path)).orElse(null);
 
         try {
             InputStream classStream = Files.newInputStream(source.toPath());
@@ -98,13 +114,22 @@ private void decompile(InputStream input, OutputStream output) throws IOExceptio
         Printer printer;
 
         switch (MainCommand.target) {
-            case JVM -> printer = new JvmClassPrinter(input);
+            case JVM -> {
+                if (cache != null) {
+                    var settings = new DisassemblyCache.Settings(indent, labelPrefix.orElse(null));
+                    output.write(cache.print(input.readAllBytes(), settings).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                JvmClassPrinter classPrinter = new JvmClassPrinter(input);
+                classPrinter.setLabelPrefix(labelPrefix.orElse(null));
+                printer = classPrinter;
+            }
             case DALVIK -> throw new UnsupportedOperationException("Dalvik target is not supported yet");
             default -> throw new UnsupportedOperationException("Unknown target: " + MainCommand.target);
         }
 
         printer.print(ctx);
 
-        output.write(ctx.toString().getBytes());
+        output.write(ctx.toString().getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,59 @@
+package me.darknet.assembler.cli.commands;
+
+import me.darknet.assembler.cli.lsp.LspServer;
+import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.compile.TypeCache;
+import me.darknet.assembler.compiler.InheritanceChecker;
+import me.darknet.assembler.parser.BytecodeFormat;
+
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+@CommandLine.Command(
+        name = "lsp", description = "Run a language server over standard input and output", mixinStandardHelpOptions = true
+)
+public class LspCommand implements Callable<Integer> {
+
+    @CommandLine.Option(
+            names = { "-bv",
+                    "--bytecode-version" }, description = "Bytecode version (default: ${DEFAULT-VALUE})", defaultValue = "8", paramLabel = "version"
+    )
+    private int bytecodeVersion;
+
+    @CommandLine.Option(
+            names = { "-lib",
+                    "--library-folder" }, description = "Library folder path", paramLabel = "path"
+    )
+    private Optional<String> libraryFolder;
+
+    @CommandLine.Option(
+            names = { "-d",
+                    "--debounce" }, description = "Milliseconds to wait after a change before compiling (default: ${DEFAULT-VALUE})", defaultValue = "50", paramLabel = "millis"
+    )
+    private long debounce;
+
+    @Override
+    public Integer call() throws IOException {
+        if (MainCommand.target != BytecodeFormat.JVM)
+            throw new UnsupportedOperationException("Unsupported target: " + MainCommand.target);
+
+        // Standard output carries the protocol, anything else printed there would corrupt it
+        PrintStream protocol = System.out;
+        System.setOut(System.err);
+
+        InheritanceChecker inheritanceChecker = CompileCommand.inheritanceChecker(libraryFolder);
+        // Shared by all compiles, so types resolved for one revision are not resolved again for the next
+        TypeCache typeCache = new TypeCache();
+        LspServer server = new LspServer(
+                System.in, protocol, () -> new JvmCompilerOptions().version(bytecodeVersion)
+                        .inheritanceChecker(inheritanceChecker).typeCache(typeCache),
+                Duration.ofMillis(debounce)
+        );
+        return server.run();
+    }
+}
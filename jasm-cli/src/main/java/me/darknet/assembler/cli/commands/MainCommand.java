@@ -6,7 +6,7 @@
 
 @CommandLine.Command(
         name = "jasm", subcommands = { CompileCommand.class,
-                DecompileCommand.class, }, description = "Java Assembler CLI", version = "2.0.0", mixinStandardHelpOptions = true
+                DecompileCommand.class, LspCommand.class, }, description = "Java Assembler CLI", version = "2.0.0", mixinStandardHelpOptions = true
 )
 public class MainCommand implements Runnable {
 
@@ -0,0 +1,248 @@
+package me.darknet.assembler.cli.lsp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader and writer for the messages of the language server. Objects are read as {@link Map maps},
+ * arrays as {@link List lists}, integral numbers as {@link Long} and other numbers as {@link Double}.
+ */
+public final class Json {
+    private final String input;
+    private int index;
+
+    private Json(String input) {
+        this.input = input;
+    }
+
+    /**
+     * @param input
+     *              JSON text.
+     *
+     * @return Value of the text.
+     *
+     * @throws IllegalArgumentException
+     *                                  When the text is not valid JSON.
+     */
+    public static Object parse(String input) {
+        Json json = new Json(input);
+        Object value = json.value();
+        json.whitespace();
+        if (json.index != input.length())
+            throw json.error("Unexpected trailing content");
+        return value;
+    }
+
+    /**
+     * @param value
+     *              Map, list, string, number, boolean or {@code null}.
+     *
+     * @return JSON text of the value.
+     */
+    public static String write(Object value) {
+        StringBuilder builder = new StringBuilder();
+        write(builder, value);
+        return builder.toString();
+    }
+
+    private static void write(StringBuilder builder, Object value) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof String string) {
+            string(builder, string);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            builder.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            builder.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first)
+                    builder.append(',');
+                first = false;
+                string(builder, String.valueOf(entry.getKey()));
+                builder.append(':');
+                write(builder, entry.getValue());
+            }
+            builder.append('}');
+        } else if (value instanceof List<?> list) {
+            builder.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0)
+                    builder.append(',');
+                write(builder, list.get(i));
+            }
+            builder.append(']');
+        } else {
+            throw new IllegalArgumentException("Not a JSON value: " + value.getClass().getName());
+        }
+    }
+
+    private static void string(StringBuilder builder, String string) {
+        builder.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20)
+                        builder.append(String.format("\\u%04x", (int) c));
+                    else
+                        builder.append(c);
+                }
+            }
+        }
+        builder.append('"');
+    }
+
+    private Object value() {
+        whitespace();
+        if (index >= input.length())
+            throw error("Unexpected end of input");
+        char c = input.charAt(index);
+        return switch (c) {
+            case '{' -> object();
+            case '[' -> array();
+            case '"' -> string();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            default -> number();
+        };
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        index++;
+        whitespace();
+        if (peek() == '}') {
+            index++;
+            return map;
+        }
+        while (true) {
+            whitespace();
+            if (peek() != '"')
+                throw error("Expected string key");
+            String key = string();
+            whitespace();
+            expect(':');
+            map.put(key, value());
+            whitespace();
+            if (peek() == ',') {
+                index++;
+            } else {
+                expect('}');
+                return map;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        index++;
+        whitespace();
+        if (peek() == ']') {
+            index++;
+            return list;
+        }
+        while (true) {
+            list.add(value());
+            whitespace();
+            if (peek() == ',') {
+                index++;
+            } else {
+                expect(']');
+                return list;
+            }
+        }
+    }
+
+    private String string() {
+        index++;
+        StringBuilder builder = new StringBuilder();
+        while (true) {
+            if (index >= input.length())
+                throw error("Unterminated string");
+            char c = input.charAt(index++);
+            if (c == '"')
+                return builder.toString();
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (index >= input.length())
+                throw error("Unterminated escape");
+            char escaped = input.charAt(index++);
+            switch (escaped) {
+                case '"', '\\', '/' -> builder.append(escaped);
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    if (index + 4 > input.length())
+                        throw error("Unterminated escape");
+                    builder.append((char) Integer.parseInt(input.substring(index, index + 4), 16));
+                    index += 4;
+                }
+                default -> throw error("Invalid escape '" + escaped + "'");
+            }
+        }
+    }
+
+    private Object number() {
+        int start = index;
+        boolean integral = true;
+        while (index < input.length()) {
+            char c = input.charAt(index);
+            if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            index++;
+        }
+        String text = input.substring(start, index);
+        if (text.isEmpty())
+            throw error("Unexpected character '" + input.charAt(start) + "'");
+        try {
+            return integral ? (Object) Long.parseLong(text) : (Object) Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            throw error("Invalid number '" + text + "'");
+        }
+    }
+
+    private Object literal(String literal, Object value) {
+        if (!input.startsWith(literal, index))
+            throw error("Unexpected character '" + input.charAt(index) + "'");
+        index += literal.length();
+        return value;
+    }
+
+    private void whitespace() {
+        while (index < input.length() && Character.isWhitespace(input.charAt(index)))
+            index++;
+    }
+
+    private char peek() {
+        if (index >= input.length())
+            throw error("Unexpected end of input");
+        return input.charAt(index);
+    }
+
+    private void expect(char c) {
+        if (peek() != c)
+            throw error("Expected '" + c + "'");
+        index++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + index);
+    }
+}
@@ -0,0 +1,423 @@
+package me.darknet.assembler.cli.lsp;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.ast.specific.ASTClass;
+import me.darknet.assembler.compile.JvmCompiler;
+import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.compiler.CancellationToken;
+import me.darknet.assembler.error.Error;
+import me.darknet.assembler.helper.Processor;
+import me.darknet.assembler.parser.BytecodeFormat;
+import me.darknet.assembler.util.Location;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Language server speaking the Language Server Protocol over a pair of streams. The errors of processing and
+ * compiling open documents, including those of their analysis, are published as diagnostics.
+ * <p>
+ * Document changes are applied in the order they arrive. Compiles are debounced, so a burst of changes only compiles
+ * the last text, and a compile superseded by a newer change is abandoned through the {@link CancellationToken} of its
+ * options. Requests and compiles each run on a virtual thread when the runtime has them, and on pooled platform
+ * threads otherwise. Documents remember the diagnostics of the text they were last compiled with, so changes back to
+ * that text are answered without compiling. They also keep the AST of the text they were last processed with, so a
+ * compile abandoned for a change which is then undone does not process the text again.
+ */
+public class LspServer {
+    private static final int SYNC_FULL = 1;
+    private static final int SEVERITY_ERROR = 1;
+    private static final int PARSE_ERROR = -32700;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private final InputStream in;
+    private final OutputStream out;
+    private final Supplier<JvmCompilerOptions> options;
+    private final long debounceNanos;
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final ExecutorService workers = newWorkerExecutor();
+    private final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(daemon("jasm-lsp-debounce"));
+    private volatile boolean shutdown;
+
+    /**
+     * @param in
+     *                 Stream to read client messages from.
+     * @param out
+     *                 Stream to write server messages to.
+     * @param options
+     *                 Supplier of the options to compile a document with, called once per compile.
+     * @param debounce
+     *                 Time to wait after a change before compiling, during which further changes restart the wait.
+     */
+    public LspServer(@NotNull InputStream in, @NotNull OutputStream out, @NotNull Supplier<JvmCompilerOptions> options,
+            @NotNull Duration debounce) {
+        this.in = new BufferedInputStream(in);
+        this.out = out;
+        this.options = options;
+        this.debounceNanos = debounce.toNanos();
+    }
+
+    /**
+     * Serves the client until it sends {@code exit} or closes the input stream.
+     *
+     * @return Exit code, {@code 0} if the client asked to shut down first.
+     *
+     * @throws IOException
+     *                     When the streams fail.
+     */
+    public int run() throws IOException {
+        try {
+            while (true) {
+                Map<String, Object> message;
+                try {
+                    message = read();
+                } catch (IllegalArgumentException ex) {
+                    send(error(null, PARSE_ERROR, ex.getMessage()));
+                    continue;
+                }
+                if (message == null)
+                    return shutdown ? 0 : 1;
+
+                Object id = message.get("id");
+                Object method = message.get("method");
+                if (!(method instanceof String name))
+                    continue; // response to a request of ours, which we do not send
+                if ("exit".equals(name))
+                    return shutdown ? 0 : 1;
+                Map<String, Object> params = object(message.get("params"));
+                if (id == null) {
+                    // notifications change documents, so they have to be applied in order
+                    notification(name, params);
+                } else {
+                    workers.execute(() -> request(id, name, params));
+                }
+            }
+        } finally {
+            scheduler.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    private void request(Object id, String method, Map<String, Object> params) {
+        switch (method) {
+            case "initialize" -> {
+                Map<String, Object> sync = new LinkedHashMap<>();
+                sync.put("openClose", true);
+                sync.put("change", SYNC_FULL);
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("capabilities", Map.of("textDocumentSync", sync));
+                result.put("serverInfo", Map.of("name", "jasm"));
+                send(response(id, result));
+            }
+            case "shutdown" -> {
+                shutdown = true;
+                send(response(id, null));
+            }
+            default -> send(error(id, METHOD_NOT_FOUND, "Unsupported request: " + method));
+        }
+    }
+
+    private void notification(String method, Map<String, Object> params) {
+        Map<String, Object> textDocument = object(params.get("textDocument"));
+        if (!(textDocument.get("uri") instanceof String uri))
+            return;
+        switch (method) {
+            case "textDocument/didOpen" -> {
+                if (textDocument.get("text") instanceof String text)
+                    update(uri, text, textDocument.get("version"));
+            }
+            case "textDocument/didChange" -> {
+                // with full synchronization the last change holds the whole text
+                if (params.get("contentChanges") instanceof List<?> changes && !changes.isEmpty()
+                        && object(changes.get(changes.size() - 1)).get("text") instanceof String text)
+                    update(uri, text, textDocument.get("version"));
+            }
+            case "textDocument/didClose" -> close(uri);
+            default -> {
+            }
+        }
+    }
+
+    private void update(String uri, String text, @Nullable Object version) {
+        Document document = documents.computeIfAbsent(uri, Document::new);
+        synchronized (document) {
+            document.text = text;
+            document.version = version;
+            document.supersede();
+            document.pending = scheduler.schedule(
+                    () -> workers.execute(() -> compile(document)), debounceNanos, TimeUnit.NANOSECONDS
+            );
+        }
+    }
+
+    private void close(String uri) {
+        Document document = documents.remove(uri);
+        if (document == null)
+            return;
+        synchronized (document) {
+            document.closed = true;
+            document.supersede();
+            publish(uri, null, List.of());
+        }
+    }
+
+    private void compile(Document document) {
+        String text;
+        Object version;
+        AtomicBoolean cancelled = new AtomicBoolean();
+        synchronized (document) {
+            if (document.closed)
+                return;
+            text = document.text;
+            version = document.version;
+            if (text.equals(document.compiledText)) {
+                publish(document.uri, version, document.diagnostics);
+                return;
+            }
+            document.running = cancelled;
+        }
+
+        List<Object> diagnostics = new ArrayList<>();
+        for (Error error : errors(document, text, cancelled::get))
+            diagnostics.add(diagnostic(error));
+
+        synchronized (document) {
+            // a newer change has its own compile coming, which publishes instead
+            if (cancelled.get() || document.closed)
+                return;
+            // a compile started since has put its own token in place
+            if (document.running == cancelled)
+                document.running = null;
+            document.compiledText = text;
+            document.diagnostics = diagnostics;
+            publish(document.uri, version, diagnostics);
+        }
+    }
+
+    /**
+     * @param document
+     *                     Document to report the errors for.
+     * @param text
+     *                     Text of the document.
+     * @param cancellation
+     *                     Token to abandon the compile with.
+     *
+     * @return Errors of processing and compiling the text.
+     */
+    private List<Error> errors(Document document, String text, CancellationToken cancellation) {
+        List<Error> errors = new ArrayList<>();
+        try {
+            List<ASTElement> ast = document.processed(text);
+            if (ast == null) {
+                List<List<ASTElement>> processed = new ArrayList<>(1);
+                Processor.processSource(
+                        text, document.uri, processed::add, (unused, processErrors) -> errors.addAll(processErrors),
+                        BytecodeFormat.JVM
+                );
+                if (processed.isEmpty())
+                    return errors;
+                ast = processed.get(0);
+                document.processed(text, ast);
+            }
+            // members and annotations outside a class need an overlay to compile, so only their processing counts
+            if (cancellation.isCancelled() || (ast.size() == 1 && !(ast.get(0) instanceof ASTClass)))
+                return errors;
+            JvmCompilerOptions compileOptions = options.get().cancellation(cancellation);
+            new JvmCompiler().compile(ast, compileOptions).ifErr(compileErrors -> errors.addAll(compileErrors));
+        } catch (RuntimeException ex) {
+            errors.add(Error.of(ex));
+        }
+        return errors;
+    }
+
+    private void publish(String uri, @Nullable Object version, List<Object> diagnostics) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("uri", uri);
+        if (version != null)
+            params.put("version", version);
+        params.put("diagnostics", diagnostics);
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("method", "textDocument/publishDiagnostics");
+        message.put("params", params);
+        send(message);
+    }
+
+    private static Map<String, Object> diagnostic(Error error) {
+        Location location = error.getLocation();
+        int line = 0;
+        int start = 0;
+        int length = 0;
+        if (location != null && location.line() > 0) {
+            // lines count from one, and columns point one past the end of the located token
+            line = location.line() - 1;
+            length = Math.max(location.length(), 0);
+            start = Math.max(location.column() - length - 1, 0);
+        }
+        Map<String, Object> range = new LinkedHashMap<>();
+        range.put("start", position(line, start));
+        range.put("end", position(line, start + length));
+
+        Map<String, Object> diagnostic = new LinkedHashMap<>();
+        diagnostic.put("range", range);
+        diagnostic.put("severity", SEVERITY_ERROR);
+        diagnostic.put("source", "jasm");
+        diagnostic.put("message", String.valueOf(error.getMessage()));
+        return diagnostic;
+    }
+
+    private static Map<String, Object> position(int line, int character) {
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("line", line);
+        position.put("character", character);
+        return position;
+    }
+
+    private static Map<String, Object> response(Object id, @Nullable Object result) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("result", result);
+        return message;
+    }
+
+    private static Map<String, Object> error(@Nullable Object id, int code, String text) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("message", text);
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("error", error);
+        return message;
+    }
+
+    /**
+     * @return Next message, or {@code null} at the end of the input.
+     *
+     * @throws IllegalArgumentException
+     *                                  When the message is not a JSON object.
+     */
+    private @Nullable Map<String, Object> read() throws IOException {
+        int length = -1;
+        while (true) {
+            String header = readHeader();
+            if (header == null)
+                return null;
+            if (header.isEmpty())
+                break;
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length"))
+                length = Integer.parseInt(header.substring(colon + 1).trim());
+        }
+        if (length < 0)
+            throw new IllegalArgumentException("Missing Content-Length header");
+        byte[] body = in.readNBytes(length);
+        if (body.length < length)
+            return null;
+        if (!(Json.parse(new String(body, StandardCharsets.UTF_8)) instanceof Map<?, ?> map))
+            throw new IllegalArgumentException("Message is not an object");
+        return object(map);
+    }
+
+    private @Nullable String readHeader() throws IOException {
+        StringBuilder header = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c == -1)
+                return null;
+            if (c == '\n')
+                break;
+            if (c != '\r')
+                header.append((char) c);
+        }
+        return header.toString();
+    }
+
+    private void send(Map<String, Object> message) {
+        byte[] body = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        synchronized (out) {
+            try {
+                out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(body);
+                out.flush();
+            } catch (IOException ex) {
+                System.err.println("Failed to send message: " + ex.getMessage());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object value) {
+        return value instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+    }
+
+    /**
+     * @return Executor running each task on a new virtual thread, or on pooled platform threads on runtimes
+     *         without virtual threads.
+     */
+    private static ExecutorService newWorkerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(daemon("jasm-lsp-worker"));
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Document {
+        private final String uri;
+        private String text;
+        private Object version;
+        private ScheduledFuture<?> pending;
+        private AtomicBoolean running;
+        private String compiledText;
+        private List<Object> diagnostics = List.of();
+        private String processedText;
+        private List<ASTElement> ast;
+        private boolean closed;
+
+        private Document(String uri) {
+            this.uri = uri;
+        }
+
+        /**
+         * @return AST the text was processed into, or {@code null} if it was not the last text processed.
+         */
+        private synchronized @Nullable List<ASTElement> processed(String text) {
+            return text.equals(processedText) ? ast : null;
+        }
+
+        private synchronized void processed(String text, List<ASTElement> ast) {
+            this.processedText = text;
+            this.ast = ast;
+        }
+
+        /**
+         * Drops the compile waiting for the debounce to pass, and cancels the one in progress.
+         */
+        private void supersede() {
+            if (pending != null)
+                pending.cancel(false);
+            if (running != null)
+                running.set(true);
+        }
+    }
+}
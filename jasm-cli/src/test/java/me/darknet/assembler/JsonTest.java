@@ -0,0 +1,71 @@
+package me.darknet.assembler;
+
+import me.darknet.assembler.cli.lsp.Json;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JsonTest {
+
+    @Test
+    public void testParse() {
+        Object value = Json.parse(
+                " { \"id\": 1, \"ratio\": -2.5e1, \"ok\": true, \"none\": null,"
+                        + " \"list\": [ 1, \"two\", [], {} ], \"text\": \"a\\\"b\\\\c\\/d\\n\\t\\u0041\" } "
+        );
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("id", 1L);
+        expected.put("ratio", -25.0);
+        expected.put("ok", true);
+        expected.put("none", null);
+        expected.put("list", List.of(1L, "two", List.of(), Map.of()));
+        expected.put("text", "a\"b\\c/d\n\tA");
+        assertEquals(expected, value);
+        // keys keep the order they are written in
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(((Map<?, ?>) value).keySet()));
+    }
+
+    @Test
+    public void testWrite() {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", 7);
+        message.put("result", null);
+        message.put("values", Arrays.asList(true, 1.5, "x"));
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":7,\"result\":null,\"values\":[true,1.5,\"x\"]}", Json.write(message));
+
+        assertEquals(
+                "\"quote\\\" slash\\\\ line\\n\\r\\t bell\\u0007\"",
+                Json.write("quote\" slash\\ line\n\r\t bell\u0007")
+        );
+        assertThrows(IllegalArgumentException.class, () -> Json.write(new Object()));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("uri", "file:///tmp/Example.jasm");
+        message.put("text", ".class Example {\n\t\"\u00e9\u2603\u0001\"\n}");
+        message.put("version", 3L);
+        message.put("changes", List.of(Map.of("text", ""), List.of(false)));
+        assertEquals(message, Json.parse(Json.write(message)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = { "", "{", "{\"a\" 1}", "{\"a\": 1,}", "[1 2]", "\"open", "\"\\x\"", "\"\\u12\"", "tru",
+                    "1 2", "-", "{1: 2}" }
+    )
+    public void testInvalid(String input) {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(input));
+    }
+
+}
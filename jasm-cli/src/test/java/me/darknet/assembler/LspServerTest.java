@@ -0,0 +1,185 @@
+package me.darknet.assembler;
+
+import me.darknet.assembler.cli.lsp.Json;
+import me.darknet.assembler.cli.lsp.LspServer;
+import me.darknet.assembler.compile.JvmCompilerOptions;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class LspServerTest {
+
+    private static final String URI = "file:///Example.jasm";
+    private static final String SOURCE = """
+            .super java/lang/Object
+            .class public super Example {
+                .method public exampleMethod ()I {
+                    parameters: { this },
+                    code: {
+                    A:
+                        iconst_1
+                        bipush 99
+                        %s
+                        ireturn
+                    B:
+                    }
+                }
+            }
+            """;
+
+    @Test
+    public void testSession() throws Exception {
+        PipedOutputStream client = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(client, 1 << 16);
+        Messages out = new Messages();
+        LspServer server = new LspServer(in, out, JvmCompilerOptions::new, Duration.ZERO);
+        CompletableFuture<Integer> exit = CompletableFuture.supplyAsync(() -> {
+            try {
+                return server.run();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        send(client, request(1, "initialize", Map.of()));
+        Map<String, Object> initialized = out.receive();
+        assertEquals(1L, initialized.get("id"));
+        assertEquals(
+                Map.of("openClose", true, "change", 1L),
+                object(object(initialized.get("result")).get("capabilities")).get("textDocumentSync")
+        );
+
+        // an unknown mnemonic is reported on the line it is on
+        send(client, notification("textDocument/didOpen", Map.of("textDocument", Map.of(
+                "uri", URI, "version", 1, "text", SOURCE.formatted("iaddd")
+        ))));
+        Map<String, Object> opened = object(out.receive().get("params"));
+        assertEquals(URI, opened.get("uri"));
+        assertEquals(1L, opened.get("version"));
+        List<?> diagnostics = (List<?>) opened.get("diagnostics");
+        assertFalse(diagnostics.isEmpty());
+        Map<String, Object> diagnostic = object(diagnostics.get(0));
+        assertEquals(1L, diagnostic.get("severity"));
+        assertEquals(8L, object(object(diagnostic.get("range")).get("start")).get("line"));
+
+        send(client, notification("textDocument/didChange", Map.of(
+                "textDocument", Map.of("uri", URI, "version", 2),
+                "contentChanges", List.of(Map.of("text", SOURCE.formatted("iadd")))
+        )));
+        Map<String, Object> changed = object(out.receive().get("params"));
+        assertEquals(2L, changed.get("version"));
+        assertEquals(List.of(), changed.get("diagnostics"));
+
+        // closing clears the diagnostics of the document
+        send(client, notification("textDocument/didClose", Map.of("textDocument", Map.of("uri", URI))));
+        Map<String, Object> closed = object(out.receive().get("params"));
+        assertEquals(URI, closed.get("uri"));
+        assertFalse(closed.containsKey("version"));
+        assertEquals(List.of(), closed.get("diagnostics"));
+
+        send(client, "{");
+        assertEquals(-32700L, object(out.receive().get("error")).get("code"));
+        send(client, request(2, "textDocument/hover", Map.of()));
+        Map<String, Object> unsupported = out.receive();
+        assertEquals(2L, unsupported.get("id"));
+        assertEquals(-32601L, object(unsupported.get("error")).get("code"));
+
+        send(client, request(3, "shutdown", Map.of()));
+        Map<String, Object> shutdown = out.receive();
+        assertEquals(3L, shutdown.get("id"));
+        assertTrue(shutdown.containsKey("result"));
+        assertNull(shutdown.get("result"));
+        send(client, notification("exit", Map.of()));
+        assertEquals(0, exit.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExitWithoutShutdown() throws Exception {
+        PipedOutputStream client = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(client, 1 << 16);
+        LspServer server = new LspServer(in, new Messages(), JvmCompilerOptions::new, Duration.ZERO);
+        send(client, notification("exit", Map.of()));
+        assertEquals(1, server.run());
+    }
+
+    private static Map<String, Object> request(int id, String method, Map<String, Object> params) {
+        Map<String, Object> message = notification(method, params);
+        message.put("id", id);
+        return message;
+    }
+
+    private static Map<String, Object> notification(String method, Map<String, Object> params) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("method", method);
+        message.put("params", params);
+        return message;
+    }
+
+    private static void send(OutputStream client, Map<String, Object> message) throws IOException {
+        send(client, Json.write(message));
+    }
+
+    private static void send(OutputStream client, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        client.write(("Content-Length: " + bytes.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        client.write(bytes);
+        client.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object value) {
+        assertInstanceOf(Map.class, value);
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Output of the server, split into messages on each flush since the server flushes once per message.
+     */
+    private static final class Messages extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final BlockingQueue<Map<String, Object>> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        public synchronized void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        public synchronized void flush() {
+            String message = buffer.toString(StandardCharsets.UTF_8);
+            buffer.reset();
+            int body = message.indexOf("\r\n\r\n");
+            assertTrue(message.startsWith("Content-Length: ") && body > 0, message);
+            messages.add(object(Json.parse(message.substring(body + 4))));
+        }
+
+        private Map<String, Object> receive() throws InterruptedException {
+            Map<String, Object> message = messages.poll(10, TimeUnit.SECONDS);
+            assertNotNull(message, "No message from the server");
+            return message;
+        }
+    }
+}
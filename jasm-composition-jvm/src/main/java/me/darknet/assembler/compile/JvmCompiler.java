@@ -3,15 +3,22 @@
 import dev.xdark.blw.code.CodeElement;
 import me.darknet.assembler.ast.ASTElement;
 import me.darknet.assembler.ast.primitive.ASTInstruction;
+import me.darknet.assembler.ast.specific.ASTClass;
 import me.darknet.assembler.compile.analysis.AnalysisException;
 import me.darknet.assembler.compile.analysis.AnalysisResults;
+import me.darknet.assembler.compile.analysis.MethodAnalysisLookup;
 import me.darknet.assembler.compile.builder.BlwReplaceClassBuilder;
+import me.darknet.assembler.compile.visitor.AsmRootVisitor;
 import me.darknet.assembler.compile.visitor.BlwRootVisitor;
 import me.darknet.assembler.compile.visitor.JavaCompileResult;
+import me.darknet.assembler.compiler.CompilationCounter;
+import me.darknet.assembler.compiler.CompilationListener;
+import me.darknet.assembler.compiler.CompilationPhase;
 import me.darknet.assembler.compiler.Compiler;
 import me.darknet.assembler.compiler.CompilerOptions;
 import me.darknet.assembler.error.ErrorCollector;
 import me.darknet.assembler.error.Result;
+import me.darknet.assembler.exception.AbortedException;
 import me.darknet.assembler.transformer.Transformer;
 
 import dev.xdark.blw.BytecodeLibrary;
@@ -47,6 +54,15 @@ private void applyOverlay(ErrorCollector collector, ClassBuilder builder, byte[]
 
     @Override
     public @NotNull Result<JavaCompileResult> compile(List<ASTElement> ast, CompilerOptions<?> options) {
+        try {
+            return doCompile(ast, options);
+        } catch (AbortedException ex) {
+            // The diagnostic sink asked to stop, what was built so far is incomplete so nothing is written
+            return new Result<>(new JavaCompileResult(null, MethodAnalysisLookup.NONE), ex.getErrors());
+        }
+    }
+
+    private @NotNull Result<JavaCompileResult> doCompile(List<ASTElement> ast, CompilerOptions<?> options) {
         this.library = new AsmBytecodeLibrary(new ClassWriterProvider() {
             @Override
             public ClassWriter newClassWriterFor(ClassReader classReader, ClassFileView classFileView) {
@@ -69,10 +85,17 @@ int correctFlags(ClassFileView classFileView) {
         });
 
         JvmCompilerOptions blwOptions = (JvmCompilerOptions) options;
+
+        // Without analysis there is no use for the class model, unless there is an overlay to merge into it
+        if (!blwOptions.analysis() && blwOptions.overlay == null && blwOptions.annotationPath == null
+                && ast.size() == 1 && ast.get(0) instanceof ASTClass)
+            return compileDirect(ast, blwOptions);
+
         BlwReplaceClassBuilder builder = new BlwReplaceClassBuilder();
 
-        ErrorCollector collector = new ErrorCollector();
-        BlwRootVisitor visitor = new BlwRootVisitor(builder, blwOptions);
+        ErrorCollector collector = new ErrorCollector(blwOptions.diagnostics());
+        TypeCache types = blwOptions.typeCache() == null ? new TypeCache() : blwOptions.typeCache();
+        BlwRootVisitor visitor = new BlwRootVisitor(builder, blwOptions, types);
 
         if (ast.size() != 1) {
             collector.addError("Expected exactly one class declaration", null);
@@ -87,13 +110,27 @@ int correctFlags(ClassFileView classFileView) {
             return new Result<>(new JavaCompileResult(null, builder), collector.getErrors());
         }
 
-        Transformer transformer = new Transformer(visitor);
-        transformer.transform(ast).ifErr(collector::addAll);
+        CompilationListener listener = options.listener();
+        listener.onPhaseStart(CompilationPhase.TRANSFORM, null);
+        Transformer transformer = new Transformer(visitor, blwOptions.diagnostics());
+        try {
+            transformer.transform(ast).ifErr(collector::addAll);
+        } finally {
+            listener.onPhaseEnd(CompilationPhase.TRANSFORM, null);
+        }
+
+        // Results of a cancelled compilation are partial and no longer wanted, so skip writing them.
+        if (blwOptions.cancellation().isCancelled()) {
+            collector.addError("Compilation cancelled", null);
+            return new Result<>(new JavaCompileResult(null, builder), collector.getErrors());
+        }
 
         if (!collector.hasErr()) {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
+            listener.onPhaseStart(CompilationPhase.WRITE, null);
             try {
                 library.write(builder.build(), out);
+                listener.onCount(CompilationPhase.WRITE, CompilationCounter.BYTES, out.size());
             } catch (Throwable t) {
                 // We cannot continue, the result might be very corrupted.
                 // Collect as much info that could have led to the error as possible.
@@ -122,6 +159,8 @@ int correctFlags(ClassFileView classFileView) {
                     collector.addError("Failed to write class: " + t.getMessage(), null);
 
                 return new Result<>(new JavaCompileResult(null, builder), collector.getErrors());
+            } finally {
+                listener.onPhaseEnd(CompilationPhase.WRITE, null);
             }
             return new Result<>(new JavaCompileResult(new JavaClassRepresentation(out.toByteArray()), builder), collector.getErrors());
         }
@@ -129,6 +168,62 @@ int correctFlags(ClassFileView classFileView) {
         return new Result<>(new JavaCompileResult(null, builder), collector.getErrors());
     }
 
+    /**
+     * Compiles the class straight from the AST to ASM, skipping the class model and the analysis of its methods.
+     *
+     * @param ast
+     *                The class declaration.
+     * @param options
+     *                Compiler options, with analysis disabled.
+     *
+     * @return Result without analysis results.
+     */
+    private @NotNull Result<JavaCompileResult> compileDirect(List<ASTElement> ast, JvmCompilerOptions options) {
+        ErrorCollector collector = new ErrorCollector(options.diagnostics());
+        int flags = ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS;
+        if (options.version() <= Opcodes.V1_5) {
+            flags &= ~ClassWriter.COMPUTE_FRAMES;
+        }
+        JvmClassWriter writer = new JvmClassWriter(flags, options.inheritanceChecker());
+
+        // Methods are written while visiting them, so this is also where frames are computed
+        CompilationListener listener = options.listener();
+        listener.onPhaseStart(CompilationPhase.TRANSFORM, null);
+        try {
+            new Transformer(new AsmRootVisitor(writer, options), options.diagnostics()).transform(ast)
+                    .ifErr(collector::addAll);
+        } catch (AbortedException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            collector.addError("Failed to write class: " + t.getMessage(), null);
+        } finally {
+            listener.onPhaseEnd(CompilationPhase.TRANSFORM, null);
+        }
+
+        if (options.cancellation().isCancelled()) {
+            collector.addError("Compilation cancelled", null);
+            return new Result<>(new JavaCompileResult(null, MethodAnalysisLookup.NONE), collector.getErrors());
+        }
+        if (collector.hasErr())
+            return new Result<>(new JavaCompileResult(null, MethodAnalysisLookup.NONE), collector.getErrors());
+
+        listener.onPhaseStart(CompilationPhase.WRITE, null);
+        byte[] classFile;
+        try {
+            classFile = writer.toByteArray();
+            listener.onCount(CompilationPhase.WRITE, CompilationCounter.BYTES, classFile.length);
+        } catch (Throwable t) {
+            collector.addError("Failed to write class: " + t.getMessage(), null);
+            return new Result<>(new JavaCompileResult(null, MethodAnalysisLookup.NONE), collector.getErrors());
+        } finally {
+            listener.onPhaseEnd(CompilationPhase.WRITE, null);
+        }
+        return new Result<>(
+                new JavaCompileResult(new JavaClassRepresentation(classFile), MethodAnalysisLookup.NONE),
+                collector.getErrors()
+        );
+    }
+
     public BytecodeLibrary library() {
         return library;
     }
@@ -1,18 +1,26 @@
 package me.darknet.assembler.compile;
 
 import me.darknet.assembler.compile.analysis.VariableNameLookup;
+import me.darknet.assembler.compile.analysis.jvm.AnalysisSimulation;
 import me.darknet.assembler.compile.analysis.jvm.JvmAnalysisEngine;
 import me.darknet.assembler.compile.analysis.jvm.JvmAnalysisEngineFactory;
 import me.darknet.assembler.compile.analysis.jvm.TypedJvmAnalysisEngine;
+import me.darknet.assembler.compile.optimize.OptimizationLevel;
+import me.darknet.assembler.compiler.CancellationToken;
 import me.darknet.assembler.compiler.ClassRepresentation;
+import me.darknet.assembler.compiler.CompilationListener;
 import me.darknet.assembler.compiler.CompilerOptions;
 import me.darknet.assembler.compiler.InheritanceChecker;
 import me.darknet.assembler.compiler.ReflectiveInheritanceChecker;
+import me.darknet.assembler.error.DiagnosticSink;
 
 import dev.xdark.blw.version.JavaVersion;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassWriter;
 
+import java.time.Duration;
+
 public class JvmCompilerOptions implements CompilerOptions<JvmCompilerOptions> {
 
     protected int asmArgs = 0;
@@ -21,6 +29,17 @@ public class JvmCompilerOptions implements CompilerOptions<JvmCompilerOptions> {
     protected String annotationPath;
     protected InheritanceChecker inheritanceChecker = ReflectiveInheritanceChecker.INSTANCE;
     protected JvmAnalysisEngineFactory engineProvider = TypedJvmAnalysisEngine::new;
+    protected CompilationListener listener = CompilationListener.NONE;
+    protected DiagnosticSink diagnostics = DiagnosticSink.NONE;
+    protected CancellationToken cancellation = CancellationToken.NONE;
+    protected long analysisInstructionBudget = Long.MAX_VALUE;
+    protected long analysisTimeBudget = Long.MAX_VALUE;
+    protected TypeCache typeCache;
+    protected boolean analysis = true;
+    protected boolean pruneKnownBranches;
+    protected OptimizationLevel optimization = OptimizationLevel.NONE;
+    protected boolean foldConstants;
+    protected boolean compactLocals;
 
     public JvmCompilerOptions() {
         this.asmArgs = ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS;
@@ -55,6 +74,184 @@ public JvmCompilerOptions engineProvider(@NotNull JvmAnalysisEngineFactory engin
         return this;
     }
 
+    /**
+     * @param cancellation
+     *                     Token to abandon the compilation with. A cancelled compilation stops analyzing and does not
+     *                     write a class, instead it reports an error.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions cancellation(@NotNull CancellationToken cancellation) {
+        this.cancellation = cancellation;
+        return this;
+    }
+
+    /**
+     * @return Token to abandon the compilation with.
+     */
+    public @NotNull CancellationToken cancellation() {
+        return this.cancellation;
+    }
+
+    /**
+     * @param instructions
+     *                     Number of instructions the analysis of a single method may execute, counting every revisit.
+     *                     Analysis exceeding it stops early and is marked as incomplete.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions analysisInstructionBudget(long instructions) {
+        if (instructions <= 0)
+            throw new IllegalArgumentException("Instruction budget must be positive");
+        this.analysisInstructionBudget = instructions;
+        return this;
+    }
+
+    /**
+     * @param time
+     *             Time the analysis of a single method may take. Analysis exceeding it stops early and is marked as
+     *             incomplete.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions analysisTimeBudget(@NotNull Duration time) {
+        if (time.isNegative() || time.isZero())
+            throw new IllegalArgumentException("Time budget must be positive");
+        this.analysisTimeBudget = time.toNanos();
+        return this;
+    }
+
+    /**
+     * @return Limits on the analysis of a single method.
+     */
+    public @NotNull AnalysisSimulation.Budget analysisBudget() {
+        return new AnalysisSimulation.Budget(analysisInstructionBudget, analysisTimeBudget, cancellation);
+    }
+
+    /**
+     * @param typeCache
+     *                  Cache of parsed types to share between compilations, such as those of a batch of classes
+     *                  referring to the same types. {@code null} to use a new cache for each compilation.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions typeCache(@Nullable TypeCache typeCache) {
+        this.typeCache = typeCache;
+        return this;
+    }
+
+    /**
+     * @return Cache of parsed types shared between compilations, or {@code null} if each compilation uses its own.
+     */
+    public @Nullable TypeCache typeCache() {
+        return this.typeCache;
+    }
+
+    /**
+     * @param analysis
+     *                 {@code false} to skip the analysis of method code. The class is then written to ASM straight from
+     *                 the AST, which is faster and allocates less, but leaves the analysis lookup of the result empty
+     *                 and types variables other than parameters by the instructions accessing them. Compilations onto
+     *                 an {@link #overlay(ClassRepresentation) overlay} or of an
+     *                 {@link #annotationPath(String) annotation} are always analyzed.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions analysis(boolean analysis) {
+        this.analysis = analysis;
+        return this;
+    }
+
+    /**
+     * @return {@code true} when method code is analyzed as part of the compilation.
+     */
+    public boolean analysis() {
+        return this.analysis;
+    }
+
+    /**
+     * @param pruneKnownBranches
+     *                           {@code true} to only analyze the path of branches on values known to the engine, such
+     *                           as opaque predicates, instead of every path. Only has an effect with an engine which
+     *                           tracks values, such as {@link me.darknet.assembler.compile.analysis.jvm.ValuedJvmAnalysisEngine}.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions pruneKnownBranches(boolean pruneKnownBranches) {
+        this.pruneKnownBranches = pruneKnownBranches;
+        return this;
+    }
+
+    /**
+     * @return {@code true} when analysis only follows the known path of branches on known values.
+     */
+    public boolean pruneKnownBranches() {
+        return this.pruneKnownBranches;
+    }
+
+    /**
+     * @param optimization
+     *                     Level of {@link me.darknet.assembler.compile.optimize.PeepholeOptimizer peephole optimization}
+     *                     of method code before the class is written. Only applies to analyzed compilations, see
+     *                     {@link #analysis(boolean)}.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions optimization(@NotNull OptimizationLevel optimization) {
+        this.optimization = optimization;
+        return this;
+    }
+
+    /**
+     * @return Level of peephole optimization of method code.
+     */
+    public @NotNull OptimizationLevel optimization() {
+        return this.optimization;
+    }
+
+    /**
+     * @param foldConstants
+     *                      {@code true} to replace computations on constants, such as arithmetic or calls with a
+     *                      {@link me.darknet.assembler.compile.analysis.jvm.MethodValueLookup known result}, with a load
+     *                      of their result. Values are found by an analysis with a
+     *                      {@link me.darknet.assembler.compile.analysis.jvm.ValuedJvmAnalysisEngine} before the code is
+     *                      written. Only applies to analyzed compilations, see {@link #analysis(boolean)}.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions foldConstants(boolean foldConstants) {
+        this.foldConstants = foldConstants;
+        return this;
+    }
+
+    /**
+     * @return {@code true} when computations on constants are folded into a load of their result.
+     */
+    public boolean foldConstants() {
+        return this.foldConstants;
+    }
+
+    /**
+     * @param compactLocals
+     *                      {@code true} to let variables which are never live at the same time share a slot, which
+     *                      lowers the number of slots a method needs. The variable table and the analysis results
+     *                      keep naming each variable after its own name. Only applies to analyzed compilations, see
+     *                      {@link #analysis(boolean)}.
+     *
+     * @return Self.
+     */
+    public JvmCompilerOptions compactLocals(boolean compactLocals) {
+        this.compactLocals = compactLocals;
+        return this;
+    }
+
+    /**
+     * @return {@code true} when variables which are never live at the same time share a slot.
+     */
+    public boolean compactLocals() {
+        return this.compactLocals;
+    }
+
     public @NotNull JvmAnalysisEngine<?> createEngine(@NotNull VariableNameLookup lookup) {
         JvmAnalysisEngine<?> engine = engineProvider.create(lookup);
         engine.setChecker(inheritanceChecker());
@@ -100,4 +297,26 @@ public JvmCompilerOptions inheritanceChecker(InheritanceChecker checker) {
         this.inheritanceChecker = checker;
         return this;
     }
+
+    @Override
+    public JvmCompilerOptions listener(@NotNull CompilationListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    @Override
+    public @NotNull CompilationListener listener() {
+        return this.listener;
+    }
+
+    @Override
+    public JvmCompilerOptions diagnostics(@NotNull DiagnosticSink sink) {
+        this.diagnostics = sink;
+        return this;
+    }
+
+    @Override
+    public @NotNull DiagnosticSink diagnostics() {
+        return this.diagnostics;
+    }
 }
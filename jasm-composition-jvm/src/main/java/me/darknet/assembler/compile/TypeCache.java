@@ -0,0 +1,125 @@
+package me.darknet.assembler.compile;
+
+import dev.xdark.blw.type.ArrayType;
+import dev.xdark.blw.type.ClassType;
+import dev.xdark.blw.type.InstanceType;
+import dev.xdark.blw.type.MethodType;
+import dev.xdark.blw.type.TypeReader;
+import dev.xdark.blw.type.Types;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interning cache of parsed types, so that a descriptor or internal name which shows up at many call sites is only
+ * parsed once and every use shares the same type instance. By default each compilation uses its own cache, a cache
+ * can be shared between compilations of a batch with {@link JvmCompilerOptions#typeCache(TypeCache)}, which is safe to
+ * do from multiple threads.
+ */
+public class TypeCache {
+    private final Map<String, InstanceType> internalNames = new ConcurrentHashMap<>();
+    private final Map<String, ClassType> descriptors = new ConcurrentHashMap<>();
+    private final Map<String, MethodType> methodTypes = new ConcurrentHashMap<>();
+
+    /**
+     * @param internalName
+     *                     Internal name of a class, such as {@code java/lang/String}.
+     *
+     * @return Instance type of the class.
+     */
+    @NotNull
+    public InstanceType instanceType(@NotNull String internalName) {
+        InstanceType type = internalNames.get(internalName);
+        if (type == null)
+            type = internalNames.computeIfAbsent(internalName, Types::instanceTypeFromInternalName);
+        return type;
+    }
+
+    /**
+     * @param descriptor
+     *                   Descriptor of a class, such as {@code Ljava/lang/String;}.
+     *
+     * @return Instance type of the class.
+     */
+    @NotNull
+    public InstanceType instanceTypeFromDescriptor(@NotNull String descriptor) {
+        ClassType type = descriptors.get(descriptor);
+        if (type == null)
+            type = descriptors.computeIfAbsent(descriptor, Types::instanceTypeFromDescriptor);
+        return (InstanceType) type;
+    }
+
+    /**
+     * @param descriptor
+     *                   Descriptor of an array, such as {@code [I}.
+     *
+     * @return Array type of the descriptor.
+     */
+    @NotNull
+    public ArrayType arrayType(@NotNull String descriptor) {
+        ClassType type = descriptors.get(descriptor);
+        if (type == null)
+            type = descriptors.computeIfAbsent(descriptor, Types::arrayTypeFromDescriptor);
+        return (ArrayType) type;
+    }
+
+    /**
+     * @param descriptor
+     *                   Descriptor of a field type.
+     *
+     * @return Type of the descriptor.
+     */
+    @NotNull
+    public ClassType classType(@NotNull String descriptor) {
+        ClassType type = descriptors.get(descriptor);
+        if (type == null)
+            type = descriptors.computeIfAbsent(descriptor, d -> new TypeReader(d).requireClassType());
+        return type;
+    }
+
+    /**
+     * @param descriptor
+     *                   Descriptor of a field type.
+     *
+     * @return Type of the descriptor, or {@code null} if the descriptor could not be read.
+     */
+    @Nullable
+    public ClassType readType(@NotNull String descriptor) {
+        ClassType type = descriptors.get(descriptor);
+        if (type == null && new TypeReader(descriptor).read() instanceof ClassType read)
+            type = descriptors.computeIfAbsent(descriptor, d -> read);
+        return type;
+    }
+
+    /**
+     * @param descriptor
+     *                   Descriptor of a method, such as {@code (I)V}.
+     *
+     * @return Method type of the descriptor.
+     */
+    @NotNull
+    public MethodType methodType(@NotNull String descriptor) {
+        MethodType type = methodTypes.get(descriptor);
+        if (type == null)
+            type = methodTypes.computeIfAbsent(descriptor, Types::methodType);
+        return type;
+    }
+
+    /**
+     * @return Number of distinct types in the cache.
+     */
+    public int size() {
+        return internalNames.size() + descriptors.size() + methodTypes.size();
+    }
+
+    /**
+     * Drop all cached types.
+     */
+    public void clear() {
+        internalNames.clear();
+        descriptors.clear();
+        methodTypes.clear();
+    }
+}
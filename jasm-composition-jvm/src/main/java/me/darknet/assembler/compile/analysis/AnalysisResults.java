@@ -59,6 +59,23 @@ default Frame getFrame(int index) {
      */
     void setAnalysisFailure(@Nullable AnalysisException analysisFailure);
 
+    /**
+     * @return Statistics on how much work the analysis took to converge. Recorded even when the analysis failed, in
+     *         which case they cover the work done up until the failure.
+     */
+    @NotNull
+    default AnalysisStatistics statistics() {
+        return AnalysisStatistics.EMPTY;
+    }
+
+    /**
+     * @return {@code false} when the analysis stopped early because it ran out of its budget or was cancelled, in
+     *         which case the frames only cover the code visited until then.
+     */
+    default boolean isComplete() {
+        return true;
+    }
+
     /**
      * Records the relationship of AST --> Element for the given pair.
      *
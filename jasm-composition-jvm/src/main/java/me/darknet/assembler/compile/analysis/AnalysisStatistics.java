@@ -0,0 +1,44 @@
+package me.darknet.assembler.compile.analysis;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Statistics on how much work the stack analysis of one or more methods took to converge.
+ *
+ * @param methods
+ *                       Number of analyzed methods.
+ * @param instructions
+ *                       Number of instructions executed, counting every revisit.
+ * @param forks
+ *                       Number of fork-points taken from the queue.
+ * @param merges
+ *                       Number of frame merges performed.
+ * @param changedMerges
+ *                       Number of frame merges which changed a frame, each of them causing more work.
+ * @param peakQueue
+ *                       Largest number of fork-points waiting in the queue at once.
+ * @param wallTime
+ *                       Time spent in the analysis, in nanoseconds.
+ */
+public record AnalysisStatistics(int methods, long instructions, long forks, long merges, long changedMerges,
+        int peakQueue, long wallTime) {
+    /**
+     * Statistics of no analysis at all.
+     */
+    public static final AnalysisStatistics EMPTY = new AnalysisStatistics(0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * @param other
+     *              Statistics to add.
+     *
+     * @return Combined statistics, where counts and times are summed and the peak queue size is the larger of both.
+     */
+    @NotNull
+    public AnalysisStatistics plus(@NotNull AnalysisStatistics other) {
+        return new AnalysisStatistics(
+                methods + other.methods, instructions + other.instructions, forks + other.forks,
+                merges + other.merges, changedMerges + other.changedMerges, Math.max(peakQueue, other.peakQueue),
+                wallTime + other.wallTime
+        );
+    }
+}
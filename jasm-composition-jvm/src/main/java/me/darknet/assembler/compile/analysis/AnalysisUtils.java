@@ -30,7 +30,8 @@ public static ClassType commonType(@NotNull InheritanceChecker checker, @NotNull
         if (a instanceof PrimitiveType ap && b instanceof PrimitiveType bp) {
             return bp.widen(ap.widen(bp));
         } else if (a instanceof ObjectType ao && b instanceof ObjectType bo) {
-            if (ao.equals(bo))
+            // Types of the same name are usually the same instance when they come from a TypeCache
+            if (ao == bo || ao.equals(bo))
                 return ao;
 
             String commonType = checker.getCommonSuperclass(ao.internalName(), bo.internalName());
@@ -6,21 +6,18 @@
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Basic implementation of {@link FieldValueLookup} with some common fields implemented.
  */
 public class BasicFieldValueLookup implements FieldValueLookup {
-    protected static final Map<String, Value> CONST_FIELDS = new HashMap<>();
+    // Keyed by owner and name only, the descriptor is implied by the value.
+    protected static final MemberTable<Value> CONST_FIELDS = new MemberTable<>();
 
     @Override
     public @Nullable Value accept(@NotNull FieldInstruction instruction, Value.@Nullable ObjectValue context) {
-        if (context == null) {
-            String field = instruction.owner().internalName() + "." + instruction.name();
-            return CONST_FIELDS.get(field);
-        }
+        if (context == null)
+            return CONST_FIELDS.get(instruction.owner().internalName(), instruction.name(), MemberTable.ANY_DESCRIPTOR);
         return null;
     }
 
@@ -1,40 +1,107 @@
 package me.darknet.assembler.compile.analysis;
 
+import dev.xdark.blw.code.JavaOpcodes;
 import dev.xdark.blw.code.instruction.MethodInstruction;
 import me.darknet.assembler.compile.analysis.func.*;
 import me.darknet.assembler.compile.analysis.jvm.MethodValueLookup;
+import me.darknet.assembler.compile.analysis.jvm.MethodValueProvider;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.ServiceLoader;
 
 /**
  * Basic implementation of {@link MethodValueLookup} with some common methods implemented.
  */
 public class BasicMethodValueLookup implements MethodValueLookup {
-    protected static final Map<String, StringFunc> INSTANCE_STRING_FUNCS = new HashMap<>();
-    protected static final Map<String, StaticFunc> STATIC_FUNCS = new HashMap<>();
+    // Keyed by the method name and descriptor only, as the receiver value is what makes these apply.
+    protected static final MemberTable<StringFunc> INSTANCE_STRING_FUNCS = new MemberTable<>();
+    protected static final MemberTable<StaticFunc> STATIC_FUNCS = new MemberTable<>();
+    // Members of the tables above whose result depends on the running JVM, such as its system properties or locale.
+    protected static final MemberTable<Boolean> ENVIRONMENT_FUNCS = new MemberTable<>();
+    protected final MemberTable<MethodValueLookup> providedFuncs;
+
+    /**
+     * New lookup with the built-in methods and those of the {@link MethodValueProvider} services on the class path.
+     */
+    public BasicMethodValueLookup() {
+        this.providedFuncs = ServiceProviders.TABLE;
+    }
+
+    /**
+     * @param providers
+     *                  Providers of additional method lookups, used instead of the services on the class path.
+     */
+    public BasicMethodValueLookup(@NotNull Iterable<? extends MethodValueProvider> providers) {
+        this.providedFuncs = table(providers);
+    }
 
     @Override
     public @Nullable Value accept(@NotNull MethodInstruction instruction, Value.@Nullable ObjectValue context,
                                   @NotNull List<Value> parameters) {
+        String owner = instruction.owner().internalName();
+        String name = instruction.name();
+        String descriptor = instruction.type().descriptor();
+        if (providedFuncs.size() > 0) {
+            MethodValueLookup lookup = providedFuncs.get(owner, name, descriptor);
+            if (lookup == null)
+                lookup = providedFuncs.get(MemberTable.ANY_OWNER, name, descriptor);
+            if (lookup != null) {
+                Value value = lookup.accept(instruction, context, parameters);
+                if (value != null)
+                    return value;
+            }
+        }
         if (context instanceof Value.KnownStringValue stringValue) {
-            String method = instruction.name() + instruction.type().descriptor();
-            StringFunc func = INSTANCE_STRING_FUNCS.get(method);
+            StringFunc func = INSTANCE_STRING_FUNCS.get(MemberTable.ANY_OWNER, name, descriptor);
             if (func != null)
                 return func.apply(stringValue.value(), parameters);
         } else if (context == null) {
-            String method = instruction.owner().internalName() + "." + instruction.name() + instruction.type().descriptor();
-            StaticFunc func = STATIC_FUNCS.get(method);
+            StaticFunc func = STATIC_FUNCS.get(owner, name, descriptor);
             if (func != null)
                 return func.apply(parameters);
         }
         return null;
     }
 
+    /**
+     * @param instruction
+     *                    Instruction with method declaration.
+     *
+     * @return {@code true} when the method is one of the built-in methods whose result only depends on its
+     *         parameters, so that a call with constant parameters can be replaced with its result in the compiled
+     *         code. Methods of {@link MethodValueProvider} services are never considered pure.
+     */
+    public static boolean isPure(@NotNull MethodInstruction instruction) {
+        String name = instruction.name();
+        String descriptor = instruction.type().descriptor();
+        if (instruction.opcode() == JavaOpcodes.INVOKESTATIC) {
+            String owner = instruction.owner().internalName();
+            return STATIC_FUNCS.get(owner, name, descriptor) != null
+                    && ENVIRONMENT_FUNCS.get(owner, name, descriptor) == null;
+        }
+        return INSTANCE_STRING_FUNCS.get(MemberTable.ANY_OWNER, name, descriptor) != null
+                && ENVIRONMENT_FUNCS.get(MemberTable.ANY_OWNER, name, descriptor) == null;
+    }
+
+    @NotNull
+    private static MemberTable<MethodValueLookup> table(@NotNull Iterable<? extends MethodValueProvider> providers) {
+        MemberTable<MethodValueLookup> table = new MemberTable<>();
+        for (MethodValueProvider provider : providers)
+            provider.register(table);
+        return table;
+    }
+
+    /**
+     * Holder of the lookups of the services on the class path, loaded on first use.
+     */
+    private static class ServiceProviders {
+        private static final MemberTable<MethodValueLookup> TABLE = table(
+                ServiceLoader.load(MethodValueProvider.class, BasicMethodValueLookup.class.getClassLoader())
+        );
+    }
+
     static {
         initMathStaticFuncs();
         initSystemStaticFuncs();
@@ -513,6 +580,8 @@ private static void initBooleanStaticFuncs() {
                 return Values.valueOf(Boolean.getBoolean(value.value()));
             return Values.INT_VALUE;
         });
+        // Reads a system property
+        ENVIRONMENT_FUNCS.put("java/lang/Boolean.getBoolean(Ljava/lang/String;)Z", true);
         STATIC_FUNCS.put("java/lang/Boolean.logicalAnd(ZZ)Z", params -> {
             if (params.size() == 2 &&
                     params.get(0) instanceof Value.KnownIntValue a  &&
@@ -695,12 +764,7 @@ private static void initMathStaticFuncs() {
         });
 
         // Duplicate for StrictMath
-        for (var entry : new ArrayList<>(STATIC_FUNCS.entrySet())) {
-            String key = entry.getKey();
-            if (key.startsWith("java/lang/Math.")) {
-                STATIC_FUNCS.put(key.replace("/Math.", "/StrictMath."), entry.getValue());
-            }
-        }
+        STATIC_FUNCS.copyOwner("java/lang/Math", "java/lang/StrictMath");
     }
 
     /**
@@ -734,6 +798,9 @@ private static void initSystemStaticFuncs() {
             }
             return Values.STRING_VALUE;
         });
+        ENVIRONMENT_FUNCS.put("java/lang/System.lineSeparator()Ljava/lang/String;", true);
+        ENVIRONMENT_FUNCS.put("java/lang/System.getProperty(Ljava/lang/String;)Ljava/lang/String;", true);
+        ENVIRONMENT_FUNCS.put("java/lang/System.getProperty(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;", true);
     }
 
     /**
@@ -747,6 +814,11 @@ private static void initStringFuncs() {
         INSTANCE_STRING_FUNCS.put("toLowerCase(Ljava/util/Locale;)Ljava/lang/String;", (value, params) -> Values.valueOfString(value.toLowerCase()));
         INSTANCE_STRING_FUNCS.put("toUpperCase()Ljava/lang/String;", (value, params) -> Values.valueOfString(value.toUpperCase()));
         INSTANCE_STRING_FUNCS.put("toUpperCase(Ljava/util/Locale;)Ljava/lang/String;", (value, params) -> Values.valueOfString(value.toUpperCase()));
+        // Case conversion uses the default locale, and the locale parameter is not tracked
+        ENVIRONMENT_FUNCS.put("toLowerCase()Ljava/lang/String;", true);
+        ENVIRONMENT_FUNCS.put("toLowerCase(Ljava/util/Locale;)Ljava/lang/String;", true);
+        ENVIRONMENT_FUNCS.put("toUpperCase()Ljava/lang/String;", true);
+        ENVIRONMENT_FUNCS.put("toUpperCase(Ljava/util/Locale;)Ljava/lang/String;", true);
         INSTANCE_STRING_FUNCS.put("trim()Ljava/lang/String;", (value, params) -> Values.valueOfString(value.trim()));
         INSTANCE_STRING_FUNCS.put("strip()Ljava/lang/String;", (value, params) -> Values.valueOfString(value.strip()));
         INSTANCE_STRING_FUNCS.put("stripIndent()Ljava/lang/String;", (value, params) -> Values.valueOfString(value.stripIndent()));
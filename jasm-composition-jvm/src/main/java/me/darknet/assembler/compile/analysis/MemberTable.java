@@ -0,0 +1,115 @@
+package me.darknet.assembler.compile.analysis;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Table of values keyed by member owner, name and descriptor. Looking up a member walks one map per part of the key,
+ * so the strings an instruction already holds can be used as is, without building a combined key for every lookup.
+ *
+ * @param <V>
+ *            Value type.
+ */
+public class MemberTable<V> {
+    /**
+     * Owner of entries which apply regardless of the owner of the member, for instance methods looked up by the known
+     * value of the receiver rather than by the declared owner.
+     */
+    public static final String ANY_OWNER = "";
+    /**
+     * Descriptor of entries which apply regardless of the member descriptor.
+     */
+    public static final String ANY_DESCRIPTOR = "";
+
+    private final Map<String, Map<String, Map<String, V>>> owners = new HashMap<>();
+    private int size;
+
+    /**
+     * @param owner
+     *                   Internal name of the member owner, or {@link #ANY_OWNER}.
+     * @param name
+     *                   Member name.
+     * @param descriptor
+     *                   Member descriptor, or {@link #ANY_DESCRIPTOR}.
+     * @param value
+     *                   Value to associate with the member.
+     *
+     * @return Previous value of the member, or {@code null} if there was none.
+     */
+    @Nullable
+    public V put(@NotNull String owner, @NotNull String name, @NotNull String descriptor, @NotNull V value) {
+        V previous = owners.computeIfAbsent(owner, o -> new HashMap<>())
+                .computeIfAbsent(name, n -> new HashMap<>(2))
+                .put(descriptor, value);
+        if (previous == null)
+            size++;
+        return previous;
+    }
+
+    /**
+     * @param member
+     *               Member in the form {@code owner.name descriptor} without spaces, such as
+     *               {@code java/lang/Math.abs(I)I}. The owner may be left out along with the dot, and the descriptor
+     *               may be left out for fields, in which case they are {@link #ANY_OWNER} and {@link #ANY_DESCRIPTOR}.
+     * @param value
+     *               Value to associate with the member.
+     *
+     * @return Previous value of the member, or {@code null} if there was none.
+     */
+    @Nullable
+    public V put(@NotNull String member, @NotNull V value) {
+        int descriptorStart = member.indexOf('(');
+        if (descriptorStart < 0)
+            descriptorStart = member.length();
+        int nameStart = member.lastIndexOf('.', descriptorStart) + 1;
+        String owner = nameStart == 0 ? ANY_OWNER : member.substring(0, nameStart - 1);
+        String name = member.substring(nameStart, descriptorStart);
+        String descriptor = descriptorStart == member.length() ? ANY_DESCRIPTOR : member.substring(descriptorStart);
+        return put(owner, name, descriptor, value);
+    }
+
+    /**
+     * @param owner
+     *                   Internal name of the member owner, or {@link #ANY_OWNER}.
+     * @param name
+     *                   Member name.
+     * @param descriptor
+     *                   Member descriptor, or {@link #ANY_DESCRIPTOR}.
+     *
+     * @return Value of the member, or {@code null} if there is none.
+     */
+    @Nullable
+    public V get(@NotNull String owner, @NotNull String name, @NotNull String descriptor) {
+        Map<String, Map<String, V>> members = owners.get(owner);
+        if (members == null)
+            return null;
+        Map<String, V> descriptors = members.get(name);
+        if (descriptors == null)
+            return null;
+        return descriptors.get(descriptor);
+    }
+
+    /**
+     * @param from
+     *             Internal name of the owner to copy the members of.
+     * @param to
+     *             Internal name of the owner to copy the members to, replacing existing ones of the same member.
+     */
+    public void copyOwner(@NotNull String from, @NotNull String to) {
+        Map<String, Map<String, V>> members = owners.get(from);
+        if (members == null)
+            return;
+        members.forEach((name, descriptors) -> descriptors
+                .forEach((descriptor, value) -> put(to, name, descriptor, value)));
+    }
+
+    /**
+     * @return Number of members in the table.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -4,6 +4,8 @@
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -11,6 +13,26 @@
  * implemented as a class, and the look-up keys are method identifiers.
  */
 public interface MethodAnalysisLookup {
+    /**
+     * Lookup without any results, for classes which were compiled without analysis.
+     */
+    MethodAnalysisLookup NONE = new MethodAnalysisLookup() {
+        @Override
+        public @NotNull Map<MemberIdentifier, AnalysisResults> allResults() {
+            return Map.of();
+        }
+
+        @Override
+        public AnalysisResults results(String name, String descriptor) {
+            return null;
+        }
+
+        @Override
+        public AnalysisResults results(MemberIdentifier identifier) {
+            return null;
+        }
+    };
+
     /**
      * @return Map of method keys to their stack analysis results.
      */
@@ -36,4 +58,31 @@ public interface MethodAnalysisLookup {
      */
     @Nullable
     AnalysisResults results(MemberIdentifier identifier);
+
+    /**
+     * @return Statistics of all methods in the class combined.
+     */
+    @NotNull
+    default AnalysisStatistics statistics() {
+        AnalysisStatistics statistics = AnalysisStatistics.EMPTY;
+        for (AnalysisResults results : allResults().values())
+            statistics = statistics.plus(results.statistics());
+        return statistics;
+    }
+
+    /**
+     * @param limit
+     *              Maximum number of methods to return.
+     *
+     * @return Methods which took the most instructions to converge, most expensive first.
+     */
+    @NotNull
+    default List<Map.Entry<MemberIdentifier, AnalysisStatistics>> mostExpensive(int limit) {
+        return allResults().entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().statistics()))
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<MemberIdentifier, AnalysisStatistics> e) -> e.getValue().instructions()).reversed())
+                .limit(limit)
+                .toList();
+    }
 }
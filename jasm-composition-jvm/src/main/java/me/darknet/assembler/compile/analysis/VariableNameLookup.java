@@ -1,5 +1,6 @@
 package me.darknet.assembler.compile.analysis;
 
+import dev.xdark.blw.code.Instruction;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -15,4 +16,18 @@ public interface VariableNameLookup {
      */
     @NotNull
     String getVarName(int index);
+
+    /**
+     * @param instruction
+     *                    Instruction writing to the variable.
+     * @param index
+     *                    Index of variable.
+     *
+     * @return Name of the variable written by the instruction, which may differ between instructions when variables
+     *         share an index. The name of the index by default.
+     */
+    @NotNull
+    default String getVarName(@NotNull Instruction instruction, int index) {
+        return getVarName(index);
+    }
 }
@@ -7,6 +7,7 @@
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
 import java.util.stream.Stream;
 
 /**
@@ -38,6 +39,12 @@ public sealed interface Frame permits TypedFrame,ValuedFrame {
     @NotNull
     Stream<? extends Local> locals();
 
+    /**
+     * @param live
+     *             Indices of variables to keep, all other variables are removed from the frame.
+     */
+    void retainLocals(@NotNull BitSet live);
+
     /**
      * Push {@code null} onto the stack.
      */
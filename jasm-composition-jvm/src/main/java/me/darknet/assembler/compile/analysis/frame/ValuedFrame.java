@@ -9,6 +9,7 @@
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
 import java.util.Deque;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -34,6 +35,11 @@
         return getLocals().values().stream();
     }
 
+    @Override
+    default void retainLocals(@NotNull BitSet live) {
+        getLocals().keySet().removeIf(index -> !live.get(index));
+    }
+
     /**
      * @param index
      *              Index of variable to get.
@@ -1,10 +1,12 @@
 package me.darknet.assembler.compile.analysis.jvm;
 
 import me.darknet.assembler.compile.analysis.AnalysisException;
+import me.darknet.assembler.compile.analysis.AnalysisStatistics;
 import me.darknet.assembler.compile.analysis.Local;
 import me.darknet.assembler.compile.analysis.frame.Frame;
 import me.darknet.assembler.compile.analysis.frame.FrameMergeException;
 import me.darknet.assembler.compile.analysis.frame.FrameOps;
+import me.darknet.assembler.compiler.CancellationToken;
 import me.darknet.assembler.compiler.InheritanceChecker;
 
 import dev.xdark.blw.code.*;
@@ -22,17 +24,65 @@
 public class AnalysisSimulation implements Simulation<JvmAnalysisEngine<Frame>, AnalysisSimulation.Info>, JavaOpcodes {
     private static final int MAX_QUEUE = 2048;
 
+    // how many instructions to execute between polling the clock and the cancellation token
+    private static final int POLL_INTERVAL = 256;
+
     private final FrameOps<Frame> frameOps;
+    private final Budget budget;
+    private final boolean pruneKnownBranches;
 
-    @SuppressWarnings("unchecked")
     public AnalysisSimulation(FrameOps<?> frameOps) {
+        this(frameOps, Budget.UNLIMITED);
+    }
+
+    /**
+     * @param frameOps
+     *                 Frame operations of the engine.
+     * @param budget
+     *                 Limits on the work done per method. Analysis which runs out of budget stops early and marks the
+     *                 results as {@link JvmAnalysisEngine#isComplete() incomplete}.
+     */
+    public AnalysisSimulation(FrameOps<?> frameOps, @NotNull Budget budget) {
+        this(frameOps, budget, false);
+    }
+
+    /**
+     * @param frameOps
+     *                           Frame operations of the engine.
+     * @param budget
+     *                           Limits on the work done per method, see {@link #AnalysisSimulation(FrameOps, Budget)}.
+     * @param pruneKnownBranches
+     *                           {@code true} to only follow the path of branches which the engine can
+     *                           {@link JvmAnalysisEngine#evaluateBranch evaluate} on known values. Code only reachable
+     *                           through the other paths is not analyzed and gets no frames, like other dead code.
+     */
+    @SuppressWarnings("unchecked")
+    public AnalysisSimulation(FrameOps<?> frameOps, @NotNull Budget budget, boolean pruneKnownBranches) {
         this.frameOps = (FrameOps<Frame>) frameOps;
+        this.budget = budget;
+        this.pruneKnownBranches = pruneKnownBranches;
     }
 
     @Override
     public void execute(JvmAnalysisEngine<Frame> engine, AnalysisSimulation.Info method) throws AnalysisException {
+        final Counters counters = new Counters();
+        try {
+            if (!simulate(engine, method, counters))
+                engine.setComplete(false);
+        } finally {
+            // Recorded on failure too, as the work up to a failure is what points out pathological methods.
+            engine.setStatistics(counters.toStatistics());
+        }
+    }
+
+    /**
+     * @return {@code true} when the simulation ran to completion, {@code false} when it ran out of budget.
+     */
+    private boolean simulate(JvmAnalysisEngine<Frame> engine, AnalysisSimulation.Info method, Counters counters)
+            throws AnalysisException {
         final InheritanceChecker checker = method.checker();
-        final ForkQueue forkQueue = new ForkQueue(checker);
+        final Liveness liveness = method.liveness();
+        final ForkQueue forkQueue = new ForkQueue(checker, counters);
 
         // Initial frame state holds local variables from parameters.
         // We'll queue up the first instruction as a fork-point.
@@ -84,6 +134,10 @@ public void execute(JvmAnalysisEngine<Frame> engine, AnalysisSimulation.Info met
         ForkKey fork;
         final BitSet visited = new BitSet(elementCount);
         while ((fork = forkQueue.next()) != null) {
+            counters.forks++;
+            if (budget.exhausted(counters))
+                return false;
+
             // Exit if we're getting out of control.
             if (forkQueue.size() > MAX_QUEUE)
                 throw new AnalysisException("Exceeded max queue size in stack simulation: " + MAX_QUEUE);
@@ -110,6 +164,7 @@ public void execute(JvmAnalysisEngine<Frame> engine, AnalysisSimulation.Info met
                         // to overwrite the existing frame with a more up-to-date state.
                         boolean changed = frame.merge(checker, existingFrame)
                                 || existingFrame.copy().merge(checker, frame);
+                        counters.merge(changed);
 
                         // We can continue the sequential execution if the code has already been visited
                         // and there were no changes in the merge process.
@@ -128,6 +183,21 @@ public void execute(JvmAnalysisEngine<Frame> engine, AnalysisSimulation.Info met
 
                 // Handle execution of the instruction.
                 if (element instanceof Instruction insn) {
+                    // The instruction count is exact, the clock and token are only polled every so often.
+                    if (counters.instructions >= budget.maxInstructions()
+                            || (counters.instructions % POLL_INTERVAL == 0 && budget.exhausted(counters)))
+                        return false;
+                    counters.instructions++;
+
+                    // Evaluated before execution, which pops the values the branch depends on.
+                    JvmAnalysisEngine.KnownBranch knownBranch = null;
+                    if (pruneKnownBranches && element instanceof BranchInstruction bi) {
+                        try {
+                            knownBranch = engine.evaluateBranch(frame, bi);
+                        } catch (Throwable t) {
+                            throw new AnalysisException(insn, t);
+                        }
+                    }
                     try {
                         engine.setActiveFrame(frame);
                         ExecutionEngines.execute(engine, insn);
@@ -147,32 +217,48 @@ public void execute(JvmAnalysisEngine<Frame> engine, AnalysisSimulation.Info met
 
                     // Create fork-points for all target labels of branching instructions.
                     if (element instanceof BranchInstruction bi) {
-                        for (Label target : bi.targetsStream().toList()) {
+                        List<Label> targets;
+                        if (knownBranch == null)
+                            targets = bi.targetsStream().toList();
+                        else if (knownBranch.target() == null)
+                            targets = List.of();
+                        else
+                            targets = List.of(knownBranch.target());
+                        for (Label target : targets) {
                             int targetIndex = elements.indexOf(target);
                             if (targetIndex < 0 || targetIndex > elementCount)
                                 throw new AnalysisException(
                                         bi, "Target for branch instruction " + bi + " does not exist"
                                 );
                             try {
+                                // Variables which are dead at the target are dropped, as their types do not
+                                // matter there and would only cause needless changes when merging.
+                                Frame targetInput = frame;
+                                if (liveness != null) {
+                                    targetInput = frame.copy();
+                                    targetInput.retainLocals(liveness.liveIn(targetIndex));
+                                }
+
                                 boolean shouldVisitTarget;
                                 Frame targetFrame = engine.getFrame(targetIndex);
                                 if (targetFrame == null) {
                                     // Not seen before, should visit as fork-point.
-                                    engine.putFrame(targetIndex, frame);
+                                    engine.putFrame(targetIndex, targetInput);
                                     shouldVisitTarget = true;
                                 } else {
                                     // We've already created a frame for that index previously.
                                     // We only want to revisit it if merging the current frame into the target's
                                     // will result in a change to the target frame's state.
                                     Frame mergeTarget = targetFrame.copy();
-                                    shouldVisitTarget = mergeTarget.merge(checker, frame);
+                                    shouldVisitTarget = mergeTarget.merge(checker, targetInput);
+                                    counters.merge(shouldVisitTarget);
                                     if (shouldVisitTarget)
                                         engine.putAndMergeFrame(checker, targetIndex, mergeTarget);
                                 }
 
                                 // Queue the fork-point if needed.
                                 if (shouldVisitTarget) {
-                                    forkQueue.add(new ForkKey(targetIndex, frame));
+                                    forkQueue.add(new ForkKey(targetIndex, targetInput));
                                     visited.clear(targetIndex);
                                 }
                             } catch (FrameMergeException ex) {
@@ -180,8 +266,8 @@ public void execute(JvmAnalysisEngine<Frame> engine, AnalysisSimulation.Info met
                             }
                         }
 
-                        // Break if control flow does not have fall-through case.
-                        if (!bi.hasFallthrough())
+                        // Break if control flow does not have fall-through case, or is known to not take it.
+                        if (!bi.hasFallthrough() || (knownBranch != null && knownBranch.target() != null))
                             break;
                     }
                     try {
@@ -194,14 +280,17 @@ public void execute(JvmAnalysisEngine<Frame> engine, AnalysisSimulation.Info met
                 }
             }
         }
+        return true;
     }
 
     private static class ForkQueue implements Iterable<ForkKey> {
         private final NavigableMap<Integer, ForkKey> forkQueue = new TreeMap<>();
         private final InheritanceChecker checker;
+        private final Counters counters;
 
-        public ForkQueue(@NotNull InheritanceChecker checker) {
+        public ForkQueue(@NotNull InheritanceChecker checker, @NotNull Counters counters) {
             this.checker = checker;
+            this.counters = counters;
         }
 
         public void add(@NotNull ForkKey key) throws FrameMergeException {
@@ -213,6 +302,7 @@ public void add(@NotNull ForkKey key) throws FrameMergeException {
                 key = new ForkKey(key.index, frameA);
             }
             forkQueue.put(key.index, key);
+            counters.peakQueue = Math.max(counters.peakQueue, forkQueue.size());
         }
 
         public int size() {
@@ -234,6 +324,28 @@ public Iterator<ForkKey> iterator() {
         }
     }
 
+    private static class Counters {
+        private final long start = System.nanoTime();
+        private long instructions;
+        private long forks;
+        private long merges;
+        private long changedMerges;
+        private int peakQueue;
+
+        private void merge(boolean changed) {
+            merges++;
+            if (changed)
+                changedMerges++;
+        }
+
+        @NotNull
+        private AnalysisStatistics toStatistics() {
+            return new AnalysisStatistics(
+                    1, instructions, forks, merges, changedMerges, peakQueue, System.nanoTime() - start
+            );
+        }
+    }
+
     private record ForkKey(int index, @NotNull Frame frame) implements Comparable<ForkKey> {
         @Override
         public int compareTo(@NotNull AnalysisSimulation.ForkKey other) {
@@ -241,9 +353,50 @@ public int compareTo(@NotNull AnalysisSimulation.ForkKey other) {
         }
     }
 
+    /**
+     * Limits on the work done when analyzing a single method.
+     *
+     * @param maxInstructions
+     *                        Number of instructions to execute, counting every revisit.
+     * @param maxTime
+     *                        Time to spend, in nanoseconds.
+     * @param cancellation
+     *                        Token to stop the analysis of the method early.
+     */
+    public record Budget(long maxInstructions, long maxTime, @NotNull CancellationToken cancellation) {
+        /**
+         * Budget which never runs out.
+         */
+        public static final Budget UNLIMITED = new Budget(Long.MAX_VALUE, Long.MAX_VALUE, CancellationToken.NONE);
+
+        private boolean exhausted(@NotNull Counters counters) {
+            return counters.instructions >= maxInstructions || cancellation.isCancelled()
+                    || (maxTime != Long.MAX_VALUE && System.nanoTime() - counters.start >= maxTime);
+        }
+    }
+
+    /**
+     * @param checker
+     *                          Inheritance checker to use for determining common super-types.
+     * @param params
+     *                          Parameter variables, with {@code null} for the second slot of wide parameters.
+     * @param method
+     *                          Code elements of the method.
+     * @param exceptionHandlers
+     *                          Try-catch blocks of the method.
+     * @param liveness
+     *                          Live variables of the method, used to drop dead variables from frames on jumps.
+     *                          May be {@code null} to keep all variables.
+     */
     public record Info(
             InheritanceChecker checker, List<Local> params, List<CodeElement> method,
-            List<TryCatchBlock> exceptionHandlers
+            List<TryCatchBlock> exceptionHandlers, @Nullable Liveness liveness
     ) {
+        public Info(
+                InheritanceChecker checker, List<Local> params, List<CodeElement> method,
+                List<TryCatchBlock> exceptionHandlers
+        ) {
+            this(checker, params, method, exceptionHandlers, Liveness.compute(method, exceptionHandlers));
+        }
     }
 }
@@ -5,6 +5,7 @@
 import me.darknet.assembler.ast.primitive.ASTInstruction;
 import me.darknet.assembler.compile.analysis.AnalysisException;
 import me.darknet.assembler.compile.analysis.AnalysisResults;
+import me.darknet.assembler.compile.analysis.AnalysisStatistics;
 import me.darknet.assembler.compile.analysis.VariableNameLookup;
 import me.darknet.assembler.compile.analysis.frame.Frame;
 import me.darknet.assembler.compile.analysis.frame.FrameMergeException;
@@ -38,6 +39,8 @@
     protected final VariableNameLookup variableNameLookup;
     protected InheritanceChecker checker;
     protected AnalysisException analysisFailure;
+    protected AnalysisStatistics statistics = AnalysisStatistics.EMPTY;
+    protected boolean complete = true;
     protected F frame;
 
     protected static InstanceType METHOD_TYPE = Types.instanceType(MethodType.class);
@@ -156,6 +159,46 @@ public void setAnalysisFailure(@Nullable AnalysisException analysisFailure) {
         this.analysisFailure = analysisFailure;
     }
 
+    @Override
+    public @NotNull AnalysisStatistics statistics() {
+        return statistics;
+    }
+
+    /**
+     * @param statistics
+     *                   Statistics of the analysis run with this engine.
+     */
+    public void setStatistics(@NotNull AnalysisStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @param complete
+     *                 {@code false} if the analysis stopped before visiting all reachable code.
+     */
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * @param frame
+     *                    Frame before executing the branch.
+     * @param instruction
+     *                    Branch instruction to evaluate.
+     *
+     * @return Path the branch takes with the values on the stack of the frame, or {@code null} if it can't be told
+     *         from them. The base engine does not track values, so it never knows.
+     */
+    @Nullable
+    public KnownBranch evaluateBranch(@NotNull F frame, @NotNull BranchInstruction instruction) {
+        return null;
+    }
+
     @Override
     public void execute(ConditionalJumpInstruction instruction) {
         switch (instruction.opcode()) {
@@ -196,4 +239,17 @@ public void execute(Instruction instruction) {
     public void label(Label label) {
         //no-op
     }
+
+    /**
+     * Path a branch is known to take.
+     *
+     * @param target
+     *               Label jumped to, or {@code null} when a conditional jump falls through.
+     */
+    public record KnownBranch(@Nullable Label target) {
+        /**
+         * Conditional jump which is known to fall through.
+         */
+        public static final KnownBranch FALLTHROUGH = new KnownBranch(null);
+    }
 }
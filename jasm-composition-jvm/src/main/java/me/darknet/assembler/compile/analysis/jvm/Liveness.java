@@ -0,0 +1,150 @@
+package me.darknet.assembler.compile.analysis.jvm;
+
+import dev.xdark.blw.code.CodeElement;
+import dev.xdark.blw.code.Instruction;
+import dev.xdark.blw.code.JavaOpcodes;
+import dev.xdark.blw.code.Label;
+import dev.xdark.blw.code.TryCatchBlock;
+import dev.xdark.blw.code.instruction.BranchInstruction;
+import dev.xdark.blw.code.instruction.VarInstruction;
+import dev.xdark.blw.code.instruction.VariableIncrementInstruction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Live variable slots of a method, computed with a backwards data-flow pass over the control flow graph of the code.
+ * A slot is live at an index when some path from that index reads the slot before writing to it.
+ * <p>
+ * Edges of the graph are fall-through to the next element, branch targets, and the handlers of the try-catch blocks
+ * covering an instruction. Since an exception may be thrown before an instruction writes a slot, slots live at a
+ * handler are live across the whole range it covers.
+ */
+public final class Liveness implements JavaOpcodes {
+    private static final int[] NO_HANDLERS = new int[0];
+    private static final BitSet NONE = new BitSet();
+
+    private final BitSet[] liveIn;
+
+    private Liveness(@NotNull BitSet[] liveIn) {
+        this.liveIn = liveIn;
+    }
+
+    /**
+     * @param elements
+     *                          Code elements of the method.
+     * @param exceptionHandlers
+     *                          Try-catch blocks of the method.
+     *
+     * @return Liveness of the variable slots at each element.
+     */
+    @NotNull
+    public static Liveness compute(@NotNull List<CodeElement> elements, @NotNull List<TryCatchBlock> exceptionHandlers) {
+        int count = elements.size();
+        Map<CodeElement, Integer> labelIndices = new IdentityHashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (elements.get(i) instanceof Label label)
+                labelIndices.put(label, i);
+        }
+
+        // Handler indices of the try-catch blocks covering each element.
+        int[][] handlers = new int[count][];
+        Arrays.fill(handlers, NO_HANDLERS);
+        for (TryCatchBlock block : exceptionHandlers) {
+            Integer start = labelIndices.get(block.start());
+            Integer end = labelIndices.get(block.end());
+            Integer handler = labelIndices.get(block.handler());
+            if (start == null || end == null || handler == null)
+                continue;
+            for (int i = start; i < end; i++) {
+                int[] covering = Arrays.copyOf(handlers[i], handlers[i].length + 1);
+                covering[covering.length - 1] = handler;
+                handlers[i] = covering;
+            }
+        }
+
+        BitSet[] liveIn = new BitSet[count];
+        for (int i = 0; i < count; i++)
+            liveIn[i] = new BitSet();
+
+        // Sweep backwards until nothing changes, most code only needs a second sweep to confirm the first one.
+        BitSet live = new BitSet();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = count - 1; i >= 0; i--) {
+                live.clear();
+                CodeElement element = elements.get(i);
+                if (element instanceof Instruction insn) {
+                    int opcode = insn.opcode();
+                    boolean terminal = opcode == ATHROW || (opcode >= IRETURN && opcode <= RETURN);
+                    if (element instanceof BranchInstruction bi) {
+                        for (Label target : bi.targetsStream().toList()) {
+                            Integer targetIndex = labelIndices.get(target);
+                            if (targetIndex != null)
+                                live.or(liveIn[targetIndex]);
+                        }
+                        if (bi.hasFallthrough() && i + 1 < count)
+                            live.or(liveIn[i + 1]);
+                    } else if (!terminal && i + 1 < count) {
+                        live.or(liveIn[i + 1]);
+                    }
+
+                    if (element instanceof VarInstruction vi) {
+                        int index = vi.variableIndex();
+                        int width = opcode == LLOAD || opcode == DLOAD || opcode == LSTORE || opcode == DSTORE ? 2 : 1;
+                        if (opcode >= ISTORE && opcode <= ASTORE)
+                            live.clear(index, index + width);
+                        else
+                            live.set(index, index + width);
+                    } else if (element instanceof VariableIncrementInstruction vii) {
+                        live.set(vii.variableIndex());
+                    }
+                } else if (i + 1 < count) {
+                    live.or(liveIn[i + 1]);
+                }
+                for (int handler : handlers[i])
+                    live.or(liveIn[handler]);
+
+                if (!live.equals(liveIn[i])) {
+                    liveIn[i].clear();
+                    liveIn[i].or(live);
+                    changed = true;
+                }
+            }
+        }
+        return new Liveness(liveIn);
+    }
+
+    /**
+     * @param index
+     *              Index of the code element.
+     *
+     * @return Slots live before the element executes. Must not be modified.
+     */
+    @NotNull
+    public BitSet liveIn(int index) {
+        if (index < 0 || index >= liveIn.length)
+            return NONE;
+        return liveIn[index];
+    }
+
+    /**
+     * @param index
+     *              Index of the code element.
+     * @param slot
+     *              Variable slot.
+     *
+     * @return {@code true} when the slot is live before the element executes.
+     */
+    public boolean isLive(int index, int slot) {
+        return liveIn(index).get(slot);
+    }
+
+    /**
+     * @return Number of code elements covered.
+     */
+    public int size() {
+        return liveIn.length;
+    }
+}
@@ -0,0 +1,21 @@
+package me.darknet.assembler.compile.analysis.jvm;
+
+import me.darknet.assembler.compile.analysis.BasicMethodValueLookup;
+import me.darknet.assembler.compile.analysis.MemberTable;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Service which adds method lookups to the member table of {@link BasicMethodValueLookup}, so that they are found
+ * with the same lookup as the built-in methods instead of being chained in front of it. Implementations are found
+ * with {@link java.util.ServiceLoader}, or can be passed to
+ * {@link BasicMethodValueLookup#BasicMethodValueLookup(Iterable)} directly.
+ */
+public interface MethodValueProvider {
+    /**
+     * @param table
+     *              Table to register method lookups into. Lookups registered under
+     *              {@link MemberTable#ANY_OWNER} apply to any owner.
+     */
+    void register(@NotNull MemberTable<MethodValueLookup> table);
+}
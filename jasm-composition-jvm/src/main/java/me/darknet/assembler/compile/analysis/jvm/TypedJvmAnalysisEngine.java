@@ -208,7 +208,7 @@ public void execute(VarInstruction instruction) {
                 frame.pushType(type);
             }
             case ISTORE, LSTORE, FSTORE, DSTORE, ASTORE -> {
-                String name = variableNameLookup.getVarName(index);
+                String name = variableNameLookup.getVarName(instruction, index);
                 ClassType type = opcode == LSTORE || opcode == DSTORE ? frame.pop2() : frame.pop();
                 frame.setLocal(index, new Local(index, name, type));
             }
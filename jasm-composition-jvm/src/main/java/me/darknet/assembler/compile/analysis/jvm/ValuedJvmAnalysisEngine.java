@@ -6,12 +6,15 @@
 import me.darknet.assembler.compile.analysis.frame.ValuedFrameOps;
 import me.darknet.assembler.compiler.InheritanceChecker;
 
+import dev.xdark.blw.code.Label;
 import dev.xdark.blw.code.instruction.*;
 import dev.xdark.blw.constant.*;
 import dev.xdark.blw.type.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -137,7 +140,7 @@ public void execute(SimpleInstruction instruction) {
             case LREM -> ((LongOp) (a, b) -> b % a).accept(frame);
             case LSHL -> ((LongIntOp) (a, b) -> a << b).accept(frame);
             case LSHR -> ((LongIntOp) (a, b) -> a >> b).accept(frame);
-            case LUSHR -> ((LongIntOp) (a, b) -> b >>> a).accept(frame);
+            case LUSHR -> ((LongIntOp) (a, b) -> a >>> b).accept(frame);
             case LAND -> ((LongOp) (a, b) -> b & a).accept(frame);
             case LOR -> ((LongOp) (a, b) -> b | a).accept(frame);
             case LXOR -> ((LongOp) (a, b) -> b ^ a).accept(frame);
@@ -197,7 +200,7 @@ public void execute(SimpleInstruction instruction) {
                 if (value1 instanceof Value.KnownLongValue long1 && value2 instanceof Value.KnownLongValue long2) {
                     long a = long1.value();
                     long b = long2.value();
-                    frame.push(Values.valueOf(Long.compare(a, b)));
+                    frame.push(Values.valueOf(Long.compare(b, a)));
                 } else {
                     frame.pushType(Types.INT);
                 }
@@ -211,7 +214,7 @@ public void execute(SimpleInstruction instruction) {
                     if (Float.isNaN(a) || Float.isNaN(b))
                         frame.push(Values.valueOf(-1));
                     else
-                        frame.push(Values.valueOf(Double.compare(a, b)));
+                        frame.push(Values.valueOf(b > a ? 1 : (b < a ? -1 : 0)));
                 } else {
                     frame.pushType(Types.INT);
                 }
@@ -225,7 +228,7 @@ public void execute(SimpleInstruction instruction) {
                     if (Float.isNaN(a) || Float.isNaN(b))
                         frame.push(Values.valueOf(1));
                     else
-                        frame.push(Values.valueOf(Double.compare(a, b)));
+                        frame.push(Values.valueOf(b > a ? 1 : (b < a ? -1 : 0)));
                 } else {
                     frame.pushType(Types.INT);
                 }
@@ -239,7 +242,7 @@ public void execute(SimpleInstruction instruction) {
                     if (Double.isNaN(a) || Double.isNaN(b))
                         frame.push(Values.valueOf(-1));
                     else
-                        frame.push(Values.valueOf(Double.compare(a, b)));
+                        frame.push(Values.valueOf(b > a ? 1 : (b < a ? -1 : 0)));
                 } else {
                     frame.pushType(Types.INT);
                 }
@@ -253,7 +256,7 @@ public void execute(SimpleInstruction instruction) {
                     if (Double.isNaN(a) || Double.isNaN(b))
                         frame.push(Values.valueOf(1));
                     else
-                        frame.push(Values.valueOf(Double.compare(a, b)));
+                        frame.push(Values.valueOf(b > a ? 1 : (b < a ? -1 : 0)));
                 } else {
                     frame.pushType(Types.INT);
                 }
@@ -366,7 +369,7 @@ public void execute(VarInstruction instruction) {
                 frame.push(value);
             }
             case ISTORE, LSTORE, FSTORE, DSTORE, ASTORE -> {
-                String name = variableNameLookup.getVarName(index);
+                String name = variableNameLookup.getVarName(instruction, index);
                 Value value = opcode == LSTORE || opcode == DSTORE ? frame.pop2() : frame.pop();
                 frame.setLocal(index, new ValuedLocal(index, name, value));
             }
@@ -507,6 +510,76 @@ public void execute(PrimitiveConversionInstruction instruction) {
         }
     }
 
+    @Override
+    public @Nullable KnownBranch evaluateBranch(@NotNull ValuedFrame frame, @NotNull BranchInstruction instruction) {
+        Iterator<Value> stack = frame.getStack().iterator();
+        if (!stack.hasNext())
+            return null;
+        Value top = stack.next();
+        if (instruction instanceof ConditionalJumpInstruction jump) {
+            int opcode = jump.opcode();
+            Boolean taken = switch (opcode) {
+                case IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE -> top instanceof Value.KnownIntValue known
+                        ? compare(opcode - IFEQ, known.value(), 0) : null;
+                // Only null is certain, known objects may still merge with null without losing their value
+                case IFNULL -> top instanceof Value.NullValue ? true : null;
+                case IFNONNULL -> top instanceof Value.NullValue ? false : null;
+                case IF_ICMPEQ, IF_ICMPNE, IF_ICMPLT, IF_ICMPGE, IF_ICMPGT, IF_ICMPLE -> {
+                    Value below = stack.hasNext() ? stack.next() : null;
+                    if (top instanceof Value.KnownIntValue value2 && below instanceof Value.KnownIntValue value1)
+                        yield compare(opcode - IF_ICMPEQ, value1.value(), value2.value());
+                    yield null;
+                }
+                case IF_ACMPEQ, IF_ACMPNE -> {
+                    Value below = stack.hasNext() ? stack.next() : null;
+                    if (top instanceof Value.NullValue && below instanceof Value.NullValue)
+                        yield opcode == IF_ACMPEQ;
+                    yield null;
+                }
+                default -> null;
+            };
+            if (taken == null)
+                return null;
+            return taken ? new KnownBranch(jump.target()) : KnownBranch.FALLTHROUGH;
+        }
+        if (!(top instanceof Value.KnownIntValue known))
+            return null;
+        int key = known.value();
+        if (instruction instanceof TableSwitchInstruction table) {
+            List<Label> targets = table.targets();
+            long offset = (long) key - table.min();
+            if (offset >= 0 && offset < targets.size())
+                return new KnownBranch(targets.get((int) offset));
+            return new KnownBranch(table.defaultTarget());
+        }
+        if (instruction instanceof LookupSwitchInstruction lookup) {
+            int[] keys = lookup.keys();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key)
+                    return new KnownBranch(lookup.targets().get(i));
+            }
+            return new KnownBranch(lookup.defaultTarget());
+        }
+        return null;
+    }
+
+    /**
+     * @param condition
+     *                  Offset of the condition from {@code IFEQ}, in the order {@code EQ, NE, LT, GE, GT, LE}.
+     *
+     * @return Whether the condition holds for the values.
+     */
+    private static boolean compare(int condition, int a, int b) {
+        return switch (condition) {
+            case 0 -> a == b;
+            case 1 -> a != b;
+            case 2 -> a < b;
+            case 3 -> a >= b;
+            case 4 -> a > b;
+            default -> a <= b;
+        };
+    }
+
     private interface IntOp {
         int op(int a, int b);
 
@@ -0,0 +1,146 @@
+package me.darknet.assembler.compile.optimize;
+
+import me.darknet.assembler.compile.analysis.BasicMethodValueLookup;
+import me.darknet.assembler.compile.analysis.Value;
+import me.darknet.assembler.compile.analysis.frame.Frame;
+import me.darknet.assembler.compile.analysis.frame.ValuedFrame;
+import me.darknet.assembler.compile.analysis.jvm.ValuedJvmAnalysisEngine;
+
+import dev.xdark.blw.code.CodeElement;
+import dev.xdark.blw.code.JavaOpcodes;
+import dev.xdark.blw.code.instruction.*;
+import dev.xdark.blw.constant.OfDouble;
+import dev.xdark.blw.constant.OfFloat;
+import dev.xdark.blw.constant.OfInt;
+import dev.xdark.blw.constant.OfLong;
+import dev.xdark.blw.constant.OfString;
+import dev.xdark.blw.type.Types;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folder replacing computations on constants with a single constant, using the values worked out by a
+ * {@link ValuedJvmAnalysisEngine}. An arithmetic, comparison or conversion instruction, or a {@code invokestatic} or
+ * {@code invokevirtual} which the engine found the return value of, is folded when all of its operands are pushed by
+ * the constant instructions directly before it. Folded constants can in turn be the operands of the next instruction.
+ * Calls are only folded when they are {@link BasicMethodValueLookup#isPure(MethodInstruction) pure}, since the value
+ * the engine found for a call reading the environment, such as a system property, is that of the compiling JVM.
+ * <p>
+ * Like with the {@link PeepholeOptimizer}, elements come with origins in a parallel list. The constant replacing a
+ * computation keeps the origin of the instruction doing the computation, the origins of the operands are dropped.
+ */
+public final class ConstantFolder implements JavaOpcodes {
+    private ConstantFolder() {
+    }
+
+    /**
+     * @param elements
+     *                 Code elements of the method, rewritten in place.
+     * @param origins
+     *                 Origin of each element, rewritten in place along with the elements.
+     * @param frames
+     *                 Frames of a complete analysis of the elements with a {@link ValuedJvmAnalysisEngine}, keyed by
+     *                 the index of the element they are the input of.
+     * @param <T>
+     *                 Type of the origins of the elements.
+     *
+     * @return Number of instructions removed.
+     */
+    public static <T> int fold(@NotNull List<CodeElement> elements, @NotNull List<T> origins,
+            @NotNull Map<Integer, ? extends Frame> frames) {
+        if (elements.size() != origins.size())
+            throw new IllegalArgumentException("Expected an origin for every element");
+        int count = elements.size();
+        // elements before this index are the rewritten code, the others are still to be looked at
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            CodeElement element = elements.get(i);
+            T origin = origins.get(i);
+            int operands = operands(element);
+            if (operands > 0 && operands <= kept && constantsBefore(elements, kept, operands)) {
+                ConstantInstruction<?> constant = constant(frames.get(i + 1));
+                if (constant != null) {
+                    kept -= operands;
+                    element = constant;
+                }
+            }
+            elements.set(kept, element);
+            origins.set(kept, origin);
+            kept++;
+        }
+        elements.subList(kept, count).clear();
+        origins.subList(kept, count).clear();
+        return count - kept;
+    }
+
+    /**
+     * @return Number of values the instruction takes off the stack, or {@code -1} if it is not a computation which
+     *         can be folded.
+     */
+    private static int operands(CodeElement element) {
+        if (element instanceof SimpleInstruction simple) {
+            int opcode = simple.opcode();
+            if ((opcode >= IADD && opcode <= DREM) || (opcode >= ISHL && opcode <= LXOR)
+                    || (opcode >= LCMP && opcode <= DCMPG))
+                return 2;
+            if (opcode >= INEG && opcode <= DNEG)
+                return 1;
+            return -1;
+        }
+        if (element instanceof PrimitiveConversionInstruction)
+            return 1;
+        if (element instanceof MethodInstruction method) {
+            if (method.type().returnType() == Types.VOID || !BasicMethodValueLookup.isPure(method))
+                return -1;
+            int parameters = method.type().parameterTypes().size();
+            return switch (method.opcode()) {
+                case INVOKESTATIC -> parameters;
+                case INVOKEVIRTUAL -> parameters + 1;
+                default -> -1;
+            };
+        }
+        return -1;
+    }
+
+    private static boolean constantsBefore(List<CodeElement> elements, int end, int count) {
+        for (int i = end - count; i < end; i++) {
+            if (!(elements.get(i) instanceof ConstantInstruction<?>))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param frame
+     *              Frame after the computation.
+     *
+     * @return Constant instruction pushing the result of the computation, or {@code null} if it is not known.
+     */
+    @Nullable
+    private static ConstantInstruction<?> constant(@Nullable Frame frame) {
+        if (!(frame instanceof ValuedFrame valuedFrame))
+            return null;
+        Iterator<Value> stack = valuedFrame.getStack().iterator();
+        if (!stack.hasNext())
+            return null;
+        Value value = stack.next();
+        // wide values are followed by a void value for their second slot
+        if (value instanceof Value.VoidValue && stack.hasNext())
+            value = stack.next();
+        if (value instanceof Value.KnownIntValue known)
+            return new ConstantInstruction.Int(new OfInt(known.value()));
+        if (value instanceof Value.KnownLongValue known)
+            return new ConstantInstruction.Long(new OfLong(known.value()));
+        if (value instanceof Value.KnownFloatValue known)
+            return new ConstantInstruction.Float(new OfFloat(known.value()));
+        if (value instanceof Value.KnownDoubleValue known)
+            return new ConstantInstruction.Double(new OfDouble(known.value()));
+        if (value instanceof Value.KnownStringValue known)
+            return ConstantInstruction.wrap(new OfString(known.value()));
+        return null;
+    }
+}
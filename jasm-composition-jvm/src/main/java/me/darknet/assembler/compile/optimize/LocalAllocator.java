@@ -0,0 +1,178 @@
+package me.darknet.assembler.compile.optimize;
+
+import me.darknet.assembler.compile.analysis.jvm.Liveness;
+
+import dev.xdark.blw.code.CodeElement;
+import dev.xdark.blw.code.JavaOpcodes;
+import dev.xdark.blw.code.TryCatchBlock;
+import dev.xdark.blw.code.instruction.ImmediateJumpInstruction;
+import dev.xdark.blw.code.instruction.VarInstruction;
+import dev.xdark.blw.code.instruction.VariableIncrementInstruction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Allocator moving variables into as few slots as possible. Variables interfere when they are live at the same time,
+ * or one is written while the other is live, see {@link Liveness}. Variables which do not interfere share a slot when
+ * they take up the same number of slots, so a {@code long} never shares a slot with half of another variable.
+ * <p>
+ * Variables are placed in the order they first appear in the code, each in the lowest slot it fits in. Slots below
+ * the fixed slots, such as {@code this} and the parameters, are never moved or reused.
+ */
+public final class LocalAllocator implements JavaOpcodes {
+    private LocalAllocator() {
+    }
+
+    /**
+     * @param elements
+     *                          Code elements of the method.
+     * @param exceptionHandlers
+     *                          Try-catch blocks of the method.
+     * @param fixedSlots
+     *                          Number of slots at the start which are not moved, usually those of the parameters.
+     *
+     * @return Slot each slot of the code is moved to, {@code -1} for slots the code does not use. {@code null} when no
+     *         variable moves, or the code uses slots in ways which can't be moved safely, such as subroutines or
+     *         accessing half of a {@code long}.
+     */
+    public static int @Nullable [] allocate(@NotNull List<CodeElement> elements,
+            @NotNull List<TryCatchBlock> exceptionHandlers, int fixedSlots) {
+        // Width of the variable starting at each slot, 0 for slots no variable starts at
+        int[] widths = new int[fixedSlots];
+        List<Integer> order = new ArrayList<>();
+        for (CodeElement element : elements) {
+            int index, width;
+            if (element instanceof VarInstruction vi) {
+                int opcode = vi.opcode();
+                if (opcode == RET)
+                    return null;
+                index = vi.variableIndex();
+                width = opcode == LLOAD || opcode == DLOAD || opcode == LSTORE || opcode == DSTORE ? 2 : 1;
+            } else if (element instanceof VariableIncrementInstruction vii) {
+                index = vii.variableIndex();
+                width = 1;
+            } else if (element instanceof ImmediateJumpInstruction jump && (jump.opcode() == JSR
+                    || jump.opcode() == JSR_W)) {
+                return null;
+            } else {
+                continue;
+            }
+            if (index + width > widths.length)
+                widths = Arrays.copyOf(widths, index + width);
+            if (widths[index] == 0) {
+                widths[index] = width;
+                if (index >= fixedSlots)
+                    order.add(index);
+            } else if (widths[index] != width) {
+                return null;
+            }
+        }
+        int slots = widths.length;
+        for (int slot = 0; slot < slots; slot++) {
+            int width = widths[slot];
+            if (width == 2 && widths[slot + 1] != 0)
+                return null; // overlapping variables
+            if (slot < fixedSlots && slot + width > fixedSlots)
+                return null;
+        }
+        if (order.isEmpty())
+            return null;
+
+        BitSet[] interference = interference(elements, exceptionHandlers, widths, fixedSlots);
+
+        int[] allocated = new int[slots];
+        Arrays.fill(allocated, -1);
+        for (int slot = 0; slot < fixedSlots; slot++)
+            allocated[slot] = slot;
+        boolean moved = false;
+        List<Integer> placed = new ArrayList<>(order.size());
+        for (int variable : order) {
+            int width = widths[variable];
+            int target = fixedSlots;
+            while (!fits(variable, target, width, placed, allocated, widths, interference))
+                target++;
+            allocated[variable] = target;
+            if (width == 2)
+                allocated[variable + 1] = target + 1;
+            placed.add(variable);
+            moved |= target != variable;
+        }
+        return moved ? allocated : null;
+    }
+
+    /**
+     * @param elements
+     *                 Code elements of the method, rewritten in place.
+     * @param slots
+     *                 Slot each slot of the code is moved to, see {@link #allocate(List, List, int)}.
+     */
+    public static void apply(@NotNull List<CodeElement> elements, int @NotNull [] slots) {
+        for (int i = 0; i < elements.size(); i++) {
+            CodeElement element = elements.get(i);
+            if (element instanceof VarInstruction vi) {
+                int slot = slots[vi.variableIndex()];
+                if (slot != vi.variableIndex())
+                    elements.set(i, new VarInstruction(vi.opcode(), slot));
+            } else if (element instanceof VariableIncrementInstruction vii) {
+                int slot = slots[vii.variableIndex()];
+                if (slot != vii.variableIndex())
+                    elements.set(i, new VariableIncrementInstruction(slot, vii.incrementBy()));
+            }
+        }
+    }
+
+    /**
+     * @return Variables each variable interferes with, indexed by the slot the variables start at.
+     */
+    private static BitSet[] interference(List<CodeElement> elements, List<TryCatchBlock> exceptionHandlers,
+            int[] widths, int fixedSlots) {
+        int slots = widths.length;
+        BitSet[] interference = new BitSet[slots];
+        for (int slot = 0; slot < slots; slot++)
+            interference[slot] = new BitSet();
+
+        Liveness liveness = Liveness.compute(elements, exceptionHandlers);
+        BitSet present = new BitSet(slots);
+        int[] variables = new int[slots];
+        for (int i = 0; i < elements.size(); i++) {
+            // Variables are live while some path still reads them, and also right after a write which is never read.
+            present.clear();
+            present.or(liveness.liveIn(i));
+            if (i > 0 && elements.get(i - 1) instanceof VarInstruction vi && vi.opcode() >= ISTORE
+                    && vi.opcode() <= ASTORE)
+                present.set(vi.variableIndex());
+
+            int found = 0;
+            for (int slot = present.nextSetBit(fixedSlots); slot >= 0 && slot < slots;
+                    slot = present.nextSetBit(slot + 1)) {
+                // the second slot of a wide variable belongs to the variable before it
+                int variable = widths[slot] == 0 && slot > 0 && widths[slot - 1] == 2 ? slot - 1 : slot;
+                if (found == 0 || variables[found - 1] != variable)
+                    variables[found++] = variable;
+            }
+            for (int a = 0; a < found; a++) {
+                for (int b = a + 1; b < found; b++) {
+                    interference[variables[a]].set(variables[b]);
+                    interference[variables[b]].set(variables[a]);
+                }
+            }
+        }
+        return interference;
+    }
+
+    private static boolean fits(int variable, int target, int width, List<Integer> placed, int[] allocated,
+            int[] widths, BitSet[] interference) {
+        for (int other : placed) {
+            int otherTarget = allocated[other];
+            int otherWidth = widths[other];
+            if (otherTarget >= target + width || otherTarget + otherWidth <= target)
+                continue;
+            // Sharing slots is only fine with a variable of the same size which is never live at the same time
+            if (interference[variable].get(other) || otherTarget != target || otherWidth != width)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package me.darknet.assembler.compile.optimize;
+
+/**
+ * How much the {@link PeepholeOptimizer} rewrites method code before the class is written.
+ */
+public enum OptimizationLevel {
+    /**
+     * Code is written as assembled.
+     */
+    NONE,
+    /**
+     * Jumps are threaded through {@code goto} chains, jumps to the next instruction are dropped and {@code dup}
+     * directly followed by {@code pop} is removed. Only ever removes instructions whose effect is nothing.
+     */
+    BASIC,
+    /**
+     * In addition to {@link #BASIC}, loads and stores which only move a value back and forth between the stack and a
+     * variable are removed, and dense {@code lookupswitch} instructions become {@code tableswitch} instructions.
+     * Variables whose value only passes through the stack may disappear from the variable table.
+     */
+    FULL
+}
@@ -0,0 +1,333 @@
+package me.darknet.assembler.compile.optimize;
+
+import me.darknet.assembler.compile.analysis.jvm.Liveness;
+
+import dev.xdark.blw.code.CodeElement;
+import dev.xdark.blw.code.Instruction;
+import dev.xdark.blw.code.JavaOpcodes;
+import dev.xdark.blw.code.Label;
+import dev.xdark.blw.code.TryCatchBlock;
+import dev.xdark.blw.code.instruction.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Optimizer rewriting small patterns in the code list of a method, such as {@code goto} chains and {@code dup}
+ * directly followed by {@code pop}. Patterns are rewritten in rounds until none are left.
+ * <p>
+ * Every element comes with an origin, such as the AST instruction it was assembled from, in a parallel list.
+ * Removed elements drop their origin and replacing elements keep the origin of the element they replace, so a mapping
+ * between origins and elements stays valid for everything kept. Labels are never removed, and instructions are only
+ * removed while each try-catch range keeps at least one instruction.
+ *
+ * @param <T>
+ *            Type of the origins of the elements.
+ */
+public final class PeepholeOptimizer<T> implements JavaOpcodes {
+    private static final int LOAD_TO_STORE = ISTORE - ILOAD;
+
+    private final List<CodeElement> elements;
+    private final List<T> origins;
+    private final List<TryCatchBlock> exceptionHandlers;
+    private final OptimizationLevel level;
+
+    // state of the current round, indices refer to the elements as they were at the start of it
+    private final Map<Label, Integer> labels = new IdentityHashMap<>();
+    private CodeElement[] replaced;
+    private BitSet removed;
+    private int[] rangeStarts;
+    private int[] rangeEnds;
+    private int[] rangeInstructions;
+
+    private PeepholeOptimizer(List<CodeElement> elements, List<T> origins, List<TryCatchBlock> exceptionHandlers,
+            OptimizationLevel level) {
+        this.elements = elements;
+        this.origins = origins;
+        this.exceptionHandlers = exceptionHandlers;
+        this.level = level;
+    }
+
+    /**
+     * @param elements
+     *                          Code elements of the method, rewritten in place.
+     * @param origins
+     *                          Origin of each element, rewritten in place along with the elements.
+     * @param exceptionHandlers
+     *                          Try-catch blocks of the method.
+     * @param level
+     *                          Patterns to rewrite.
+     * @param <T>
+     *                          Type of the origins of the elements.
+     *
+     * @return Number of instructions removed.
+     */
+    public static <T> int optimize(@NotNull List<CodeElement> elements, @NotNull List<T> origins,
+            @NotNull List<TryCatchBlock> exceptionHandlers, @NotNull OptimizationLevel level) {
+        if (elements.size() != origins.size())
+            throw new IllegalArgumentException("Expected an origin for every element");
+        if (level == OptimizationLevel.NONE)
+            return 0;
+        int size = elements.size();
+        PeepholeOptimizer<T> optimizer = new PeepholeOptimizer<>(elements, origins, exceptionHandlers, level);
+        while (optimizer.round()) {
+            // until nothing changes
+        }
+        return size - elements.size();
+    }
+
+    private boolean round() {
+        int count = elements.size();
+        labels.clear();
+        for (int i = 0; i < count; i++) {
+            if (elements.get(i) instanceof Label label)
+                labels.put(label, i);
+        }
+        replaced = new CodeElement[count];
+        removed = new BitSet(count);
+        computeRanges();
+        Liveness liveness = level == OptimizationLevel.FULL ? Liveness.compute(elements, exceptionHandlers) : null;
+
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            if (touched(i))
+                continue;
+            CodeElement element = elements.get(i);
+            if (element instanceof ImmediateJumpInstruction jump) {
+                changed |= jump(i, jump.opcode(), jump.target());
+            } else if (element instanceof ConditionalJumpInstruction jump) {
+                changed |= jump(i, jump.opcode(), jump.target());
+            } else if (element instanceof LookupSwitchInstruction lookup) {
+                changed |= lookupSwitch(i, lookup);
+            } else if (element instanceof TableSwitchInstruction table) {
+                changed |= tableSwitch(i, table);
+            } else if (element instanceof SimpleInstruction simple) {
+                changed |= dupPop(i, simple.opcode());
+            } else if (element instanceof VarInstruction var && liveness != null) {
+                changed |= loadStore(i, var, liveness);
+            }
+        }
+        if (changed)
+            apply();
+        return changed;
+    }
+
+    private boolean jump(int index, int opcode, Label target) {
+        boolean isGoto = opcode == GOTO || opcode == GOTO_W;
+        if (!isGoto && (opcode == JSR || opcode == JSR_W))
+            return false;
+
+        Label threaded = thread(target);
+        Integer position = labels.get(threaded);
+        if (position != null && position > index && onlyLabels(index + 1, position)) {
+            // Jump to the next instruction, which leaves only the operands of the condition to pop
+            if (isGoto)
+                return remove(index);
+            boolean twoOperands = opcode >= IF_ICMPEQ && opcode <= IF_ACMPNE;
+            replaced[index] = new SimpleInstruction(twoOperands ? POP2 : POP);
+            return true;
+        }
+        if (threaded == target)
+            return false;
+        replaced[index] = isGoto ? new ImmediateJumpInstruction(opcode, threaded)
+                : new ConditionalJumpInstruction(opcode, threaded);
+        return true;
+    }
+
+    private boolean lookupSwitch(int index, LookupSwitchInstruction lookup) {
+        int[] keys = lookup.keys();
+        Label defaultTarget = thread(lookup.defaultTarget());
+        List<Label> targets = thread(lookup.targets());
+        if (level == OptimizationLevel.FULL) {
+            TableSwitchInstruction table = toTableSwitch(keys, defaultTarget, targets);
+            if (table != null) {
+                replaced[index] = table;
+                return true;
+            }
+        }
+        if (defaultTarget == lookup.defaultTarget() && targets.equals(lookup.targets()))
+            return false;
+        replaced[index] = new LookupSwitchInstruction(keys, defaultTarget, targets);
+        return true;
+    }
+
+    private boolean tableSwitch(int index, TableSwitchInstruction table) {
+        Label defaultTarget = thread(table.defaultTarget());
+        List<Label> targets = thread(table.targets());
+        if (defaultTarget == table.defaultTarget() && targets.equals(table.targets()))
+            return false;
+        replaced[index] = new TableSwitchInstruction(table.min(), defaultTarget, targets);
+        return true;
+    }
+
+    /**
+     * @return Table switch with the same targets, or {@code null} if the keys are not dense enough to make one
+     *         worth it, by the same cost estimate as {@code javac}.
+     */
+    @Nullable
+    private static TableSwitchInstruction toTableSwitch(int[] keys, Label defaultTarget, List<Label> targets) {
+        if (keys.length == 0 || keys.length != targets.size())
+            return null;
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> keys[i]));
+        long min = keys[order[0]];
+        long range = keys[order[order.length - 1]] - min + 1;
+        long tableCost = 4 + range + 3 * 3;
+        long lookupCost = 3 + 2L * keys.length + 3L * keys.length;
+        if (tableCost > lookupCost)
+            return null;
+
+        List<Label> table = new ArrayList<>(Collections.nCopies((int) range, defaultTarget));
+        for (int i = 0; i < order.length; i++) {
+            int key = keys[order[i]];
+            if (i > 0 && key == keys[order[i - 1]])
+                return null; // duplicate keys, leave it to the class writer to complain
+            table.set((int) (key - min), targets.get(order[i]));
+        }
+        return new TableSwitchInstruction((int) min, defaultTarget, table);
+    }
+
+    private boolean dupPop(int index, int opcode) {
+        if ((opcode != DUP && opcode != DUP2) || index + 1 >= elements.size() || touched(index + 1))
+            return false;
+        if (!(elements.get(index + 1) instanceof SimpleInstruction next))
+            return false;
+        if (next.opcode() != (opcode == DUP ? POP : POP2))
+            return false;
+        return remove(index, index + 1);
+    }
+
+    private boolean loadStore(int index, VarInstruction first, Liveness liveness) {
+        if (index + 1 >= elements.size() || touched(index + 1))
+            return false;
+        if (!(elements.get(index + 1) instanceof VarInstruction second))
+            return false;
+        int slot = first.variableIndex();
+        if (second.variableIndex() != slot)
+            return false;
+        int opcode = first.opcode();
+        if (opcode >= ILOAD && opcode <= ALOAD && second.opcode() == opcode + LOAD_TO_STORE) {
+            // Storing the value just loaded from the same variable
+            return remove(index, index + 1);
+        }
+        if (opcode >= ISTORE && opcode <= ASTORE && second.opcode() == opcode - LOAD_TO_STORE) {
+            // Loading the value just stored, to a variable which is not read afterwards
+            int after = index + 2;
+            if (after < elements.size() && liveness.liveIn(after).get(slot))
+                return false;
+            return remove(index, index + 1);
+        }
+        return false;
+    }
+
+    /**
+     * @return Label the jump ends up at when following the chain of {@code goto} instructions after the label.
+     */
+    private Label thread(Label label) {
+        Label current = label;
+        // a loop of gotos never ends up anywhere, so it is left as is
+        for (int hops = 0; hops < labels.size(); hops++) {
+            Integer position = labels.get(current);
+            if (position == null)
+                return current;
+            int next = nextInstruction(position);
+            if (next < 0 || !(elements.get(next) instanceof ImmediateJumpInstruction jump))
+                return current;
+            if (jump.opcode() != GOTO && jump.opcode() != GOTO_W)
+                return current;
+            if (jump.target() == current)
+                return current;
+            current = jump.target();
+        }
+        return label;
+    }
+
+    private List<Label> thread(List<Label> targets) {
+        List<Label> threaded = new ArrayList<>(targets.size());
+        for (Label target : targets)
+            threaded.add(thread(target));
+        return threaded;
+    }
+
+    private int nextInstruction(int from) {
+        for (int i = from; i < elements.size(); i++) {
+            if (elements.get(i) instanceof Instruction)
+                return i;
+        }
+        return -1;
+    }
+
+    private boolean onlyLabels(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!(elements.get(i) instanceof Label))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean touched(int index) {
+        return removed.get(index) || replaced[index] != null;
+    }
+
+    private void computeRanges() {
+        int blocks = exceptionHandlers.size();
+        rangeStarts = new int[blocks];
+        rangeEnds = new int[blocks];
+        rangeInstructions = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            TryCatchBlock block = exceptionHandlers.get(b);
+            Integer start = labels.get(block.start());
+            Integer end = labels.get(block.end());
+            if (start == null || end == null) {
+                rangeStarts[b] = rangeEnds[b] = -1;
+                continue;
+            }
+            rangeStarts[b] = start;
+            rangeEnds[b] = end;
+            for (int i = start; i < end; i++) {
+                if (elements.get(i) instanceof Instruction)
+                    rangeInstructions[b]++;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} when the instructions were marked as removed, {@code false} if removing them would leave
+     *         a try-catch range without instructions.
+     */
+    private boolean remove(int... indices) {
+        int blocks = rangeStarts.length;
+        int[] covered = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            for (int index : indices) {
+                if (index >= rangeStarts[b] && index < rangeEnds[b])
+                    covered[b]++;
+            }
+            if (covered[b] > 0 && rangeInstructions[b] - covered[b] < 1)
+                return false;
+        }
+        for (int b = 0; b < blocks; b++)
+            rangeInstructions[b] -= covered[b];
+        for (int index : indices)
+            removed.set(index);
+        return true;
+    }
+
+    private void apply() {
+        int count = elements.size();
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (removed.get(i))
+                continue;
+            CodeElement element = replaced[i];
+            elements.set(kept, element == null ? elements.get(i) : element);
+            origins.set(kept, origins.get(i));
+            kept++;
+        }
+        elements.subList(kept, count).clear();
+        origins.subList(kept, count).clear();
+    }
+}
@@ -0,0 +1,154 @@
+package me.darknet.assembler.compile.visitor;
+
+import me.darknet.assembler.ast.ElementType;
+import me.darknet.assembler.ast.primitive.ASTIdentifier;
+import me.darknet.assembler.ast.primitive.ASTNumber;
+import me.darknet.assembler.ast.specific.ASTValue;
+import me.darknet.assembler.visitor.ASTAnnotationArrayVisitor;
+import me.darknet.assembler.visitor.ASTAnnotationVisitor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Records the values of an annotation or annotation array, to be written with {@link #accept(AnnotationVisitor)}.
+ * Annotations are visited ahead of the signature of the declaration they belong to, which ASM needs before any
+ * annotation can be written.
+ */
+public class AsmAnnotationVisitor implements ASTAnnotationVisitor, ASTAnnotationArrayVisitor {
+    private final List<Consumer<AnnotationVisitor>> values = new ArrayList<>();
+
+    /**
+     * @param visitor
+     *                Visitor to write the recorded values to, ended afterwards. May be {@code null} to drop them.
+     */
+    public void accept(@Nullable AnnotationVisitor visitor) {
+        if (visitor == null)
+            return;
+        for (Consumer<AnnotationVisitor> value : values)
+            value.accept(visitor);
+        visitor.visitEnd();
+    }
+
+    @Override
+    public void visitValue(ASTIdentifier name, ASTValue value) {
+        value(name.literal(), value);
+    }
+
+    @Override
+    public void visitTypeValue(ASTIdentifier name, ASTIdentifier className) {
+        typeValue(name.literal(), className);
+    }
+
+    @Override
+    public void visitEnumValue(ASTIdentifier name, ASTIdentifier className, ASTIdentifier enumName) {
+        enumValue(name.literal(), className, enumName);
+    }
+
+    @Override
+    public ASTAnnotationVisitor visitAnnotationValue(ASTIdentifier name, ASTIdentifier className) {
+        return annotationValue(name.literal(), className);
+    }
+
+    @Override
+    public ASTAnnotationArrayVisitor visitArrayValue(ASTIdentifier name) {
+        return arrayValue(name.literal());
+    }
+
+    @Override
+    public void visitValue(ASTValue value) {
+        value(null, value);
+    }
+
+    @Override
+    public void visitTypeValue(ASTIdentifier className) {
+        typeValue(null, className);
+    }
+
+    @Override
+    public void visitEnumValue(ASTIdentifier className, ASTIdentifier enumName) {
+        enumValue(null, className, enumName);
+    }
+
+    @Override
+    public ASTAnnotationVisitor visitAnnotationValue(ASTIdentifier className) {
+        return annotationValue(null, className);
+    }
+
+    @Override
+    public ASTAnnotationArrayVisitor visitArrayValue() {
+        return arrayValue(null);
+    }
+
+    @Override
+    public void visitEnd() {
+    }
+
+    private void value(@Nullable String name, ASTValue value) {
+        Object element = elementFromValue(value);
+        values.add(visitor -> visitor.visit(name, element));
+    }
+
+    private void typeValue(@Nullable String name, ASTIdentifier className) {
+        Type type = Type.getObjectType(className.literal());
+        values.add(visitor -> visitor.visit(name, type));
+    }
+
+    private void enumValue(@Nullable String name, ASTIdentifier className, ASTIdentifier enumName) {
+        String descriptor = Type.getObjectType(className.literal()).getDescriptor();
+        String constant = enumName.literal();
+        values.add(visitor -> visitor.visitEnum(name, descriptor, constant));
+    }
+
+    private AsmAnnotationVisitor annotationValue(@Nullable String name, ASTIdentifier className) {
+        String descriptor = Type.getObjectType(className.literal()).getDescriptor();
+        AsmAnnotationVisitor nested = new AsmAnnotationVisitor();
+        values.add(visitor -> nested.accept(visitor.visitAnnotation(name, descriptor)));
+        return nested;
+    }
+
+    private AsmAnnotationVisitor arrayValue(@Nullable String name) {
+        AsmAnnotationVisitor nested = new AsmAnnotationVisitor();
+        values.add(visitor -> nested.accept(visitor.visitArray(name)));
+        return nested;
+    }
+
+    /**
+     * @param value
+     *              Primitive or string value of an annotation.
+     *
+     * @return Boxed value, as ASM expects it.
+     */
+    @NotNull
+    private static Object elementFromValue(@NotNull ASTValue value) {
+        ElementType valueType = value.type();
+        return switch (valueType) {
+            case STRING -> value.content();
+            case NUMBER -> {
+                ASTNumber number = (ASTNumber) value;
+                if (number.isFloatingPoint()) {
+                    if (number.isWide()) {
+                        yield number.asDouble();
+                    } else {
+                        yield number.asFloat();
+                    }
+                } else {
+                    if (number.isWide()) {
+                        yield number.asLong();
+                    } else {
+                        yield number.asInt();
+                    }
+                }
+            }
+            case CHARACTER -> value.content().charAt(0);
+            case BOOL -> Boolean.parseBoolean(value.content());
+            default -> throw new UnsupportedOperationException("Enum value of type not supported yet: " + valueType);
+        };
+    }
+}
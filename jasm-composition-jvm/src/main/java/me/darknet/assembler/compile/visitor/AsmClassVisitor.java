@@ -0,0 +1,97 @@
+package me.darknet.assembler.compile.visitor;
+
+import me.darknet.assembler.ast.primitive.ASTIdentifier;
+import me.darknet.assembler.ast.primitive.ASTString;
+import me.darknet.assembler.util.BlwModifiers;
+import me.darknet.assembler.visitor.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes a class to an ASM {@link ClassVisitor}. The header and the attributes preceding the members are held back
+ * until the first member, as the AST visits the signature and super class after the annotations.
+ */
+public class AsmClassVisitor extends AsmMemberVisitor implements ASTClassVisitor {
+    private final ClassVisitor visitor;
+    private final int version;
+    private final int accessFlags;
+    private final String name;
+    private final List<String> interfaces = new ArrayList<>();
+    private final List<Consumer<ClassVisitor>> innerClasses = new ArrayList<>();
+    private String superName;
+    private String sourceFile;
+    private boolean started;
+
+    public AsmClassVisitor(ClassVisitor visitor, int version, int accessFlags, String name) {
+        this.visitor = visitor;
+        this.version = version;
+        this.accessFlags = accessFlags;
+        this.name = name;
+    }
+
+    @Override
+    public void visitSuperClass(@Nullable ASTIdentifier superClass) {
+        superName = superClass == null ? null : superClass.literal();
+    }
+
+    @Override
+    public void visitInterface(@NotNull ASTIdentifier interfaceName) {
+        interfaces.add(interfaceName.literal());
+    }
+
+    @Override
+    public void visitSourceFile(@Nullable ASTString sourceFile) {
+        this.sourceFile = sourceFile == null ? null : sourceFile.content();
+    }
+
+    @Override
+    public void visitInnerClass(Modifiers modifiers, @Nullable ASTIdentifier name, @Nullable ASTIdentifier outerClass,
+            ASTIdentifier innerClass) {
+        int accessFlags = BlwModifiers.getClassModifiers(modifiers);
+        String type = innerClass == null ? null : innerClass.literal();
+        String outerType = outerClass == null ? null : outerClass.literal();
+        String innerName = name == null ? null : name.literal();
+        innerClasses.add(visitor -> visitor.visitInnerClass(type, outerType, innerName, accessFlags));
+    }
+
+    @Override
+    public ASTFieldVisitor visitField(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
+        start();
+        int accessFlags = BlwModifiers.getFieldModifiers(modifiers);
+        return new AsmFieldVisitor(visitor, accessFlags, name.literal(), descriptor.literal());
+    }
+
+    @Override
+    public ASTMethodVisitor visitMethod(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
+        start();
+        int accessFlags = BlwModifiers.getMethodModifiers(modifiers);
+        return new AsmMethodVisitor(visitor, this.name, accessFlags, name.literal(), descriptor.literal());
+    }
+
+    @Override
+    public void visitEnd() {
+        start();
+        visitor.visitEnd();
+    }
+
+    /**
+     * Writes the header and the attributes visited so far, if not done yet.
+     */
+    private void start() {
+        if (started)
+            return;
+        started = true;
+        visitor.visit(version, accessFlags, name, signature, superName, interfaces.toArray(String[]::new));
+        if (sourceFile != null)
+            visitor.visitSource(sourceFile, null);
+        acceptAnnotations(visitor::visitAnnotation);
+        for (Consumer<ClassVisitor> innerClass : innerClasses)
+            innerClass.accept(visitor);
+    }
+}
@@ -0,0 +1,311 @@
+package me.darknet.assembler.compile.visitor;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.ast.primitive.*;
+import me.darknet.assembler.helper.Handle;
+import me.darknet.assembler.instructions.Instructions;
+import me.darknet.assembler.util.AsmConstantMapper;
+import me.darknet.assembler.util.BlwOpcodes;
+import me.darknet.assembler.visitor.ASTJvmInstructionVisitor;
+
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.*;
+
+/**
+ * Writes method code straight to an ASM {@link MethodVisitor}, without building an intermediate model or analyzing
+ * it. Variables are assigned slots in the same way as {@link BlwCodeVisitor}, but as there are no analysis frames to
+ * take their types from, variables other than parameters span the whole method and are typed by the instruction which
+ * first accesses them, with references typed as {@code java/lang/Object}.
+ */
+public class AsmCodeVisitor implements ASTJvmInstructionVisitor, Opcodes {
+    private static final String OBJECT = "Ljava/lang/Object;";
+    // Not part of the ASM opcodes, ASM picks the wide forms of jumps by itself when the offset needs it
+    private static final int GOTO_W = 200;
+    private static final int JSR_W = 201;
+    private final MethodVisitor visitor;
+    private final Map<String, Label> nameToLabel = new HashMap<>();
+    private final List<Parameter> parameters = new ArrayList<>();
+    /**
+     * Names and descriptors of variables by slot, {@code null} for the second slot of wide variables.
+     */
+    private final List<String> localNames = new ArrayList<>();
+    private final List<String> localTypes = new ArrayList<>();
+    private final int parameterSlots;
+    private final Label begin = new Label();
+    private int opcode = 0;
+    private boolean itf;
+
+    /**
+     * @param visitor
+     *                       Visitor to write code to.
+     * @param owner
+     *                       Internal name of the class declaring the method.
+     * @param descriptor
+     *                       Descriptor of the method.
+     * @param isStatic
+     *                       {@code true} when the method has no {@code this} variable.
+     * @param parameterNames
+     *                       Names of the parameters, including {@code this}.
+     */
+    public AsmCodeVisitor(MethodVisitor visitor, String owner, String descriptor, boolean isStatic,
+            List<String> parameterNames) {
+        this.visitor = visitor;
+
+        int localIndex = 0;
+        if (!isStatic)
+            parameters.add(new Parameter(localIndex++, "this", Type.getObjectType(owner).getDescriptor()));
+        Type[] types = Type.getArgumentTypes(descriptor);
+        for (int i = 0; i < types.length; i++) {
+            String name;
+            int nameIndex = i + (isStatic ? 0 : 1);
+            if (nameIndex < parameterNames.size()) {
+                name = parameterNames.get(nameIndex);
+            } else {
+                name = "p" + i;
+            }
+            parameters.add(new Parameter(localIndex, name, types[i].getDescriptor()));
+            localIndex += types[i].getSize();
+        }
+        this.parameterSlots = localIndex;
+
+        // Populate variables from params.
+        for (Parameter parameter : parameters)
+            getOrCreateLocal(parameter.name(), parameter.descriptor());
+
+        visitor.visitCode();
+        visitor.visitLabel(begin);
+    }
+
+    /**
+     * @param name
+     *                   Name of variable.
+     * @param descriptor
+     *                   Descriptor of the variable, used if it does not exist yet.
+     *
+     * @return Index of variable.
+     */
+    private int getOrCreateLocal(String name, String descriptor) {
+        int index = localNames.indexOf(name);
+        if (index > -1)
+            return index;
+        index = localNames.size();
+        localNames.add(name);
+        localTypes.add(descriptor);
+        if (Type.getType(descriptor).getSize() > 1) {
+            localNames.add(null);
+            localTypes.add(null);
+        }
+        return index;
+    }
+
+    /**
+     * @param name
+     *             Name of label.
+     *
+     * @return Label reference.
+     */
+    private Label getOrCreateLabel(String name) {
+        return nameToLabel.computeIfAbsent(name, n -> new Label());
+    }
+
+    @Override
+    public void visitInstruction(@NotNull ASTInstruction instruction) {
+        if (instruction instanceof ASTLabel)
+            return;
+        int id = instruction.opcode();
+        if (id == Instructions.UNKNOWN) {
+            // not resolved by the processor, fall back to the mnemonic
+            String name = instruction.identifier().content();
+            opcode = BlwOpcodes.opcode(name);
+            itf = name.endsWith("interface");
+        } else {
+            opcode = BlwOpcodes.opcode(id);
+            itf = BlwOpcodes.isInterface(id);
+        }
+    }
+
+    @Override
+    public void visitException(@NotNull ASTIdentifier start, @NotNull ASTIdentifier end,
+            @NotNull ASTIdentifier handler, @NotNull ASTIdentifier type) {
+        Label startLabel = nameToLabel.get(start.content()); // assume that labels don't have escapable characters
+        Label endLabel = nameToLabel.get(end.content());
+        Label handlerLabel = nameToLabel.get(handler.content());
+
+        String typeName = type.literal();
+        String exceptionType = typeName.equals("*") ? null : Type.getType(typeName).getInternalName();
+        visitor.visitTryCatchBlock(startLabel, endLabel, handlerLabel, exceptionType);
+    }
+
+    @Override
+    public void visitInsn() {
+        visitor.visitInsn(opcode);
+    }
+
+    @Override
+    public void visitIntInsn(ASTNumber operand) {
+        visitor.visitIntInsn(opcode, operand.asInt());
+    }
+
+    @Override
+    public void visitNewArrayInsn(ASTIdentifier type) {
+        visitor.visitIntInsn(NEWARRAY, AsmConstantMapper.newArrayType(type.content()));
+    }
+
+    @Override
+    public void visitLdcInsn(ASTElement constant) {
+        visitor.visitLdcInsn(AsmConstantMapper.fromConstant(constant));
+    }
+
+    @Override
+    public void visitVarInsn(ASTIdentifier var) {
+        String descriptor = switch (opcode) {
+            case ILOAD, ISTORE -> "I";
+            case LLOAD, LSTORE -> "J";
+            case FLOAD, FSTORE -> "F";
+            case DLOAD, DSTORE -> "D";
+            default -> OBJECT;
+        };
+        visitor.visitVarInsn(opcode, getOrCreateLocal(var.literal(), descriptor));
+    }
+
+    @Override
+    public void visitIincInsn(ASTIdentifier var, ASTNumber increment) {
+        visitor.visitIincInsn(getOrCreateLocal(var.literal(), "I"), increment.asInt());
+    }
+
+    @Override
+    public void visitJumpInsn(ASTIdentifier label) {
+        // we can assume that labels will not contain characters needing escaping
+        Label l = getOrCreateLabel(label.content());
+        int jumpOpcode = switch (opcode) {
+            case GOTO_W -> GOTO;
+            case JSR_W -> JSR;
+            default -> opcode;
+        };
+        visitor.visitJumpInsn(jumpOpcode, l);
+    }
+
+    @Override
+    public void visitTypeInsn(ASTIdentifier type) {
+        if (opcode == NEW) {
+            visitor.visitTypeInsn(opcode, type.literal());
+        } else {
+            // the other type instructions take a descriptor
+            visitor.visitTypeInsn(opcode, Type.getType(type.literal()).getInternalName());
+        }
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(ASTObject lookupSwitchObject) {
+        ASTIdentifier defaultLabel = lookupSwitchObject.value("default");
+        assert defaultLabel != null;
+        List<Integer> keys = new ArrayList<>();
+        List<Label> labels = new ArrayList<>();
+        for (var pair : lookupSwitchObject.values().pairs()) {
+            if (pair.first().content().equals("default"))
+                continue;
+            keys.add(Integer.parseInt(pair.first().content()));
+            labels.add(getOrCreateLabel(pair.second().content()));
+        }
+        visitor.visitLookupSwitchInsn(
+                getOrCreateLabel(defaultLabel.content()), keys.stream().mapToInt(Integer::intValue).toArray(),
+                labels.toArray(Label[]::new)
+        );
+    }
+
+    @Override
+    public void visitTableSwitchInsn(ASTObject tableSwitchObject) {
+        ASTNumber min = tableSwitchObject.value("min");
+        assert min != null;
+        // max is not important as it is just min + length - 1
+        ASTIdentifier defaultLabel = tableSwitchObject.value("default");
+        assert defaultLabel != null;
+        List<Label> labels = new ArrayList<>();
+        ASTArray cases = tableSwitchObject.value("cases");
+        assert cases != null;
+        for (ASTElement value : cases.values()) {
+            assert value instanceof ASTIdentifier;
+            labels.add(getOrCreateLabel(value.content()));
+        }
+        visitor.visitTableSwitchInsn(
+                min.asInt(), min.asInt() + labels.size() - 1, getOrCreateLabel(defaultLabel.content()),
+                labels.toArray(Label[]::new)
+        );
+    }
+
+    @Override
+    public void visitFieldInsn(ASTIdentifier path, ASTIdentifier descriptor) {
+        String literal = path.literal();
+        int index = literal.lastIndexOf('.');
+        String owner = literal.substring(0, index);
+        String name = literal.substring(index + 1);
+        visitor.visitFieldInsn(opcode, owner, name, descriptor.literal());
+    }
+
+    @Override
+    public void visitMethodInsn(ASTIdentifier path, ASTIdentifier descriptor) {
+        String literal = path.literal();
+        int index = literal.lastIndexOf('.');
+        String owner = literal.substring(0, index);
+        String name = literal.substring(index + 1);
+        visitor.visitMethodInsn(opcode, owner, name, descriptor.literal(), itf);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(ASTIdentifier name, ASTIdentifier descriptor, ASTElement bsm, ASTArray bsmArgs) {
+        Handle handle;
+        if (bsm instanceof ASTIdentifier identifier) {
+            handle = Handle.HANDLE_SHORTCUTS.get(identifier.content());
+        } else if (bsm instanceof ASTArray array) {
+            handle = Handle.from(array);
+        } else {
+            throw new IllegalStateException("Unexpected value: " + bsm);
+        }
+
+        visitor.visitInvokeDynamicInsn(
+                name.literal(), descriptor.literal(), AsmConstantMapper.methodHandleFromHandle(handle),
+                bsmArgs.values().stream().filter(Objects::nonNull).map(AsmConstantMapper::fromConstant).toArray()
+        );
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(ASTIdentifier descriptor, ASTNumber numDimensions) {
+        visitor.visitMultiANewArrayInsn(descriptor.literal(), numDimensions.asInt());
+    }
+
+    @Override
+    public void visitLabel(@NotNull ASTIdentifier label) {
+        visitor.visitLabel(getOrCreateLabel(label.content()));
+    }
+
+    @Override
+    public void visitLineNumber(ASTNumber line) {
+        Label label = new Label();
+        visitor.visitLabel(label);
+        visitor.visitLineNumber(line.asInt(), label);
+    }
+
+    @Override
+    public void visitEnd() {
+        Label end = new Label();
+        visitor.visitLabel(end);
+        for (Parameter parameter : parameters)
+            visitor.visitLocalVariable(parameter.name(), parameter.descriptor(), null, begin, end, parameter.index());
+        for (int slot = parameterSlots; slot < localNames.size(); slot++) {
+            String name = localNames.get(slot);
+            if (name != null)
+                visitor.visitLocalVariable(name, localTypes.get(slot), null, begin, end, slot);
+        }
+
+        // Sizes and frames are computed by the class writer
+        visitor.visitMaxs(0, 0);
+    }
+
+    private record Parameter(int index, String name, String descriptor) {
+    }
+}
@@ -0,0 +1,39 @@
+package me.darknet.assembler.compile.visitor;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.util.AsmConstantMapper;
+import me.darknet.assembler.visitor.ASTFieldVisitor;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+
+public class AsmFieldVisitor extends AsmMemberVisitor implements ASTFieldVisitor {
+    private final ClassVisitor visitor;
+    private final int accessFlags;
+    private final String name;
+    private final String descriptor;
+    private Object value;
+
+    public AsmFieldVisitor(ClassVisitor visitor, int accessFlags, String name, String descriptor) {
+        this.visitor = visitor;
+        this.accessFlags = accessFlags;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    @Override
+    public void visitValue(ASTElement value) {
+        if (value == null)
+            return;
+        this.value = AsmConstantMapper.fromConstant(value);
+    }
+
+    @Override
+    public void visitEnd() {
+        FieldVisitor field = visitor.visitField(accessFlags, name, descriptor, signature, value);
+        if (field == null)
+            return;
+        acceptAnnotations(field::visitAnnotation);
+        field.visitEnd();
+    }
+}
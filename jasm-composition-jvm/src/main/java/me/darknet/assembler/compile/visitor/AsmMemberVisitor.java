@@ -0,0 +1,52 @@
+package me.darknet.assembler.compile.visitor;
+
+import me.darknet.assembler.ast.primitive.ASTIdentifier;
+import me.darknet.assembler.ast.primitive.ASTString;
+import me.darknet.assembler.visitor.ASTAnnotationVisitor;
+import me.darknet.assembler.visitor.ASTDeclarationVisitor;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Base of the declarations written by the ASM backend. Annotations and the signature are held back until the
+ * declaration itself can be written, see {@link AsmAnnotationVisitor}.
+ */
+public class AsmMemberVisitor implements ASTDeclarationVisitor {
+    private final List<Annotation> annotations = new ArrayList<>();
+    protected String signature;
+
+    @Override
+    public ASTAnnotationVisitor visitAnnotation(ASTIdentifier classType) {
+        AsmAnnotationVisitor values = new AsmAnnotationVisitor();
+        annotations.add(new Annotation(Type.getObjectType(classType.literal()).getDescriptor(), values));
+        return values;
+    }
+
+    @Override
+    public void visitSignature(@Nullable ASTString signature) {
+        this.signature = signature == null ? null : signature.content();
+    }
+
+    @Override
+    public void visitEnd() {
+    }
+
+    /**
+     * @param visitor
+     *                Function to create the visitor of an annotation from its descriptor and visibility, such as
+     *                {@link org.objectweb.asm.ClassVisitor#visitAnnotation(String, boolean)}.
+     */
+    protected void acceptAnnotations(BiFunction<String, Boolean, AnnotationVisitor> visitor) {
+        for (Annotation annotation : annotations)
+            annotation.values().accept(visitor.apply(annotation.descriptor(), true));
+    }
+
+    private record Annotation(String descriptor, AsmAnnotationVisitor values) {
+    }
+}
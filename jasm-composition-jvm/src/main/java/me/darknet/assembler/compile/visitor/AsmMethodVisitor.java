@@ -0,0 +1,59 @@
+package me.darknet.assembler.compile.visitor;
+
+import me.darknet.assembler.ast.primitive.ASTIdentifier;
+import me.darknet.assembler.error.ErrorCollector;
+import me.darknet.assembler.visitor.ASTJvmInstructionVisitor;
+import me.darknet.assembler.visitor.ASTMethodVisitor;
+
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AsmMethodVisitor extends AsmMemberVisitor implements ASTMethodVisitor {
+    private final ClassVisitor visitor;
+    private final String owner;
+    private final int accessFlags;
+    private final String name;
+    private final String descriptor;
+    private final List<String> parameterNames = new ArrayList<>();
+    private MethodVisitor method;
+
+    public AsmMethodVisitor(ClassVisitor visitor, String owner, int accessFlags, String name, String descriptor) {
+        this.visitor = visitor;
+        this.owner = owner;
+        this.accessFlags = accessFlags;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    @Override
+    public void visitParameter(int index, ASTIdentifier name) {
+        parameterNames.add(name.literal());
+    }
+
+    @Override
+    public ASTJvmInstructionVisitor visitJvmCode(@NotNull ErrorCollector collector) {
+        boolean isStatic = (accessFlags & Opcodes.ACC_STATIC) == Opcodes.ACC_STATIC;
+        return new AsmCodeVisitor(method(), owner, descriptor, isStatic, parameterNames);
+    }
+
+    @Override
+    public void visitEnd() {
+        method().visitEnd();
+    }
+
+    /**
+     * @return Visitor of the method, created once the signature is known.
+     */
+    private MethodVisitor method() {
+        if (method == null) {
+            method = visitor.visitMethod(accessFlags, name, descriptor, signature, null);
+            acceptAnnotations(method::visitAnnotation);
+        }
+        return method;
+    }
+}
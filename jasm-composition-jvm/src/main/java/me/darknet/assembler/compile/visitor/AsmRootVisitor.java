@@ -0,0 +1,42 @@
+package me.darknet.assembler.compile.visitor;
+
+import me.darknet.assembler.ast.primitive.ASTIdentifier;
+import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.util.BlwModifiers;
+import me.darknet.assembler.visitor.*;
+
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * Backend writing a class declaration straight to an ASM {@link ClassVisitor}, used by the compiler when
+ * {@link JvmCompilerOptions#analysis(boolean) analysis} is disabled. Unlike {@link BlwRootVisitor} no class model is
+ * built in between, so there is nothing to add members or annotations outside a class declaration to.
+ *
+ * @param visitor
+ *                Visitor to write the class to.
+ * @param options
+ *                Compiler option to pull values from.
+ */
+public record AsmRootVisitor(ClassVisitor visitor, JvmCompilerOptions options) implements ASTRootVisitor {
+
+    @Override
+    public ASTAnnotationVisitor visitAnnotation(ASTIdentifier name) {
+        return null;
+    }
+
+    @Override
+    public ASTClassVisitor visitClass(Modifiers modifiers, ASTIdentifier name) {
+        int accessFlags = BlwModifiers.getClassModifiers(modifiers);
+        return new AsmClassVisitor(visitor, options.version(), accessFlags, name.literal());
+    }
+
+    @Override
+    public ASTFieldVisitor visitField(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
+        return null;
+    }
+
+    @Override
+    public ASTMethodVisitor visitMethod(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
+        return null;
+    }
+}
@@ -3,6 +3,7 @@
 import me.darknet.assembler.ast.primitive.ASTIdentifier;
 import me.darknet.assembler.ast.primitive.ASTString;
 import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.compile.TypeCache;
 import me.darknet.assembler.compile.builder.BlwReplaceClassBuilder;
 import me.darknet.assembler.util.BlwModifiers;
 import me.darknet.assembler.util.CastUtil;
@@ -12,30 +13,34 @@
 import dev.xdark.blw.classfile.attribute.generic.GenericInnerClass;
 import dev.xdark.blw.type.InstanceType;
 import dev.xdark.blw.type.MethodType;
-import dev.xdark.blw.type.TypeReader;
-import dev.xdark.blw.type.Types;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class BlwClassVisitor implements ASTClassVisitor {
     private final BlwReplaceClassBuilder builder;
     private final JvmCompilerOptions options;
+    private final TypeCache types;
 
     public BlwClassVisitor(JvmCompilerOptions options, BlwReplaceClassBuilder builder) {
+        this(options, builder, new TypeCache());
+    }
+
+    public BlwClassVisitor(JvmCompilerOptions options, BlwReplaceClassBuilder builder, @NotNull TypeCache types) {
         this.options = options;
         this.builder = builder;
+        this.types = types;
     }
 
     @Override
     public void visitSuperClass(@Nullable ASTIdentifier superClass) {
         if (superClass == null)
             return;
-        builder.setSuperClass(Types.instanceTypeFromInternalName(superClass.literal()));
+        builder.setSuperClass(types.instanceType(superClass.literal()));
     }
 
     @Override
     public void visitInterface(@NotNull ASTIdentifier interfaceName) {
-        builder.addInterface(Types.instanceTypeFromInternalName(interfaceName.literal()));
+        builder.addInterface(types.instanceType(interfaceName.literal()));
     }
 
     @Override
@@ -47,8 +52,8 @@ public void visitSourceFile(@Nullable ASTString sourceFile) {
     public void visitInnerClass(Modifiers modifiers, @Nullable ASTIdentifier name, @Nullable ASTIdentifier outerClass,
             ASTIdentifier innerClass) {
         int accessFlags = BlwModifiers.getClassModifiers(modifiers);
-        InstanceType type = innerClass == null ? null : Types.instanceTypeFromInternalName(innerClass.literal());
-        InstanceType outerType = outerClass == null ? null : Types.instanceTypeFromInternalName(outerClass.literal());
+        InstanceType type = innerClass == null ? null : types.instanceType(innerClass.literal());
+        InstanceType outerType = outerClass == null ? null : types.instanceType(outerClass.literal());
         String innerName = name == null ? null : name.literal();
         builder.addInnerClass(new GenericInnerClass(accessFlags, type, outerType, innerName));
     }
@@ -57,25 +62,25 @@ public void visitInnerClass(Modifiers modifiers, @Nullable ASTIdentifier name, @
     public ASTFieldVisitor visitField(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
         int accessFlags = BlwModifiers.getFieldModifiers(modifiers);
         return new BlwFieldVisitor(
-                builder.putField(accessFlags, name.literal(), new TypeReader(descriptor.literal()).requireClassType())
-                        .child()
+                builder.putField(accessFlags, name.literal(), types.classType(descriptor.literal())).child()
         );
     }
 
     @Override
     public ASTMethodVisitor visitMethod(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
         int accessFlags = BlwModifiers.getMethodModifiers(modifiers);
-        MethodType type = Types.methodType(descriptor.literal());
+        MethodType type = types.methodType(descriptor.literal());
         return new BlwMethodVisitor(
-                options, builder.type(), type, (accessFlags & AccessFlag.ACC_STATIC) == AccessFlag.ACC_STATIC,
+                options, builder.type(), name.literal(), type,
+                (accessFlags & AccessFlag.ACC_STATIC) == AccessFlag.ACC_STATIC,
                 CastUtil.cast(builder.putMethod(accessFlags, name.literal(), type).child()),
-                analysisResults -> builder.setMethodAnalysis(name.literal(), type, analysisResults)
+                analysisResults -> builder.setMethodAnalysis(name.literal(), type, analysisResults), types
         );
     }
 
     @Override
     public ASTAnnotationVisitor visitAnnotation(ASTIdentifier classType) {
-        InstanceType type = Types.instanceTypeFromInternalName(classType.literal());
+        InstanceType type = types.instanceType(classType.literal());
         return new BlwAnnotationVisitor(builder.addVisibleRuntimeAnnotation(type).child());
     }
 
@@ -3,15 +3,28 @@
 import me.darknet.assembler.ast.ASTElement;
 import me.darknet.assembler.ast.primitive.*;
 import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.compile.TypeCache;
 import me.darknet.assembler.compile.analysis.AnalysisException;
 import me.darknet.assembler.compile.analysis.AnalysisResults;
+import me.darknet.assembler.compile.analysis.BasicMethodValueLookup;
 import me.darknet.assembler.compile.analysis.Local;
+import me.darknet.assembler.compile.analysis.VariableNameLookup;
 import me.darknet.assembler.compile.analysis.frame.Frame;
 import me.darknet.assembler.compile.analysis.jvm.AnalysisSimulation;
 import me.darknet.assembler.compile.analysis.jvm.JvmAnalysisEngine;
+import me.darknet.assembler.compile.analysis.jvm.Liveness;
+import me.darknet.assembler.compile.analysis.jvm.ValuedJvmAnalysisEngine;
+import me.darknet.assembler.compile.optimize.ConstantFolder;
+import me.darknet.assembler.compile.optimize.LocalAllocator;
+import me.darknet.assembler.compile.optimize.OptimizationLevel;
+import me.darknet.assembler.compile.optimize.PeepholeOptimizer;
+import me.darknet.assembler.compiler.CompilationCounter;
+import me.darknet.assembler.compiler.CompilationListener;
+import me.darknet.assembler.compiler.CompilationPhase;
 import me.darknet.assembler.compiler.InheritanceChecker;
 import me.darknet.assembler.error.ErrorCollector;
 import me.darknet.assembler.helper.Handle;
+import me.darknet.assembler.instructions.Instructions;
 import me.darknet.assembler.util.BlwOpcodes;
 import me.darknet.assembler.util.ConstantMapper;
 import me.darknet.assembler.util.Location;
@@ -27,6 +40,7 @@
 import dev.xdark.blw.constant.OfLong;
 import dev.xdark.blw.type.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -42,10 +56,28 @@ public class BlwCodeVisitor implements ASTJvmInstructionVisitor, JavaOpcodes {
      * detail later. See {@link #visitEnd()}
      */
     private final List<String> localNames = new ArrayList<>();
+    // AST instruction of each code element, null for the labels of line directives
     private final List<ASTInstruction> visitedInstructions = new ArrayList<>();
     private final JvmAnalysisEngine<Frame> analysisEngine;
+    private final CompilationListener listener;
+    private final AnalysisSimulation.Budget analysisBudget;
+    private final boolean pruneKnownBranches;
+    private final OptimizationLevel optimization;
+    // engine of the analysis finding the values to fold, null when constants are not folded
+    private final JvmAnalysisEngine<Frame> foldingEngine;
+    private final boolean compactLocals;
+    // instructions from before variables were moved to other slots, by the instructions replacing them
+    private final Map<CodeElement, CodeElement> unallocatedElements = new IdentityHashMap<>();
+    // code is collected here rather than in the builder when it is optimized before being built
+    private final List<CodeElement> pendingElements;
+    private final List<TryCatchBlock> tryCatchBlocks = new ArrayList<>();
+    private final TypeCache types;
+    private final String subject;
     private ASTInstruction last;
     private int opcode = 0;
+    private boolean itf;
+    // slot each variable was moved to, null when no variable moved
+    private int[] allocatedSlots;
 
     /**
      * @param options
@@ -57,13 +89,61 @@ public class BlwCodeVisitor implements ASTJvmInstructionVisitor, JavaOpcodes {
      * @param parameters
      *                   Parameter variables.
      */
-    @SuppressWarnings("unchecked")
     public BlwCodeVisitor(JvmCompilerOptions options, ErrorCollector errorCollector, CodeBuilder<?> builder, List<Local> parameters) {
+        this(options, errorCollector, builder, parameters, null);
+    }
+
+    /**
+     * @param options
+     *                   Compiler option to pull values from.
+     * @param errorCollector
+     *                   Collector for error reporting.
+     * @param builder
+     *                   Builder to insert code into.
+     * @param parameters
+     *                   Parameter variables.
+     * @param subject
+     *                   Method reported to the {@link CompilationListener} of the options, in the form of
+     *                   {@code owner.name descriptor}.
+     */
+    public BlwCodeVisitor(JvmCompilerOptions options, ErrorCollector errorCollector, CodeBuilder<?> builder,
+            List<Local> parameters, @Nullable String subject) {
+        this(options, errorCollector, builder, parameters, subject, new TypeCache());
+    }
+
+    /**
+     * @param options
+     *                   Compiler option to pull values from.
+     * @param errorCollector
+     *                   Collector for error reporting.
+     * @param builder
+     *                   Builder to insert code into.
+     * @param parameters
+     *                   Parameter variables.
+     * @param subject
+     *                   Method reported to the {@link CompilationListener} of the options, in the form of
+     *                   {@code owner.name descriptor}.
+     * @param types
+     *                   Cache to look up the types of instruction operands in.
+     */
+    @SuppressWarnings("unchecked")
+    public BlwCodeVisitor(JvmCompilerOptions options, ErrorCollector errorCollector, CodeBuilder<?> builder,
+            List<Local> parameters, @Nullable String subject, @NotNull TypeCache types) {
         this.codeBuilder = builder;
+        this.types = types;
+        this.listener = options.listener();
+        this.analysisBudget = options.analysisBudget();
+        this.pruneKnownBranches = options.pruneKnownBranches();
+        this.optimization = options.optimization();
+        this.subject = subject;
         this.codeBuilderList = builder.codeList().child();
         this.checker = options.inheritanceChecker();
         this.errorCollector = errorCollector;
-        this.analysisEngine = (JvmAnalysisEngine<Frame>) options.createEngine(this::getLocalName);
+        this.analysisEngine = (JvmAnalysisEngine<Frame>) options.createEngine(new AllocatedNameLookup());
+        this.foldingEngine = options.foldConstants() ? (JvmAnalysisEngine<Frame>) foldingEngine(options) : null;
+        this.compactLocals = options.compactLocals();
+        this.pendingElements = optimization == OptimizationLevel.NONE && foldingEngine == null && !compactLocals
+                ? null : new ArrayList<>();
         this.parameters = parameters;
 
         // Populate variables from params.
@@ -91,6 +171,26 @@ private String getLocalName(int index) {
         return localNames.get(index);
     }
 
+    /**
+     * Names variables by the slots they had before {@link #allocateLocals() allocation}, so that variables sharing a
+     * slot keep their own names in the analysis frames.
+     */
+    private class AllocatedNameLookup implements VariableNameLookup {
+        @NotNull
+        @Override
+        public String getVarName(int index) {
+            return getLocalName(index);
+        }
+
+        @NotNull
+        @Override
+        public String getVarName(@NotNull Instruction instruction, int index) {
+            if (unallocatedElements.get(instruction) instanceof VarInstruction unallocated)
+                return getLocalName(unallocated.variableIndex());
+            return getLocalName(index);
+        }
+    }
+
     /**
      * @param name
      *             Name of variable.
@@ -140,7 +240,16 @@ public void visitInstruction(@NotNull ASTInstruction instruction) {
         last = instruction;
         if (instruction instanceof ASTLabel)
             return;
-        opcode = BlwOpcodes.opcode(instruction.identifier().content());
+        int id = instruction.opcode();
+        if (id == Instructions.UNKNOWN) {
+            // not resolved by the processor, fall back to the mnemonic
+            String name = instruction.identifier().content();
+            opcode = BlwOpcodes.opcode(name);
+            itf = name.endsWith("interface");
+        } else {
+            opcode = BlwOpcodes.opcode(id);
+            itf = BlwOpcodes.isInterface(id);
+        }
         visitedInstructions.add(instruction);
     }
 
@@ -151,49 +260,35 @@ public void visitException(@NotNull ASTIdentifier start, @NotNull ASTIdentifier
         GenericLabel handlerLabel = nameToLabel.get(handler.content());
 
         String typeName = type.literal();
-        InstanceType exceptionType = typeName.equals("*") ? null : Types.instanceTypeFromDescriptor(typeName);
-        codeBuilder.tryCatchBlock(new TryCatchBlock(startLabel, endLabel, handlerLabel, exceptionType));
+        InstanceType exceptionType = typeName.equals("*") ? null : types.instanceTypeFromDescriptor(typeName);
+        TryCatchBlock block = new TryCatchBlock(startLabel, endLabel, handlerLabel, exceptionType);
+        tryCatchBlocks.add(block);
+        codeBuilder.tryCatchBlock(block);
     }
 
     @Override
     public void visitInsn() {
-        String content = last.identifier().content();
-        Instruction instruction = switch (content) {
-            case "iconst_m1" -> new ConstantInstruction.Int(new OfInt(-1));
-            case "iconst_0", "iconst_1", "iconst_2", "iconst_3", "iconst_4", "iconst_5", "lconst_0", "lconst_1", "fconst_0", "fconst_1", "fconst_2", "dconst_0", "dconst_1" -> {
-                int value = content.charAt(content.length() - 1) - '0';
-                yield switch (content.charAt(0)) {
-                    case 'i' -> new ConstantInstruction.Int(new OfInt(value));
-                    case 'l' -> new ConstantInstruction.Long(new OfLong(value));
-                    case 'f' -> new ConstantInstruction.Float(new OfFloat(value));
-                    case 'd' -> new ConstantInstruction.Double(new OfDouble(value));
-                    default -> throw new IllegalStateException("Unexpected value: " + content.charAt(0));
-                };
-            }
-            case "i2l", "i2f", "i2d", "l2i", "l2f", "l2d", "f2i", "f2l", "f2d", "d2i", "d2l", "d2f", "i2b", "i2c", "i2s" -> {
-                char fromChar = content.charAt(0);
-                PrimitiveType from = switch (fromChar) {
-                    case 'i' -> Types.INT;
-                    case 'l' -> Types.LONG;
-                    case 'f' -> Types.FLOAT;
-                    case 'd' -> Types.DOUBLE;
-                    default -> throw new IllegalStateException(
-                            "Unknown from type for primitive conversion: " + fromChar
-                    );
-                };
-                char toChar = content.charAt(2);
-                PrimitiveType to = switch (toChar) {
-                    case 'i' -> Types.INT;
-                    case 'l' -> Types.LONG;
-                    case 'f' -> Types.FLOAT;
-                    case 'd' -> Types.DOUBLE;
-                    case 'c' -> Types.CHAR;
-                    case 's' -> Types.SHORT;
-                    case 'b' -> Types.BYTE;
-                    default -> throw new IllegalStateException("Unknown to type for primitive conversion: " + toChar);
-                };
-                yield new PrimitiveConversionInstruction(from, to);
-            }
+        Instruction instruction = switch (opcode) {
+            case ICONST_M1, ICONST_0, ICONST_1, ICONST_2, ICONST_3, ICONST_4, ICONST_5 ->
+                    new ConstantInstruction.Int(new OfInt(opcode - ICONST_0));
+            case LCONST_0, LCONST_1 -> new ConstantInstruction.Long(new OfLong(opcode - LCONST_0));
+            case FCONST_0, FCONST_1, FCONST_2 -> new ConstantInstruction.Float(new OfFloat(opcode - FCONST_0));
+            case DCONST_0, DCONST_1 -> new ConstantInstruction.Double(new OfDouble(opcode - DCONST_0));
+            case I2L -> new PrimitiveConversionInstruction(Types.INT, Types.LONG);
+            case I2F -> new PrimitiveConversionInstruction(Types.INT, Types.FLOAT);
+            case I2D -> new PrimitiveConversionInstruction(Types.INT, Types.DOUBLE);
+            case L2I -> new PrimitiveConversionInstruction(Types.LONG, Types.INT);
+            case L2F -> new PrimitiveConversionInstruction(Types.LONG, Types.FLOAT);
+            case L2D -> new PrimitiveConversionInstruction(Types.LONG, Types.DOUBLE);
+            case F2I -> new PrimitiveConversionInstruction(Types.FLOAT, Types.INT);
+            case F2L -> new PrimitiveConversionInstruction(Types.FLOAT, Types.LONG);
+            case F2D -> new PrimitiveConversionInstruction(Types.FLOAT, Types.DOUBLE);
+            case D2I -> new PrimitiveConversionInstruction(Types.DOUBLE, Types.INT);
+            case D2L -> new PrimitiveConversionInstruction(Types.DOUBLE, Types.LONG);
+            case D2F -> new PrimitiveConversionInstruction(Types.DOUBLE, Types.FLOAT);
+            case I2B -> new PrimitiveConversionInstruction(Types.INT, Types.BYTE);
+            case I2C -> new PrimitiveConversionInstruction(Types.INT, Types.CHAR);
+            case I2S -> new PrimitiveConversionInstruction(Types.INT, Types.SHORT);
             default -> new SimpleInstruction(opcode);
         };
         add(instruction);
@@ -249,14 +344,13 @@ public void visitJumpInsn(ASTIdentifier label) {
     @Override
     public void visitTypeInsn(ASTIdentifier type) {
         if (opcode == NEW) {
-            add(new AllocateInstruction(Types.instanceTypeFromInternalName(type.literal())));
+            add(new AllocateInstruction(types.instanceType(type.literal())));
         } else if (opcode == ANEWARRAY) {
-            InstanceType elementType = Types.instanceTypeFromDescriptor(type.literal());
+            InstanceType elementType = types.instanceTypeFromDescriptor(type.literal());
             ArrayType arrayType = Types.arrayType(elementType);
             add(new AllocateInstruction(arrayType));
         } else {
-            TypeReader reader = new TypeReader(type.literal());
-            ObjectType objectType = Objects.requireNonNullElse((ObjectType) reader.read(), Types.OBJECT);
+            ObjectType objectType = Objects.requireNonNullElse((ObjectType) types.readType(type.literal()), Types.OBJECT);
             Instruction instruction = switch (opcode) {
                 case CHECKCAST -> new CheckCastInstruction(objectType);
                 case INSTANCEOF -> new InstanceofInstruction(objectType);
@@ -309,20 +403,19 @@ public void visitFieldInsn(ASTIdentifier path, ASTIdentifier descriptor) {
         int index = literal.lastIndexOf('.');
         String owner = literal.substring(0, index);
         String name = literal.substring(index + 1);
-        InstanceType objectType = Types.instanceTypeFromInternalName(owner);
-        ClassType type = new TypeReader(descriptor.literal()).requireClassType();
+        InstanceType objectType = types.instanceType(owner);
+        ClassType type = types.classType(descriptor.literal());
         add(new FieldInstruction(opcode, objectType, name, type));
     }
 
     @Override
     public void visitMethodInsn(ASTIdentifier path, ASTIdentifier descriptor) {
-        boolean itf = last.identifier().content().endsWith("interface");
         String literal = path.literal();
         int index = literal.lastIndexOf('.');
         String owner = literal.substring(0, index);
         String name = literal.substring(index + 1);
-        InstanceType objectType = Types.instanceTypeFromInternalName(owner);
-        MethodType type = Types.methodType(descriptor.literal());
+        InstanceType objectType = types.instanceType(owner);
+        MethodType type = types.methodType(descriptor.literal());
         add(new MethodInstruction(opcode, objectType, name, type, itf));
     }
 
@@ -351,24 +444,28 @@ public void visitInvokeDynamicInsn(ASTIdentifier name, ASTIdentifier descriptor,
 
     @Override
     public void visitMultiANewArrayInsn(ASTIdentifier descriptor, ASTNumber numDimensions) {
-        add(new AllocateInstruction(Types.arrayTypeFromDescriptor(descriptor.literal())));
+        add(new AllocateInstruction(types.arrayType(descriptor.literal())));
     }
 
     @Override
     public void visitLabel(@NotNull ASTIdentifier label) {
         visitedInstructions.add((ASTInstruction) label.parent());
-        codeBuilderList.addLabel(getOrCreateLabel(label.content()));
+        addLabel(getOrCreateLabel(label.content()));
     }
 
     @Override
     public void visitLineNumber(ASTNumber line) {
         Label label = new GenericLabel();
         label.setLineNumber(line.asInt());
-        codeBuilderList.addLabel(label);
+        // line directives are not visited as instructions, their labels have no origin to line up with
+        visitedInstructions.add(null);
+        addLabel(label);
     }
 
     @Override
     public void visitEnd() {
+        if (pendingElements != null)
+            optimize();
         correlateAstAndCodeElements();
 
         Label begin, end;
@@ -397,12 +494,18 @@ public void visitEnd() {
         }
 
         // Analyze stack for local variable information.
-        AnalysisSimulation simulation = new AnalysisSimulation(analysisEngine.newFrameOps());
+        AnalysisSimulation simulation = new AnalysisSimulation(
+                analysisEngine.newFrameOps(), analysisBudget, pruneKnownBranches
+        );
         Code code = codeBuilder.build();
+        Liveness liveness = Liveness.compute(code.elements(), code.tryCatchBlocks());
+        listener.onPhaseStart(CompilationPhase.ANALYSIS, subject);
         try {
             simulation.execute(
                     analysisEngine,
-                    new AnalysisSimulation.Info(checker, parameters, code.elements(), code.tryCatchBlocks())
+                    new AnalysisSimulation.Info(
+                            checker, parameters, code.elements(), code.tryCatchBlocks(), liveness
+                    )
             );
         } catch (AnalysisException ex) {
             analysisEngine.setAnalysisFailure(ex);
@@ -412,17 +515,107 @@ public void visitEnd() {
                 errorCollector.addError(ex.getMessage(), problemAst.location());
             else
                 errorCollector.addError(ex.getMessage(), Location.UNKNOWN);
+        } finally {
+            listener.onCount(CompilationPhase.ANALYSIS, CompilationCounter.INSTRUCTIONS, code.elements().size());
+            listener.onCount(CompilationPhase.ANALYSIS, CompilationCounter.FRAMES, analysisEngine.frames().size());
+            listener.onPhaseEnd(CompilationPhase.ANALYSIS, subject);
+        }
+
+        if (allocatedSlots == null) {
+            populateLocalVariables(code.elements(), liveness, begin, end);
+        } else {
+            // Variables are told apart by the slots they had before they were moved
+            List<CodeElement> unallocated = new ArrayList<>(code.elements());
+            unallocated.replaceAll(element -> unallocatedElements.getOrDefault(element, element));
+            populateLocalVariables(unallocated, Liveness.compute(unallocated, code.tryCatchBlocks()), begin, end);
         }
+    }
 
-        // Populate variables
+    /**
+     * Adds a variable table entry for every range of labels in which a variable is live or has just been written to.
+     * The ranges are bound by the labels already present in the code, since adding labels would shift the indices
+     * of the analysis frames. Types are taken from the analysis frames.
+     * <p>
+     * When variables were moved by {@link #allocateLocals()}, the elements and liveness are those of the code before
+     * the move, and entries are added for the slots the variables were moved to.
+     *
+     * @param elements
+     *                 Code elements of the method.
+     * @param liveness
+     *                 Live variables of the elements.
+     * @param begin
+     *                 Label at the start of the method.
+     * @param end
+     *                 Label at the end of the method.
+     */
+    private void populateLocalVariables(List<CodeElement> elements, Liveness liveness, Label begin, Label end) {
         int paramOffset = parameters.size();
-        analysisEngine.frames().values().stream().flatMap(Frame::locals).filter(local -> local.index() >= paramOffset)
-                .distinct().forEach(local -> {
-                    int index = local.index();
-                    ClassType type = local.type();
-                    String name = getLocalName(index);
-                    codeBuilder.localVariable(new GenericLocal(begin, end, index, name, type, null));
-                });
+        int slots = localNames.size();
+        Label[] starts = new Label[slots];
+        ClassType[] openTypes = new ClassType[slots];
+        ClassType[] regionTypes = new ClassType[slots];
+        ClassType[] lastTypes = new ClassType[slots];
+        BitSet present = new BitSet(slots);
+        Label regionStart = begin;
+        for (int i = 0; i < elements.size(); i++) {
+            CodeElement element = elements.get(i);
+            if (i > 0 && element instanceof Label label) {
+                closeRegion(regionStart, starts, openTypes, regionTypes);
+                regionStart = label;
+            }
+
+            // Variables are live while some path still reads them, and also right after a write which is never read.
+            present.clear();
+            present.or(liveness.liveIn(i));
+            if (i > 0 && elements.get(i - 1) instanceof VarInstruction vi && vi.opcode() >= ISTORE
+                    && vi.opcode() <= ASTORE)
+                present.set(vi.variableIndex());
+            Frame frame = analysisEngine.getFrame(i);
+            for (int slot = present.nextSetBit(paramOffset); slot >= 0 && slot < slots;
+                    slot = present.nextSetBit(slot + 1)) {
+                ClassType type = frame == null ? null : frame.getLocalType(allocatedSlot(slot));
+                if (type == null || type == Types.VOID)
+                    type = lastTypes[slot]; // unreachable code, or only assigned on some paths
+                if (type == null)
+                    continue;
+                lastTypes[slot] = type;
+                if (regionTypes[slot] == null)
+                    regionTypes[slot] = type;
+            }
+        }
+
+        // The last element is the end label, so every region has been closed and only open ranges remain
+        for (int slot = paramOffset; slot < slots; slot++) {
+            if (starts[slot] != null)
+                addLocalVariable(slot, starts[slot], end, openTypes[slot]);
+        }
+    }
+
+    private void closeRegion(Label regionStart, Label[] starts, ClassType[] openTypes, ClassType[] regionTypes) {
+        for (int slot = 0; slot < starts.length; slot++) {
+            ClassType type = regionTypes[slot];
+            regionTypes[slot] = null;
+            if (starts[slot] != null && !Objects.equals(openTypes[slot], type)) {
+                addLocalVariable(slot, starts[slot], regionStart, openTypes[slot]);
+                starts[slot] = null;
+            }
+            if (starts[slot] == null && type != null) {
+                starts[slot] = regionStart;
+                openTypes[slot] = type;
+            }
+        }
+    }
+
+    private void addLocalVariable(int index, Label start, Label end, ClassType type) {
+        String name = getLocalName(index);
+        if (name != null)
+            codeBuilder.localVariable(new GenericLocal(start, end, allocatedSlot(index), name, type, null));
+    }
+
+    private int allocatedSlot(int slot) {
+        if (allocatedSlots == null || slot >= allocatedSlots.length)
+            return slot;
+        return allocatedSlots[slot];
     }
 
     private void correlateAstAndCodeElements() {
@@ -430,12 +623,101 @@ private void correlateAstAndCodeElements() {
         List<CodeElement> elements = codeBuilderList.getElements();
         for (int i = 0; i < instructions.size(); i++) {
             ASTInstruction instruction = instructions.get(i);
-            CodeElement element = elements.get(i);
-            analysisEngine.recordInstructionMapping(instruction, element);
+            if (instruction != null)
+                analysisEngine.recordInstructionMapping(instruction, elements.get(i));
+        }
+    }
+
+    /**
+     * @param options
+     *                Compiler option to pull values from.
+     *
+     * @return Engine to find the values to fold with. The configured engine when it tracks values, otherwise a
+     *         {@link ValuedJvmAnalysisEngine} with the {@link BasicMethodValueLookup built-in method lookups}.
+     */
+    private JvmAnalysisEngine<?> foldingEngine(JvmCompilerOptions options) {
+        JvmAnalysisEngine<?> engine = options.createEngine(this::getLocalName);
+        if (engine instanceof ValuedJvmAnalysisEngine)
+            return engine;
+        ValuedJvmAnalysisEngine valued = new ValuedJvmAnalysisEngine(this::getLocalName);
+        valued.setChecker(checker);
+        valued.setMethodValueLookup(new BasicMethodValueLookup());
+        return valued;
+    }
+
+    /**
+     * Optimizes the collected code and adds it to the builder. The AST instructions are rewritten along with the code,
+     * so that they still line up with the code elements when they are correlated.
+     */
+    private void optimize() {
+        // Instructions which failed to assemble add no code, leaving the AST and code out of line
+        if (pendingElements.size() == visitedInstructions.size()) {
+            if (foldingEngine != null)
+                foldConstants();
+            PeepholeOptimizer.optimize(pendingElements, visitedInstructions, tryCatchBlocks, optimization);
+        }
+        if (compactLocals)
+            allocateLocals();
+        for (CodeElement element : pendingElements) {
+            if (element instanceof Label label)
+                codeBuilderList.addLabel(label);
+            else
+                codeBuilderList.addInstruction((Instruction) element);
+        }
+        pendingElements.clear();
+    }
+
+    /**
+     * Analyzes the collected code on its own, and folds the computations the analysis found the result of. The
+     * analysis of the method in {@link #visitEnd()} then runs on the folded code.
+     */
+    private void foldConstants() {
+        AnalysisSimulation simulation = new AnalysisSimulation(
+                foldingEngine.newFrameOps(), analysisBudget, pruneKnownBranches
+        );
+        try {
+            simulation.execute(
+                    foldingEngine,
+                    new AnalysisSimulation.Info(checker, parameters, pendingElements, tryCatchBlocks)
+            );
+        } catch (AnalysisException ex) {
+            // Reported by the analysis of the method, values of a failed analysis can't be trusted
+            return;
+        }
+        if (!foldingEngine.isComplete() || foldingEngine.getAnalysisFailure() != null)
+            return;
+        ConstantFolder.fold(pendingElements, visitedInstructions, foldingEngine.frames());
+    }
+
+    /**
+     * Moves variables which are never live at the same time into shared slots. The instructions from before the move
+     * are kept, so the variable table can still tell the variables sharing a slot apart.
+     */
+    private void allocateLocals() {
+        int[] slots = LocalAllocator.allocate(pendingElements, tryCatchBlocks, parameters.size());
+        if (slots == null)
+            return;
+        List<CodeElement> unallocated = new ArrayList<>(pendingElements);
+        LocalAllocator.apply(pendingElements, slots);
+        for (int i = 0; i < unallocated.size(); i++) {
+            CodeElement element = pendingElements.get(i);
+            if (element != unallocated.get(i))
+                unallocatedElements.put(element, unallocated.get(i));
         }
+        allocatedSlots = slots;
     }
 
     private void add(Instruction instruction) {
-        codeBuilderList.addInstruction(instruction);
+        if (pendingElements != null)
+            pendingElements.add(instruction);
+        else
+            codeBuilderList.addInstruction(instruction);
+    }
+
+    private void addLabel(Label label) {
+        if (pendingElements != null)
+            pendingElements.add(label);
+        else
+            codeBuilderList.addLabel(label);
     }
 }
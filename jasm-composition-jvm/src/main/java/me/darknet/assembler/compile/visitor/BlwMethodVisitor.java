@@ -2,9 +2,11 @@
 
 import me.darknet.assembler.ast.primitive.ASTIdentifier;
 import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.compile.TypeCache;
 import me.darknet.assembler.compile.analysis.AnalysisResults;
 import me.darknet.assembler.compile.analysis.Local;
 import me.darknet.assembler.compile.builder.BlwReplaceMethodBuilder;
+import me.darknet.assembler.compiler.CompilationListener;
 import me.darknet.assembler.error.ErrorCollector;
 import me.darknet.assembler.util.CastUtil;
 import me.darknet.assembler.visitor.ASTJvmInstructionVisitor;
@@ -18,6 +20,7 @@
 import dev.xdark.blw.type.ObjectType;
 import dev.xdark.blw.type.Types;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,14 +34,24 @@ public class BlwMethodVisitor extends BlwMemberVisitor<MethodType, Method> imple
     private final List<Parameter> parameters = new ArrayList<>();
     private final MethodType type;
     private final ObjectType owner;
+    private final String name;
     private final boolean isStatic;
+    private final TypeCache types;
 
     public BlwMethodVisitor(JvmCompilerOptions options, ObjectType owner, MethodType type, boolean isStatic,
             BlwReplaceMethodBuilder builder, Consumer<AnalysisResults> analysisResultsConsumer) {
+        this(options, owner, null, type, isStatic, builder, analysisResultsConsumer, new TypeCache());
+    }
+
+    public BlwMethodVisitor(JvmCompilerOptions options, ObjectType owner, @Nullable String name, MethodType type,
+            boolean isStatic, BlwReplaceMethodBuilder builder, Consumer<AnalysisResults> analysisResultsConsumer,
+            @NotNull TypeCache types) {
         super(CastUtil.cast(builder));
         this.options = options;
+        this.types = types;
         this.type = type;
         this.owner = owner;
+        this.name = name;
         this.isStatic = isStatic;
         this.builder = builder;
         this.analysisResultsConsumer = analysisResultsConsumer;
@@ -76,7 +89,10 @@ public ASTJvmInstructionVisitor visitJvmCode(@NotNull ErrorCollector collector)
             }
         }
 
-        return new BlwCodeVisitor(options, collector, builder.code().child(), parameters) {
+        // Only named for listeners, so compilations without one don't pay for the string
+        String subject = options.listener() == CompilationListener.NONE ? null
+                : owner.internalName() + '.' + (name == null ? "<unknown>" : name) + type.descriptor();
+        return new BlwCodeVisitor(options, collector, builder.code().child(), parameters, subject, types) {
             @Override
             public void visitEnd() {
                 super.visitEnd();
@@ -2,6 +2,7 @@
 
 import me.darknet.assembler.ast.primitive.ASTIdentifier;
 import me.darknet.assembler.compile.JvmCompilerOptions;
+import me.darknet.assembler.compile.TypeCache;
 import me.darknet.assembler.compile.builder.BlwReplaceClassBuilder;
 import me.darknet.assembler.compile.builder.BlwReplaceFieldBuilder;
 import me.darknet.assembler.compile.builder.BlwReplaceMethodBuilder;
@@ -15,10 +16,13 @@
 import dev.xdark.blw.classfile.*;
 import dev.xdark.blw.type.InstanceType;
 import dev.xdark.blw.type.MethodType;
-import dev.xdark.blw.type.TypeReader;
-import dev.xdark.blw.type.Types;
 
-public record BlwRootVisitor(BlwReplaceClassBuilder builder, JvmCompilerOptions options) implements ASTRootVisitor {
+public record BlwRootVisitor(BlwReplaceClassBuilder builder, JvmCompilerOptions options, TypeCache types)
+        implements ASTRootVisitor {
+
+    public BlwRootVisitor(BlwReplaceClassBuilder builder, JvmCompilerOptions options) {
+        this(builder, options, new TypeCache());
+    }
 
     @Override
     public ASTAnnotationVisitor visitAnnotation(ASTIdentifier name) {
@@ -61,27 +65,27 @@ yield switch (target) {
     public ASTClassVisitor visitClass(Modifiers modifiers, ASTIdentifier name) {
         int accessFlags = BlwModifiers.getClassModifiers(modifiers);
         builder.accessFlags(accessFlags);
-        builder.type(Types.instanceTypeFromInternalName(name.literal()));
-        return new BlwClassVisitor(options, builder);
+        builder.type(types.instanceType(name.literal()));
+        return new BlwClassVisitor(options, builder, types);
     }
 
     @Override
     public ASTFieldVisitor visitField(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
         int accessFlags = BlwModifiers.getFieldModifiers(modifiers);
         return new BlwFieldVisitor(
-                builder.putField(accessFlags, name.literal(), new TypeReader(descriptor.literal()).requireClassType())
-                        .child()
+                builder.putField(accessFlags, name.literal(), types.classType(descriptor.literal())).child()
         );
     }
 
     @Override
     public ASTMethodVisitor visitMethod(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
         int accessFlags = BlwModifiers.getMethodModifiers(modifiers);
-        MethodType type = Types.methodType(descriptor.literal());
+        MethodType type = types.methodType(descriptor.literal());
         return new BlwMethodVisitor(
-                options, builder.type(), type, (accessFlags & AccessFlag.ACC_STATIC) == AccessFlag.ACC_STATIC,
+                options, builder.type(), name.literal(), type,
+                (accessFlags & AccessFlag.ACC_STATIC) == AccessFlag.ACC_STATIC,
                 CastUtil.cast(builder.putMethod(accessFlags, name.literal(), type).child()),
-                analysisResults -> builder.setMethodAnalysis(name.literal(), type, analysisResults)
+                analysisResults -> builder.setMethodAnalysis(name.literal(), type, analysisResults), types
         );
     }
 }
@@ -0,0 +1,224 @@
+package me.darknet.assembler.printer;
+
+import me.darknet.assembler.util.AtomicFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of printed classes, keyed by a hash of the class file and the {@link Settings} it was printed with. Showing a
+ * class which was printed before costs a lookup instead of a full run of the {@link JvmClassPrinter}.
+ * <p>
+ * Recently used entries are kept in memory, up to a total number of characters. Optionally, entries are also kept
+ * in a directory as compressed text, so they outlive the cache instance. Entries in the directory which can't be
+ * read count as missing. Writes go through {@link AtomicFiles}, so one cache directory can be shared by multiple
+ * threads and processes.
+ */
+public class DisassemblyCache {
+    // bump when the printer output changes, so entries printed by an older version are not used
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".jasm.gz";
+    private final Map<String, String> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private final long maxChars;
+    private final @Nullable Path directory;
+    private long chars;
+
+    /**
+     * @param maxChars
+     *                  Total number of characters of printed classes to keep in memory.
+     * @param directory
+     *                  Directory to also keep the entries in, created when the first entry is stored. {@code null} to
+     *                  only keep entries in memory.
+     */
+    public DisassemblyCache(long maxChars, @Nullable Path directory) {
+        this.maxChars = maxChars;
+        this.directory = directory;
+    }
+
+    /**
+     * @param classBytes
+     *                   Class file to print.
+     * @param settings
+     *                   Settings to print the class with.
+     *
+     * @return Printed class, from the cache if it was printed before with the same settings.
+     *
+     * @throws IOException
+     *                     When the class file could not be read.
+     */
+    @NotNull
+    public String print(byte[] classBytes, @NotNull Settings settings) throws IOException {
+        String key = key(classBytes, settings);
+        String text = get(key);
+        if (text != null)
+            return text;
+        JvmClassPrinter printer = new JvmClassPrinter(classBytes);
+        printer.setLabelPrefix(settings.labelPrefix());
+        PrintContext<?> ctx = new PrintContext<>(settings.indent());
+        printer.print(ctx);
+        text = ctx.toString();
+        put(key, text);
+        return text;
+    }
+
+    /**
+     * @param key
+     *            Key of the entry, see {@link #key(byte[], Settings)}.
+     *
+     * @return Printed class, or {@code null} if there is no usable entry for the key.
+     */
+    @Nullable
+    public String get(@NotNull String key) {
+        synchronized (entries) {
+            String text = entries.get(key);
+            if (text != null)
+                return text;
+        }
+        if (directory == null)
+            return null;
+        Path path = directory.resolve(key + EXTENSION);
+        if (!Files.isRegularFile(path))
+            return null;
+        String text;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            // Corrupt or truncated, will be replaced by the next store
+            return null;
+        }
+        remember(key, text);
+        return text;
+    }
+
+    /**
+     * @param key
+     *             Key of the entry, see {@link #key(byte[], Settings)}.
+     * @param text
+     *             Printed class.
+     */
+    public void put(@NotNull String key, @NotNull String text) {
+        remember(key, text);
+        if (directory == null)
+            return;
+        try {
+            AtomicFiles.write(directory.resolve(key + EXTENSION), out -> {
+                try (OutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(text.getBytes(StandardCharsets.UTF_8));
+                }
+            });
+        } catch (IOException ignored) {
+            // The entry is still kept in memory, the next store will try again
+        }
+    }
+
+    /**
+     * Drops all entries kept in memory, entries in the directory are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            chars = 0;
+        }
+    }
+
+    /**
+     * @return Number of entries kept in memory.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return Directory the entries are kept in, or {@code null} if they are only kept in memory.
+     */
+    @Nullable
+    public Path directory() {
+        return directory;
+    }
+
+    private void remember(String key, String text) {
+        // an entry larger than the whole cache would only push out everything else
+        if (text.length() > maxChars)
+            return;
+        synchronized (entries) {
+            String previous = entries.put(key, text);
+            if (previous != null)
+                chars -= previous.length();
+            chars += text.length();
+            Iterator<String> iterator = entries.values().iterator();
+            while (chars > maxChars && iterator.hasNext()) {
+                chars -= iterator.next().length();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @param classBytes
+     *                   Class file.
+     * @param settings
+     *                   Settings to print the class with.
+     *
+     * @return Hash of the class file, the settings and the version of the printer output.
+     */
+    @NotNull
+    public static String key(byte[] classBytes, @NotNull Settings settings) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        digest.update((byte) VERSION);
+        update(digest, settings.indent());
+        String labelPrefix = settings.labelPrefix();
+        if (labelPrefix == null) {
+            digest.update((byte) 0);
+        } else {
+            digest.update((byte) 1);
+            update(digest, labelPrefix);
+        }
+        digest.update(classBytes);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        // length first, so that settings can't run into each other
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * Settings affecting the printed text of a class.
+     *
+     * @param indent
+     *                    Indentation step.
+     * @param labelPrefix
+     *                    Prefix of label names, see {@link JvmClassPrinter#setLabelPrefix(String)}.
+     */
+    public record Settings(@NotNull String indent, @Nullable String labelPrefix) {
+        public Settings(@NotNull String indent) {
+            this(indent, null);
+        }
+    }
+}
@@ -2,6 +2,7 @@
 
 import me.darknet.assembler.compile.analysis.jvm.IndexedExecutionEngine;
 import me.darknet.assembler.helper.Names;
+import me.darknet.assembler.util.BlwOpcodes;
 
 import dev.xdark.blw.code.Code;
 import dev.xdark.blw.code.Instruction;
@@ -16,18 +17,6 @@
 
 public class InstructionPrinter implements IndexedExecutionEngine {
 
-    private final static String[] OPCODES = new String[256];
-
-    static {
-        for (var field : JavaOpcodes.class.getFields()) {
-            try {
-                OPCODES[field.getInt(null)] = field.getName().toLowerCase();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
     protected PrintContext.CodePrint ctx;
     protected Code code;
     protected Map<Integer, String> labelNames = new HashMap<>();
@@ -57,7 +46,7 @@ public void label(Label label) {
 
     @Override
     public void execute(SimpleInstruction instruction) {
-        ctx.instruction(OPCODES[instruction.opcode()]).next();
+        ctx.instruction(BlwOpcodes.name(instruction.opcode())).next();
     }
 
     @Override
@@ -69,7 +58,7 @@ public void execute(ConstantInstruction<?> instruction) {
                 ctx.instruction("iconst_m1").next();
                 return;
             } else if (val >= 0 && val <= 5) {
-                ctx.instruction("iconst_" + val).next();
+                ctx.instruction(BlwOpcodes.name(JavaOpcodes.ICONST_0 + val)).next();
                 return;
             } else if (val >= -128 && val <= 127) {
                 opcode = "bipush";
@@ -81,7 +70,7 @@ public void execute(ConstantInstruction<?> instruction) {
         } else if (instruction instanceof ConstantInstruction.Long i) {
             long val = i.constant().value();
             if (val == 0 || val == 1) {
-                ctx.instruction("lconst_" + val).next();
+                ctx.instruction(BlwOpcodes.name(JavaOpcodes.LCONST_0 + (int) val)).next();
                 return;
             } else {
                 opcode = "ldc"; // ldc2_w
@@ -89,7 +78,7 @@ public void execute(ConstantInstruction<?> instruction) {
         } else if (instruction instanceof ConstantInstruction.Float i) {
             float val = i.constant().value();
             if (val == 0 || val == 1 || val == 2) {
-                ctx.instruction("fconst_" + (int) val).next();
+                ctx.instruction(BlwOpcodes.name(JavaOpcodes.FCONST_0 + (int) val)).next();
                 return;
             } else {
                 opcode = "ldc";
@@ -97,7 +86,7 @@ public void execute(ConstantInstruction<?> instruction) {
         } else if (instruction instanceof ConstantInstruction.Double i) {
             double val = i.constant().value();
             if (val == 0 || val == 1) {
-                ctx.instruction("dconst_" + (int) val).next();
+                ctx.instruction(BlwOpcodes.name(JavaOpcodes.DCONST_0 + (int) val)).next();
                 return;
             } else {
                 opcode = "ldc"; // ldc2_w
@@ -112,7 +101,7 @@ public void execute(ConstantInstruction<?> instruction) {
 
     @Override
     public void execute(VarInstruction instruction) {
-        ctx.instruction(OPCODES[instruction.opcode()])
+        ctx.instruction(BlwOpcodes.name(instruction.opcode()))
                 .literal(names.getName(instruction.variableIndex(), currentIndex + 1)).next();
     }
 
@@ -184,17 +173,14 @@ public void execute(AllocateInstruction instruction) {
 
     @Override
     public void execute(MethodInstruction instruction) {
-        String opcode = OPCODES[instruction.opcode()];
-        if (instruction.isInterface() && instruction.opcode() != JavaOpcodes.INVOKEINTERFACE) {
-            opcode += "interface";
-        }
-        ctx.instruction(opcode).literal(instruction.owner().internalName()).print(".").literal(instruction.name())
-                .print(" ").literal(instruction.type().descriptor()).next();
+        ctx.instruction(BlwOpcodes.name(instruction.opcode(), instruction.isInterface()))
+                .literal(instruction.owner().internalName()).print(".").literal(instruction.name()).print(" ")
+                .literal(instruction.type().descriptor()).next();
     }
 
     @Override
     public void execute(FieldInstruction instruction) {
-        ctx.instruction(OPCODES[instruction.opcode()]).literal(instruction.owner().internalName()).print(".")
+        ctx.instruction(BlwOpcodes.name(instruction.opcode())).literal(instruction.owner().internalName()).print(".")
                 .literal(instruction.name()).print(" ").literal(instruction.type().descriptor()).next();
     }
 
@@ -212,17 +198,19 @@ public void execute(InvokeDynamicInstruction instruction) {
 
     @Override
     public void execute(ImmediateJumpInstruction instruction) {
-        ctx.instruction(OPCODES[instruction.opcode()]).print(labelNames.get(instruction.target().getIndex())).next();
+        ctx.instruction(BlwOpcodes.name(instruction.opcode())).print(labelNames.get(instruction.target().getIndex()))
+                .next();
     }
 
     @Override
     public void execute(ConditionalJumpInstruction instruction) {
-        ctx.instruction(OPCODES[instruction.opcode()]).print(labelNames.get(instruction.target().getIndex())).next();
+        ctx.instruction(BlwOpcodes.name(instruction.opcode())).print(labelNames.get(instruction.target().getIndex()))
+                .next();
     }
 
     @Override
     public void execute(VariableIncrementInstruction instruction) {
-        ctx.instruction(OPCODES[instruction.opcode()])
+        ctx.instruction(BlwOpcodes.name(instruction.opcode()))
                 .literal(names.getName(instruction.variableIndex(), currentIndex + 1)).arg()
                 .literal(Integer.toString(instruction.incrementBy())).next();
     }
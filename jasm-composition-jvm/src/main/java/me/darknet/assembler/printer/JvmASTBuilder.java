@@ -0,0 +1,633 @@
+package me.darknet.assembler.printer;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.ast.primitive.*;
+import me.darknet.assembler.ast.specific.*;
+import me.darknet.assembler.compile.analysis.jvm.IndexedExecutionEngine;
+import me.darknet.assembler.compile.analysis.jvm.IndexedStraightforwardSimulation;
+import me.darknet.assembler.helper.Handle;
+import me.darknet.assembler.helper.Names;
+import me.darknet.assembler.instructions.Instructions;
+import me.darknet.assembler.parser.BytecodeFormat;
+import me.darknet.assembler.parser.Token;
+import me.darknet.assembler.parser.TokenType;
+import me.darknet.assembler.util.BlwModifiers;
+import me.darknet.assembler.util.BlwOpcodes;
+import me.darknet.assembler.util.ElementMap;
+import me.darknet.assembler.util.EscapeUtil;
+import me.darknet.assembler.util.Location;
+import me.darknet.assembler.util.Range;
+import me.darknet.assembler.visitor.Modifiers;
+
+import dev.xdark.blw.BytecodeLibrary;
+import dev.xdark.blw.annotation.*;
+import dev.xdark.blw.asm.AsmBytecodeLibrary;
+import dev.xdark.blw.asm.ClassWriterProvider;
+import dev.xdark.blw.classfile.Annotated;
+import dev.xdark.blw.classfile.ClassFileView;
+import dev.xdark.blw.classfile.Field;
+import dev.xdark.blw.classfile.Method;
+import dev.xdark.blw.classfile.attribute.InnerClass;
+import dev.xdark.blw.classfile.generic.GenericClassBuilder;
+import dev.xdark.blw.code.Code;
+import dev.xdark.blw.code.Instruction;
+import dev.xdark.blw.code.JavaOpcodes;
+import dev.xdark.blw.code.Label;
+import dev.xdark.blw.code.TryCatchBlock;
+import dev.xdark.blw.code.instruction.*;
+import dev.xdark.blw.constant.*;
+import dev.xdark.blw.type.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Builds the processed AST of a class directly from its model, as if the output of {@link JvmClassPrinter} had been
+ * tokenized, parsed and processed. Tools which disassemble, transform and reassemble classes in memory can hand the
+ * result straight to the compiler, skipping printing, escaping and lexing.
+ * <p>
+ * There is no source text, so the tokens of the AST are given synthetic locations. Every attribute, member header and
+ * instruction starts a new line and tokens follow each other on their line, in the order they would be printed.
+ */
+public class JvmASTBuilder {
+
+    private static final BytecodeLibrary library = new AsmBytecodeLibrary(
+            ClassWriterProvider.flags(ClassWriter.COMPUTE_FRAMES)
+    );
+    private static final Map<Integer, String> HANDLE_KINDS = new HashMap<>();
+
+    static {
+        Handle.KINDS.forEach((name, kind) -> HANDLE_KINDS.put(kind.ordinal() + 1, name));
+    }
+
+    private final ClassFileView view;
+    private final Instructions<?> instructions = BytecodeFormat.JVM.getInstructions();
+    private String source = "<builder>";
+    private int line;
+    private int column;
+    private int offset;
+
+    public JvmASTBuilder(byte[] bytes) throws IOException {
+        this(new ByteArrayInputStream(bytes));
+    }
+
+    public JvmASTBuilder(InputStream stream) throws IOException {
+        var builder = new GenericClassBuilder();
+        library.read(stream, builder);
+        this.view = builder.build();
+    }
+
+    public JvmASTBuilder(@NotNull ClassFileView view) {
+        this.view = view;
+    }
+
+    /**
+     * @param source
+     *               Name of the source used in the locations of the built AST.
+     *
+     * @return Self.
+     */
+    public JvmASTBuilder source(@NotNull String source) {
+        this.source = source;
+        return this;
+    }
+
+    /**
+     * @return Processed AST of the class, ready to be compiled.
+     */
+    @NotNull
+    public ASTClass build() {
+        line = 0;
+        column = 1;
+        offset = 0;
+
+        List<ASTAnnotation> annotations = annotations(view);
+        ASTString signature = signature(view.signature());
+        List<ASTInner> inners = new ArrayList<>();
+        for (InnerClass innerClass : view.innerClasses()) {
+            newLine();
+            identifier(".inner");
+            Modifiers modifiers = modifiers(innerClass.accessFlags(), BlwModifiers.CLASS);
+            ASTIdentifier name = null;
+            if (innerClass.innerName() != null) {
+                identifier("name");
+                name = literal(innerClass.innerName());
+            }
+            identifier("inner");
+            ASTIdentifier inner = literal(innerClass.type().internalName());
+            ASTIdentifier outer = null;
+            InstanceType outerType = innerClass.outerType();
+            if (outerType != null) {
+                identifier("outer");
+                outer = literal(outerType.internalName());
+            }
+            inners.add(new ASTInner(modifiers, name, outer, inner));
+        }
+        ASTIdentifier superName = null;
+        if (view.superClass() != null) {
+            newLine();
+            identifier(".super");
+            superName = literal(view.superClass().internalName());
+        }
+        List<ASTIdentifier> interfaces = new ArrayList<>();
+        for (InstanceType anInterface : view.interfaces()) {
+            newLine();
+            identifier(".implements");
+            interfaces.add(literal(anInterface.internalName()));
+        }
+
+        newLine();
+        identifier(".class");
+        Modifiers modifiers = modifiers(view.accessFlags(), BlwModifiers.CLASS);
+        ASTIdentifier name = literal(view.type().internalName());
+        List<ASTElement> contents = new ArrayList<>();
+        for (Field field : view.fields())
+            contents.add(field(field));
+        for (Method method : view.methods())
+            contents.add(method(method));
+
+        // Same order of attributes as the processor fills them in
+        ASTClass clazz = new ASTClass(modifiers, name, contents);
+        applyAttributes(clazz, signature, annotations);
+        if (superName != null)
+            clazz.setSuperName(superName);
+        if (!interfaces.isEmpty())
+            clazz.setInterfaces(interfaces);
+        if (!inners.isEmpty())
+            clazz.setInnerClasses(inners);
+        return clazz;
+    }
+
+    private ASTField field(Field field) {
+        List<ASTAnnotation> annotations = annotations(field);
+        ASTString signature = signature(field.signature());
+        newLine();
+        identifier(".field");
+        Modifiers modifiers = modifiers(field.accessFlags(), BlwModifiers.FIELD);
+        ASTIdentifier name = literal(field.name());
+        ASTIdentifier descriptor = literal(field.type().descriptor());
+        ASTValue value = null;
+        Constant constant = field.defaultValue();
+        if (constant != null) {
+            identifier("value");
+            value = (ASTValue) constant(constant);
+        }
+        ASTField astField = new ASTField(modifiers, name, descriptor, value);
+        applyAttributes(astField, signature, annotations);
+        return astField;
+    }
+
+    private ASTMethod method(Method method) {
+        List<ASTAnnotation> annotations = annotations(method);
+        ASTString signature = signature(method.signature());
+        newLine();
+        identifier(".method");
+        Modifiers modifiers = modifiers(method.accessFlags(), BlwModifiers.METHOD);
+        ASTIdentifier name = literal(method.name());
+        ASTIdentifier descriptor = literal(method.type().descriptor());
+
+        JvmMethodPrinter printer = new JvmMethodPrinter(method);
+        Names names = printer.localNames();
+        List<ASTIdentifier> parameters = Collections.emptyList();
+        if (!names.parameters().isEmpty()) {
+            identifier("parameters");
+            parameters = new ArrayList<>();
+            for (String parameter : new TreeMap<>(names.parameters()).values())
+                parameters.add(identifier(parameter));
+        }
+
+        List<ASTException> exceptions = new ArrayList<>();
+        ASTCode code = null;
+        List<me.darknet.assembler.instructions.Instruction<?>> resolved = new ArrayList<>();
+        Code methodCode = method.code();
+        if (methodCode != null) {
+            Map<Integer, String> labelNames = printer.getLabelNames(methodCode.elements());
+            if (!methodCode.tryCatchBlocks().isEmpty()) {
+                identifier("exceptions");
+                for (TryCatchBlock block : methodCode.tryCatchBlocks()) {
+                    ASTIdentifier start = identifier(labelNames.get(block.start().getIndex()));
+                    ASTIdentifier end = identifier(labelNames.get(block.end().getIndex()));
+                    ASTIdentifier handler = identifier(labelNames.get(block.handler().getIndex()));
+                    ASTIdentifier type = identifier(block.type() == null ? "*" : block.type().descriptor());
+                    exceptions.add(new ASTException(start, end, handler, type));
+                }
+            }
+            identifier("code");
+            CodeBuilder builder = new CodeBuilder(names, labelNames, resolved);
+            new IndexedStraightforwardSimulation().execute(builder, method);
+            code = new ASTCode(builder.code);
+        }
+
+        ASTMethod astMethod = new ASTMethod(
+                modifiers, name, descriptor, parameters, exceptions, code, resolved, BytecodeFormat.JVM
+        );
+        applyAttributes(astMethod, signature, annotations);
+        return astMethod;
+    }
+
+    private static void applyAttributes(ASTMember member, @Nullable ASTString signature,
+            List<ASTAnnotation> annotations) {
+        if (!annotations.isEmpty())
+            member.setAnnotations(annotations);
+        if (signature != null)
+            member.setSignature(signature);
+    }
+
+    private List<ASTAnnotation> annotations(Annotated annotated) {
+        List<ASTAnnotation> annotations = new ArrayList<>();
+        for (Annotation annotation : annotated.invisibleRuntimeAnnotations()) {
+            newLine();
+            annotations.add(annotation(annotation));
+        }
+        for (Annotation annotation : annotated.visibleRuntimeAnnotations()) {
+            newLine();
+            annotations.add(annotation(annotation));
+        }
+        return annotations;
+    }
+
+    private @Nullable ASTString signature(@Nullable String signature) {
+        if (signature == null)
+            return null;
+        newLine();
+        identifier(".signature");
+        return new ASTString(token(TokenType.STRING, signature));
+    }
+
+    private ASTAnnotation annotation(Annotation annotation) {
+        identifier(".annotation");
+        ASTIdentifier type = literal(annotation.type().internalName());
+        ElementMap<ASTIdentifier, ASTElement> values = new ElementMap<>();
+        for (Map.Entry<String, Element> entry : annotation) {
+            ASTIdentifier key = literal(entry.getKey());
+            values.put(key, element(entry.getValue()));
+        }
+        return new ASTAnnotation(type, values);
+    }
+
+    private ASTElement element(Element element) {
+        if (element instanceof ElementInt ei) {
+            return number(Integer.toString(ei.value()));
+        } else if (element instanceof ElementLong el) {
+            return number(el.value() + "L");
+        } else if (element instanceof ElementFloat ef) {
+            return number(ef.value() + "F");
+        } else if (element instanceof ElementDouble ed) {
+            return number(doubleContent(ed.value()));
+        } else if (element instanceof ElementString es) {
+            return new ASTString(token(TokenType.STRING, es.value()));
+        } else if (element instanceof ElementBoolean eb) {
+            return new ASTBool(token(TokenType.IDENTIFIER, Boolean.toString(eb.value())));
+        } else if (element instanceof ElementByte eb) {
+            return number(Byte.toString(eb.value()));
+        } else if (element instanceof ElementChar ec) {
+            return new ASTCharacter(token(TokenType.CHARACTER, String.valueOf(ec.value())));
+        } else if (element instanceof ElementShort es) {
+            return number(Short.toString(es.value()));
+        } else if (element instanceof ElementEnum ee) {
+            identifier(".enum");
+            return new ASTEnum(literal(ee.type().internalName()), literal(ee.name()));
+        } else if (element instanceof ElementType et) {
+            return literal(et.value().internalName());
+        } else if (element instanceof Annotation ea) {
+            return annotation(ea);
+        } else if (element instanceof ElementArray ea) {
+            List<ASTElement> values = new ArrayList<>();
+            for (Element value : ea)
+                values.add(element(value));
+            return new ASTArray(values);
+        }
+        throw new IllegalStateException("Unexpected value: " + element);
+    }
+
+    private ASTElement constant(Constant constant) {
+        if (constant instanceof OfString string) {
+            return new ASTString(token(TokenType.STRING, string.value()));
+        } else if (constant instanceof OfInt i) {
+            return number(String.valueOf(i.value()));
+        } else if (constant instanceof OfLong l) {
+            return number(l.value() + "L");
+        } else if (constant instanceof OfFloat f) {
+            return number(f.value() + "F");
+        } else if (constant instanceof OfDouble d) {
+            return number(doubleContent(d.value()));
+        } else if (constant instanceof OfType type) {
+            return literal(type.value().descriptor());
+        } else if (constant instanceof OfMethodHandle handle) {
+            return methodHandle(handle.value(), true);
+        } else if (constant instanceof OfDynamic dynamic) {
+            ConstantDynamic value = dynamic.value();
+            List<ASTElement> elements = new ArrayList<>(4);
+            elements.add(literal(value.name()));
+            elements.add(literal(value.type().descriptor()));
+            // dynamic constants only take the full form of their bootstrap method
+            elements.add(methodHandle(value.methodHandle(), false));
+            elements.add(constants(value.args()));
+            return new ASTArray(elements);
+        }
+        throw new IllegalStateException("Unexpected value: " + constant);
+    }
+
+    private ASTArray constants(List<Constant> constants) {
+        List<ASTElement> elements = new ArrayList<>(constants.size());
+        for (Constant constant : constants)
+            elements.add(constant(constant));
+        return new ASTArray(elements);
+    }
+
+    private ASTElement methodHandle(MethodHandle handle, boolean allowShortcut) {
+        String owner = handle.owner().internalName();
+        if (allowShortcut) {
+            String shortcut = Handle.SHORTCUT_LOOKUP.get(owner + "." + handle.name() + handle.type().descriptor());
+            if (shortcut != null)
+                return literal(shortcut);
+        }
+        return new ASTArray(
+                List.of(
+                        identifier(HANDLE_KINDS.get(handle.kind())), member(owner, handle.name()),
+                        literal(handle.type().descriptor())
+                )
+        );
+    }
+
+    private static String doubleContent(double value) {
+        String content = Double.toString(value);
+        // Skip 'D' suffix for things like 'NaN' where it is implied
+        if (Double.isFinite(value))
+            content += "D";
+        return content;
+    }
+
+    private Modifiers modifiers(int accessFlags, int type) {
+        Modifiers modifiers = new Modifiers();
+        for (String modifier : BlwModifiers.modifiers(accessFlags, type).split(" ")) {
+            if (!modifier.isEmpty())
+                modifiers.addModifier(identifier(modifier));
+        }
+        return modifiers;
+    }
+
+    private ASTNumber number(String content) {
+        return new ASTNumber(token(TokenType.NUMBER, content));
+    }
+
+    private ASTIdentifier member(String owner, String name) {
+        return identifier(EscapeUtil.escapeLiteral(owner) + '.' + EscapeUtil.escapeLiteral(name));
+    }
+
+    /**
+     * @param content
+     *                Unescaped content, as written by {@link PrintContext#literal(String)}.
+     *
+     * @return Identifier with the escaped content.
+     */
+    private ASTIdentifier literal(String content) {
+        return identifier(EscapeUtil.escapeLiteral(content));
+    }
+
+    private ASTIdentifier identifier(String content) {
+        return new ASTIdentifier(token(TokenType.IDENTIFIER, content));
+    }
+
+    private void newLine() {
+        line++;
+        column = 1;
+        offset++;
+    }
+
+    private Token token(TokenType type, String content) {
+        int length = content.length();
+        Token token = new Token(
+                new Range(offset, offset + length), new Location(line, column, length, source), type, content
+        );
+        // tokens are separated by a single space
+        column += length + 1;
+        offset += length + 1;
+        return token;
+    }
+
+    private class CodeBuilder implements IndexedExecutionEngine {
+
+        private final List<ASTInstruction> code = new ArrayList<>();
+        private final Names names;
+        private final Map<Integer, String> labelNames;
+        private final List<me.darknet.assembler.instructions.Instruction<?>> resolved;
+        private int currentIndex;
+
+        private CodeBuilder(Names names, Map<Integer, String> labelNames,
+                List<me.darknet.assembler.instructions.Instruction<?>> resolved) {
+            this.names = names;
+            this.labelNames = labelNames;
+            this.resolved = resolved;
+        }
+
+        /**
+         * @param mnemonic
+         *                 Mnemonic of the instruction.
+         *
+         * @return Identifier of the mnemonic, at the start of a new line. Must be created before the arguments of
+         *         the instruction to keep their locations in order.
+         */
+        private ASTIdentifier begin(String mnemonic) {
+            newLine();
+            return identifier(mnemonic);
+        }
+
+        private void add(ASTIdentifier mnemonic, ASTElement... arguments) {
+            int opcode = instructions.opcode(mnemonic.content());
+            ASTInstruction instruction = new ASTInstruction(mnemonic, Arrays.asList(arguments));
+            instruction.setOpcode(opcode);
+            code.add(instruction);
+            resolved.add(instructions.get(opcode));
+        }
+
+        private ASTIdentifier label(Label label) {
+            return identifier(labelNames.get(label.getIndex()));
+        }
+
+        private ASTIdentifier variable(int index) {
+            return literal(names.getName(index, currentIndex + 1));
+        }
+
+        @Override
+        public void index(int index) {
+            currentIndex = index;
+        }
+
+        @Override
+        public void label(Label label) {
+            newLine();
+            code.add(new ASTLabel(label(label)));
+            if (label.getLineNumber() != Label.UNSET)
+                add(begin("line"), number(Integer.toString(label.getLineNumber())));
+        }
+
+        @Override
+        public void execute(SimpleInstruction instruction) {
+            add(begin(BlwOpcodes.name(instruction.opcode())));
+        }
+
+        @Override
+        public void execute(ConstantInstruction<?> instruction) {
+            // same choice of instruction as the printer
+            if (instruction instanceof ConstantInstruction.Int i) {
+                int val = i.constant().value();
+                if (val == -1) {
+                    add(begin("iconst_m1"));
+                    return;
+                } else if (val >= 0 && val <= 5) {
+                    add(begin(BlwOpcodes.name(JavaOpcodes.ICONST_0 + val)));
+                    return;
+                } else if (val >= Byte.MIN_VALUE && val <= Byte.MAX_VALUE) {
+                    add(begin("bipush"), number(Integer.toString(val)));
+                    return;
+                } else if (val >= Short.MIN_VALUE && val <= Short.MAX_VALUE) {
+                    add(begin("sipush"), number(Integer.toString(val)));
+                    return;
+                }
+            } else if (instruction instanceof ConstantInstruction.Long i) {
+                long val = i.constant().value();
+                if (val == 0 || val == 1) {
+                    add(begin(BlwOpcodes.name(JavaOpcodes.LCONST_0 + (int) val)));
+                    return;
+                }
+            } else if (instruction instanceof ConstantInstruction.Float i) {
+                float val = i.constant().value();
+                if (val == 0 || val == 1 || val == 2) {
+                    add(begin(BlwOpcodes.name(JavaOpcodes.FCONST_0 + (int) val)));
+                    return;
+                }
+            } else if (instruction instanceof ConstantInstruction.Double i) {
+                double val = i.constant().value();
+                if (val == 0 || val == 1) {
+                    add(begin(BlwOpcodes.name(JavaOpcodes.DCONST_0 + (int) val)));
+                    return;
+                }
+            }
+            add(begin("ldc"), constant(instruction.constant()));
+        }
+
+        @Override
+        public void execute(VarInstruction instruction) {
+            add(begin(BlwOpcodes.name(instruction.opcode())), variable(instruction.variableIndex()));
+        }
+
+        @Override
+        public void execute(LookupSwitchInstruction instruction) {
+            ElementMap<ASTIdentifier, ASTElement> values = new ElementMap<>();
+            int[] keys = instruction.keys();
+            List<Label> targets = instruction.targets();
+            ASTIdentifier mnemonic = begin("lookupswitch");
+            for (int i = 0; i < keys.length; i++)
+                values.put(identifier(String.valueOf(keys[i])), label(targets.get(i)));
+            values.put(identifier("default"), label(instruction.defaultTarget()));
+            add(mnemonic, new ASTObject(values));
+        }
+
+        @Override
+        public void execute(TableSwitchInstruction instruction) {
+            ElementMap<ASTIdentifier, ASTElement> values = new ElementMap<>();
+            ASTIdentifier mnemonic = begin("tableswitch");
+            values.put(identifier("min"), number(String.valueOf(instruction.min())));
+            values.put(identifier("max"), number(String.valueOf(instruction.min() + instruction.targets().size())));
+            ASTIdentifier casesKey = identifier("cases");
+            List<ASTElement> cases = new ArrayList<>();
+            for (Label target : instruction.targets())
+                cases.add(label(target));
+            values.put(casesKey, new ASTArray(cases));
+            values.put(identifier("default"), label(instruction.defaultTarget()));
+            add(mnemonic, new ASTObject(values));
+        }
+
+        @Override
+        public void execute(InstanceofInstruction instruction) {
+            add(begin("instanceof"), literal(instruction.type().descriptor()));
+        }
+
+        @Override
+        public void execute(CheckCastInstruction instruction) {
+            add(begin("checkcast"), literal(instruction.type().descriptor()));
+        }
+
+        @Override
+        public void execute(AllocateInstruction instruction) {
+            Type type = instruction.type();
+            if (type instanceof InstanceType instance) {
+                add(begin("new"), literal(instance.internalName()));
+            } else {
+                ArrayType arrayType = (ArrayType) type;
+                int dimensions = arrayType.dimensions();
+                if (dimensions == 1) {
+                    ClassType component = arrayType.componentType();
+                    if (component instanceof ObjectType objectComponent) {
+                        add(begin("anewarray"), literal(objectComponent.descriptor()));
+                    } else if (component instanceof PrimitiveType primitiveComponent) {
+                        add(begin("newarray"), identifier(primitiveComponent.name()));
+                    }
+                } else {
+                    add(begin("multianewarray"), literal(type.descriptor()), number(Integer.toString(dimensions)));
+                }
+            }
+        }
+
+        @Override
+        public void execute(MethodInstruction instruction) {
+            add(
+                    begin(BlwOpcodes.name(instruction.opcode(), instruction.isInterface())),
+                    member(instruction.owner().internalName(), instruction.name()),
+                    literal(instruction.type().descriptor())
+            );
+        }
+
+        @Override
+        public void execute(FieldInstruction instruction) {
+            add(
+                    begin(BlwOpcodes.name(instruction.opcode())),
+                    member(instruction.owner().internalName(), instruction.name()),
+                    literal(instruction.type().descriptor())
+            );
+        }
+
+        @Override
+        public void execute(InvokeDynamicInstruction instruction) {
+            ASTIdentifier mnemonic = begin("invokedynamic");
+            ASTIdentifier name = literal(instruction.name());
+            ASTIdentifier descriptor = literal(instruction.type().descriptor());
+            ASTElement handle = methodHandle(instruction.bootstrapHandle(), true);
+            add(mnemonic, name, descriptor, handle, constants(instruction.args()));
+        }
+
+        @Override
+        public void execute(ImmediateJumpInstruction instruction) {
+            add(begin(BlwOpcodes.name(instruction.opcode())), label(instruction.target()));
+        }
+
+        @Override
+        public void execute(ConditionalJumpInstruction instruction) {
+            add(begin(BlwOpcodes.name(instruction.opcode())), label(instruction.target()));
+        }
+
+        @Override
+        public void execute(VariableIncrementInstruction instruction) {
+            add(
+                    begin(BlwOpcodes.name(instruction.opcode())), variable(instruction.variableIndex()),
+                    number(Integer.toString(instruction.incrementBy()))
+            );
+        }
+
+        @Override
+        public void execute(PrimitiveConversionInstruction instruction) {
+            add(begin(BlwOpcodes.name(instruction.opcode())));
+        }
+
+        @Override
+        public void execute(Instruction instruction) {
+
+        }
+    }
+}
@@ -11,16 +11,25 @@
 import dev.xdark.blw.classfile.attribute.InnerClass;
 import dev.xdark.blw.classfile.generic.GenericClassBuilder;
 import dev.xdark.blw.type.InstanceType;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassWriter;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class JvmClassPrinter implements ClassPrinter {
 
     protected ClassFileView view;
     protected MemberPrinter memberPrinter;
+    protected @Nullable Executor executor;
+    protected @Nullable String labelPrefix;
     private static final BytecodeLibrary library = new AsmBytecodeLibrary(
             ClassWriterProvider.flags(ClassWriter.COMPUTE_FRAMES)
     );
@@ -62,20 +71,99 @@ public void print(PrintContext<?> ctx) {
         }
         var obj = memberPrinter.printDeclaration(ctx).literal(view.type().internalName()).print(" ").declObject()
                 .newline();
-        for (Field field : view.fields()) {
-            JvmFieldPrinter printer = new JvmFieldPrinter(field);
-            printer.print(obj);
-            obj.next();
-        }
-        obj.line();
-        for (Method method : view.methods()) {
-            JvmMethodPrinter printer = new JvmMethodPrinter(method);
-            printer.print(obj);
-            obj.doubleNext();
+        if (executor == null) {
+            for (Field field : view.fields()) {
+                JvmFieldPrinter printer = new JvmFieldPrinter(field);
+                printer.print(obj);
+                obj.next();
+            }
+            obj.line();
+            for (Method method : view.methods()) {
+                JvmMethodPrinter printer = methodPrinter(method);
+                printer.print(obj);
+                obj.doubleNext();
+            }
+        } else {
+            printMembersParallel(obj, executor);
         }
         obj.end();
     }
 
+    private void printMembersParallel(PrintContext.DeclObjectPrint obj, Executor executor) {
+        List<Printer> printers = new ArrayList<>(view.fields().size() + view.methods().size());
+        for (Field field : view.fields())
+            printers.add(new JvmFieldPrinter(field));
+        for (Method method : view.methods())
+            printers.add(methodPrinter(method));
+
+        // every member starts printing at the indentation of the class body
+        String indent = obj.getIndent();
+        List<CompletableFuture<PrintContext<?>>> members = new ArrayList<>(printers.size());
+        for (Printer printer : printers) {
+            var member = new PrintContext.DeclObjectPrint(new PrintContext<>(obj, new StringWriter()));
+            members.add(CompletableFuture.supplyAsync(() -> {
+                printer.print(member);
+                return member;
+            }, executor));
+        }
+
+        int fieldCount = view.fields().size();
+        for (int i = 0; i < printers.size(); i++) {
+            if (i == fieldCount)
+                obj.line();
+            PrintContext<?> member = await(members.get(i));
+            if (obj.getIndent().equals(indent)) {
+                obj.join(member);
+            } else {
+                // a previous member left the indentation changed, so the buffer is not what it would print here
+                printers.get(i).print(obj);
+            }
+            if (i < fieldCount)
+                obj.next();
+            else
+                obj.doubleNext();
+        }
+        if (fieldCount == printers.size())
+            obj.line();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException ex)
+                throw ex;
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+
+    /**
+     * @param executor
+     *                 Executor to print fields and methods on, each into their own buffer which are then written in
+     *                 declaration order. The output is the same as when printing on the calling thread. {@code null}
+     *                 to print everything on the calling thread, which is the default.
+     */
+    public void setExecutor(@Nullable Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param labelPrefix
+     *                    Prefix to put in front of the label names of all printed methods. {@code null} for no prefix,
+     *                    which is the default.
+     */
+    public void setLabelPrefix(@Nullable String labelPrefix) {
+        this.labelPrefix = labelPrefix;
+    }
+
+    private JvmMethodPrinter methodPrinter(Method method) {
+        JvmMethodPrinter printer = new JvmMethodPrinter(method);
+        printer.setLabelPrefix(labelPrefix);
+        return printer;
+    }
+
     @Override
     public AnnotationPrinter annotation(int index) {
         return memberPrinter.printAnnotation(index);
@@ -86,7 +174,7 @@ public MethodPrinter method(String name, String descriptor) {
         // find method
         for (Method method : view.methods()) {
             if (method.name().equals(name) && method.type().descriptor().equals(descriptor)) {
-                return new JvmMethodPrinter(method);
+                return methodPrinter(method);
             }
         }
         return null;
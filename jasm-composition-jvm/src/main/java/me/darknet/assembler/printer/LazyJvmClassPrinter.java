@@ -0,0 +1,199 @@
+package me.darknet.assembler.printer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class printer which only indexes the member offsets of the class file up front. Looking up a member with
+ * {@link #method(String, String)} or {@link #field(String, String)} reads a class containing only that member, so
+ * the cost of showing a single member does not depend on the size of the rest of the class. Printing the whole
+ * class falls back to a {@link JvmClassPrinter}.
+ */
+public class LazyJvmClassPrinter implements ClassPrinter {
+
+    private final byte[] bytes;
+    // offset of the field count, everything before it is the class header
+    private final int fieldsOffset;
+    // offset of the class attribute count, everything from it until the end are the class attributes
+    private final int attributesOffset;
+    private final List<Member> fields = new ArrayList<>();
+    private final List<Member> methods = new ArrayList<>();
+    private final Map<Member, Range> fieldIndex = new HashMap<>();
+    private final Map<Member, Range> methodIndex = new HashMap<>();
+    private JvmClassPrinter classPrinter;
+    private JvmClassPrinter headerPrinter;
+
+    public LazyJvmClassPrinter(byte[] bytes) throws IOException {
+        this.bytes = bytes;
+        try {
+            if (u4(0) != 0xCAFEBABE)
+                throw new IOException("Not a class file");
+            int constantCount = u2(8);
+            int[] constants = new int[constantCount];
+            int offset = 10;
+            for (int i = 1; i < constantCount; i++) {
+                constants[i] = offset;
+                int tag = bytes[offset] & 0xFF;
+                offset += switch (tag) {
+                    case 1 -> 3 + u2(offset + 1); // utf8
+                    case 7, 8, 16, 19, 20 -> 3; // class, string, method type, module, package
+                    case 15 -> 4; // method handle
+                    case 3, 4, 9, 10, 11, 12, 17, 18 -> 5;
+                    case 5, 6 -> {
+                        // long and double take up two entries
+                        i++;
+                        yield 9;
+                    }
+                    default -> throw new IOException("Unknown constant pool tag " + tag + " at " + offset);
+                };
+            }
+            offset += 6; // access, this and super
+            offset += 2 + 2 * u2(offset); // interfaces
+            this.fieldsOffset = offset;
+            offset = indexMembers(offset, constants, fields, fieldIndex);
+            offset = indexMembers(offset, constants, methods, methodIndex);
+            this.attributesOffset = offset;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated class file", e);
+        }
+    }
+
+    private int indexMembers(int offset, int[] constants, List<Member> members, Map<Member, Range> index)
+            throws IOException {
+        int count = u2(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            int start = offset;
+            Member member = new Member(utf8(constants[u2(offset + 2)]), utf8(constants[u2(offset + 4)]));
+            int attributeCount = u2(offset + 6);
+            offset += 8;
+            for (int j = 0; j < attributeCount; j++) {
+                offset += 6 + u4(offset + 2);
+            }
+            members.add(member);
+            // the first declaration wins, like a linear scan over the members would
+            index.putIfAbsent(member, new Range(start, offset));
+        }
+        return offset;
+    }
+
+    @Override
+    public void print(PrintContext<?> ctx) {
+        if (classPrinter == null)
+            classPrinter = read(bytes);
+        classPrinter.print(ctx);
+    }
+
+    @Override
+    public AnnotationPrinter annotation(int index) {
+        if (headerPrinter == null)
+            headerPrinter = read(slice(new Range(0, 0), new Range(0, 0)));
+        return headerPrinter.annotation(index);
+    }
+
+    @Override
+    public @Nullable MethodPrinter method(String name, String descriptor) {
+        Range range = methodIndex.get(new Member(name, descriptor));
+        if (range == null)
+            return null;
+        return read(slice(new Range(0, 0), range)).method(name, descriptor);
+    }
+
+    @Override
+    public @Nullable FieldPrinter field(String name, String descriptor) {
+        Range range = fieldIndex.get(new Member(name, descriptor));
+        if (range == null)
+            return null;
+        return read(slice(range, new Range(0, 0))).field(name, descriptor);
+    }
+
+    /**
+     * @return Fields of the class, in declaration order.
+     */
+    public @NotNull List<Member> fields() {
+        return Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * @return Methods of the class, in declaration order.
+     */
+    public @NotNull List<Member> methods() {
+        return Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * @param field
+     *               Bytes of the only field to keep, or an empty range to keep none.
+     * @param method
+     *               Bytes of the only method to keep, or an empty range to keep none.
+     *
+     * @return Class file with the same header and attributes, but only the given members.
+     */
+    private byte[] slice(Range field, Range method) {
+        byte[] out = new byte[fieldsOffset + 2 + field.length() + 2 + method.length() + bytes.length
+                - attributesOffset];
+        System.arraycopy(bytes, 0, out, 0, fieldsOffset);
+        int offset = fieldsOffset;
+        offset = putMembers(out, offset, field);
+        offset = putMembers(out, offset, method);
+        System.arraycopy(bytes, attributesOffset, out, offset, bytes.length - attributesOffset);
+        return out;
+    }
+
+    private int putMembers(byte[] out, int offset, Range member) {
+        int count = member.length() == 0 ? 0 : 1;
+        out[offset] = 0;
+        out[offset + 1] = (byte) count;
+        offset += 2;
+        System.arraycopy(bytes, member.start(), out, offset, member.length());
+        return offset + member.length();
+    }
+
+    private static JvmClassPrinter read(byte[] bytes) {
+        try {
+            return new JvmClassPrinter(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String utf8(int offset) throws IOException {
+        if (bytes[offset] != 1)
+            throw new IOException("Expected utf8 constant at " + offset);
+        int length = u2(offset + 1);
+        return new DataInputStream(new ByteArrayInputStream(bytes, offset + 1, length + 2)).readUTF();
+    }
+
+    private int u2(int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private int u4(int offset) {
+        return (u2(offset) << 16) | u2(offset + 2);
+    }
+
+    /**
+     * @param name
+     *                   Name of the member.
+     * @param descriptor
+     *                   Descriptor of the member.
+     */
+    public record Member(@NotNull String name, @NotNull String descriptor) {
+    }
+
+    private record Range(int start, int end) {
+        int length() {
+            return end - start;
+        }
+    }
+}
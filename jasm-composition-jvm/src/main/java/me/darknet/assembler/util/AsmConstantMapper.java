@@ -0,0 +1,149 @@
+package me.darknet.assembler.util;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.ast.primitive.*;
+import me.darknet.assembler.helper.Handle;
+
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.List;
+
+/**
+ * Counterpart of {@link ConstantMapper} which maps constants to the values ASM accepts for {@code ldc}, field values
+ * and bootstrap arguments.
+ */
+public class AsmConstantMapper {
+
+    public static org.objectweb.asm.Handle methodHandleFromArray(ASTArray array) {
+        Handle.Kind kind = Handle.Kind.from(array.values().get(0).content());
+        String name = array.<ASTIdentifier>value(1).literal();
+        String descriptor = array.<ASTIdentifier>value(2).literal();
+        return methodHandle(kind, name, descriptor);
+    }
+
+    public static org.objectweb.asm.Handle methodHandleFromHandle(Handle handle) {
+        return methodHandle(handle.kind(), handle.name(), handle.descriptor());
+    }
+
+    private static org.objectweb.asm.Handle methodHandle(Handle.Kind kind, String name, String descriptor) {
+        var split = name.split("\\.");
+        String className = split[0];
+        String methodName = split[1];
+        return new org.objectweb.asm.Handle(
+                kind.ordinal() + 1, className, methodName, descriptor, kind == Handle.Kind.INVOKE_INTERFACE
+        );
+    }
+
+    public static ConstantDynamic constantDynamicFromArray(ASTArray array) {
+        String name = array.<ASTIdentifier>value(0).literal();
+        String descriptor = array.<ASTIdentifier>value(1).literal();
+
+        org.objectweb.asm.Handle bootstrapMethod = methodHandleFromArray(array.value(2));
+
+        ASTElement argsArray = array.value(3);
+        ASTArray args = argsArray instanceof ASTArray ? (ASTArray) argsArray : ASTEmpty.EMPTY_ARRAY;
+
+        List<Object> constantArgs = args.values().stream().map(AsmConstantMapper::fromConstant).toList();
+
+        return new ConstantDynamic(name, descriptor, bootstrapMethod, constantArgs.toArray());
+    }
+
+    public static Object fromConstant(ASTElement element) {
+        return switch (element.type()) {
+            case CHARACTER -> {
+                ASTCharacter character = (ASTCharacter) element;
+                assert character.content() != null;
+                yield (int) character.content().charAt(0);
+            }
+            case NUMBER -> {
+                ASTNumber number = (ASTNumber) element;
+                if (number.isFloatingPoint()) {
+                    if (number.isWide()) {
+                        yield number.asDouble();
+                    } else {
+                        yield number.asFloat();
+                    }
+                } else {
+                    if (number.isWide()) {
+                        yield number.asLong();
+                    } else {
+                        yield number.asInt();
+                    }
+                }
+            }
+            case STRING -> element.value().content();
+            case IDENTIFIER -> {
+                ASTIdentifier identifier = (ASTIdentifier) element;
+                assert identifier.content() != null;
+                char first = identifier.content().charAt(0);
+                yield switch (first) {
+                    case 'L' -> {
+                        // if last is `;` then it's a class type, if not could be a short handle
+                        char last = identifier.content().charAt(identifier.content().length() - 1);
+                        if (last == ';') {
+                            yield Type.getType(identifier.literal());
+                        } else {
+                            Handle handle = Handle.HANDLE_SHORTCUTS.get(identifier.literal());
+                            if (handle != null) {
+                                yield methodHandleFromHandle(handle);
+                            }
+                            throw new IllegalStateException("Unexpected value: " + first);
+                        }
+                    }
+                    case '(' -> Type.getMethodType(identifier.literal());
+                    case '[' -> Type.getType(identifier.literal());
+                    default -> switch (identifier.literal().toLowerCase()) {
+                        case "true" -> 1;
+                        case "false" -> 0;
+                        case "nan", "nand" -> Double.NaN;
+                        case "nanf" -> Float.NaN;
+                        case "+infinity", "+infinityd", "infinity", "infinityd" -> Double.POSITIVE_INFINITY;
+                        case "+infinityf", "infinityf" -> Float.POSITIVE_INFINITY;
+                        case "-infinity", "-infinityd" -> Double.NEGATIVE_INFINITY;
+                        case "-infinityf" -> Float.NEGATIVE_INFINITY;
+                        default -> {
+                            // maybe is a short handle
+                            Handle handle = Handle.HANDLE_SHORTCUTS.get(identifier.literal());
+                            if (handle != null) {
+                                yield methodHandleFromHandle(handle);
+                            }
+                            throw new IllegalStateException("Unexpected value: " + first);
+                        }
+                    };
+                };
+            }
+            case ARRAY -> {
+                ASTArray array = (ASTArray) element;
+                ASTElement last = array.values().get(array.values().size() - 1);
+                assert last != null;
+                yield switch (last.type()) {
+                    case ARRAY, EMPTY -> constantDynamicFromArray(array);
+                    case IDENTIFIER -> methodHandleFromArray(array);
+                    default -> throw new IllegalStateException("Unexpected value: " + last.type());
+                };
+            }
+            default -> throw new IllegalStateException("Unexpected value: " + element.type());
+        };
+    }
+
+    /**
+     * @param kind
+     *             Name of a primitive type, as used by {@code newarray}.
+     *
+     * @return Operand of {@code newarray} for the type.
+     */
+    public static int newArrayType(String kind) {
+        return switch (kind.charAt(0)) {
+            case 'l' -> Opcodes.T_LONG;
+            case 'd' -> Opcodes.T_DOUBLE;
+            case 'i' -> Opcodes.T_INT;
+            case 'f' -> Opcodes.T_FLOAT;
+            case 'c' -> Opcodes.T_CHAR;
+            case 's' -> Opcodes.T_SHORT;
+            case 'b' -> kind.charAt(1) == 'o' ? Opcodes.T_BOOLEAN : Opcodes.T_BYTE;
+            default -> throw new IllegalStateException("Unexpected value: " + kind);
+        };
+    }
+}
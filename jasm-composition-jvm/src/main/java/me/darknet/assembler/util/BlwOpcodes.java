@@ -1,5 +1,8 @@
 package me.darknet.assembler.util;
 
+import me.darknet.assembler.instructions.Instructions;
+import me.darknet.assembler.instructions.jvm.JvmInstructions;
+
 import dev.xdark.blw.code.JavaOpcodes;
 
 import java.lang.reflect.Field;
@@ -9,6 +12,11 @@
 public class BlwOpcodes {
 
     private static final Map<String, Integer> opcodes = new HashMap<>();
+    private static final String[] names = new String[256];
+    private static final String[] interfaceNames = new String[256];
+    // indexed by the opcodes of JvmInstructions
+    private static final int[] instructionOpcodes;
+    private static final boolean[] instructionInterfaces;
 
     public static int opcode(String name) {
         if (name.endsWith("interface")) {
@@ -21,16 +29,81 @@ public static int opcode(String name) {
         return opcodes.get(name);
     }
 
+    /**
+     * @param instruction
+     *                    Opcode of the instruction within {@link JvmInstructions}.
+     *
+     * @return JVM opcode of the instruction, or {@code -1} for intrinsics such as {@code line}.
+     */
+    public static int opcode(int instruction) {
+        if (instruction < 0 || instruction >= instructionOpcodes.length)
+            return -1;
+        return instructionOpcodes[instruction];
+    }
+
+    /**
+     * @param instruction
+     *                    Opcode of the instruction within {@link JvmInstructions}.
+     *
+     * @return {@code true} when the instruction targets an interface method.
+     */
+    public static boolean isInterface(int instruction) {
+        return instruction >= 0 && instruction < instructionInterfaces.length && instructionInterfaces[instruction];
+    }
+
+    /**
+     * @param opcode
+     *               JVM opcode.
+     *
+     * @return Mnemonic of the opcode.
+     */
+    public static String name(int opcode) {
+        return names[opcode];
+    }
+
+    /**
+     * @param opcode
+     *                  JVM opcode.
+     * @param itf
+     *                  {@code true} when the instruction targets an interface method.
+     *
+     * @return Mnemonic of the opcode, with the {@code interface} suffix for non-{@code invokeinterface} invokes
+     *         on interface methods.
+     */
+    public static String name(int opcode, boolean itf) {
+        if (itf && interfaceNames[opcode] != null)
+            return interfaceNames[opcode];
+        return names[opcode];
+    }
+
     static {
         Field[] fields = JavaOpcodes.class.getFields();
         for (Field field : fields) {
             try {
-                opcodes.put(field.getName().toLowerCase(), field.getInt(null));
+                String name = field.getName().toLowerCase();
+                int opcode = field.getInt(null);
+                opcodes.put(name, opcode);
+                if (opcode >= 0 && opcode < names.length)
+                    names[opcode] = name;
             } catch (IllegalAccessException e) {
                 throw new ExceptionInInitializerError(e);
             }
         }
         opcodes.put("line", -1);
+        for (int opcode : new int[] { JavaOpcodes.INVOKEVIRTUAL, JavaOpcodes.INVOKESPECIAL, JavaOpcodes.INVOKESTATIC })
+            interfaceNames[opcode] = names[opcode] + "interface";
+
+        // resolve every mnemonic of the instruction set once, so the compiler can dispatch on the processed opcode
+        Instructions<?> instructions = JvmInstructions.INSTANCE;
+        instructionOpcodes = new int[instructions.size()];
+        instructionInterfaces = new boolean[instructions.size()];
+        for (int i = 0; i < instructions.size(); i++) {
+            String name = instructions.name(i);
+            boolean itf = name.endsWith("interface");
+            String key = itf && !name.equals("invokeinterface") ? name.substring(0, name.length() - 9) : name;
+            instructionInterfaces[i] = itf;
+            instructionOpcodes[i] = opcodes.getOrDefault(key, -1);
+        }
     }
 
 }
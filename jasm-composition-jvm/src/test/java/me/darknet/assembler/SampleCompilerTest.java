@@ -1,21 +1,50 @@
 package me.darknet.assembler;
 
 import dev.xdark.blw.type.Types;
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.ast.primitive.ASTInstruction;
+import me.darknet.assembler.ast.specific.ASTClass;
+import me.darknet.assembler.ast.specific.ASTMethod;
+import me.darknet.assembler.compile.JvmCompiler;
+import me.darknet.assembler.compile.TypeCache;
+import me.darknet.assembler.compile.visitor.JavaCompileResult;
 import me.darknet.assembler.compile.analysis.AnalysisResults;
+import me.darknet.assembler.compile.analysis.AnalysisStatistics;
 import me.darknet.assembler.compile.analysis.Local;
+import me.darknet.assembler.compile.analysis.MethodAnalysisLookup;
 import me.darknet.assembler.compile.analysis.Value;
 import me.darknet.assembler.compile.analysis.Values;
 import me.darknet.assembler.compile.analysis.frame.Frame;
 import me.darknet.assembler.compile.analysis.frame.ValuedFrame;
 import me.darknet.assembler.compile.analysis.BasicMethodValueLookup;
+import me.darknet.assembler.compile.analysis.jvm.MethodValueProvider;
 import me.darknet.assembler.compile.analysis.jvm.ValuedJvmAnalysisEngine;
+import me.darknet.assembler.compile.optimize.OptimizationLevel;
+import me.darknet.assembler.compiler.CompilationCounter;
+import me.darknet.assembler.compiler.CompilationListener;
+import me.darknet.assembler.compiler.CompilationPhase;
 import me.darknet.assembler.compiler.ReflectiveInheritanceChecker;
+import me.darknet.assembler.helper.Processor;
+import me.darknet.assembler.parser.BytecodeFormat;
+import me.darknet.assembler.printer.DisassemblyCache;
+import me.darknet.assembler.printer.JvmASTBuilder;
 import me.darknet.assembler.printer.JvmClassPrinter;
+import me.darknet.assembler.printer.LazyJvmClassPrinter;
 import me.darknet.assembler.printer.PrintContext;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.ThrowingSupplier;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -28,8 +57,13 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
@@ -57,6 +91,38 @@ void basic() throws Throwable {
                 assertTrue(varNames.contains("ex"));
             });
         }
+
+        @Test
+        void liveRanges() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-variables.jasm");
+            String source = arg.source.get();
+            processJvm(source, new TestJvmCompilerOptions(), result -> {
+                Map<String, int[]> ranges = new HashMap<>();
+                new ClassReader(result.representation().classFile()).accept(new ClassVisitor(Opcodes.ASM9) {
+                    @Override
+                    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                            String[] exceptions) {
+                        return new MethodVisitor(Opcodes.ASM9) {
+                            @Override
+                            public void visitLocalVariable(String name, String descriptor, String signature,
+                                    Label start, Label end, int index) {
+                                ranges.put(name, new int[] { start.getOffset(), end.getOffset() });
+                            }
+                        };
+                    }
+                }, 0);
+
+                // Parameters cover the whole method, other variables only the blocks they are live in
+                int[] self = ranges.get("this");
+                int[] hundred = ranges.get("hundred");
+                int[] msPerTick = ranges.get("msPerTick");
+                int[] ex = ranges.get("ex");
+                assertEquals(0, self[0]);
+                assertTrue(hundred[1] <= msPerTick[0]);
+                assertTrue(msPerTick[1] <= ex[0]);
+                assertEquals(self[1], ex[1]);
+            });
+        }
     }
 
     @Nested
@@ -110,6 +176,261 @@ void methodLookup() throws Throwable {
             });
         }
 
+        @Test
+        void methodLookupProvider() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-string-ops.jasm");
+            String source = arg.source.get();
+            // Every String.length() call yields 1, taking precedence over the built-in function
+            MethodValueProvider provider = table -> table
+                    .put("java/lang/String.length()I", (instruction, context, parameters) -> Values.valueOf(1));
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.engineProvider(lookup -> {
+                ValuedJvmAnalysisEngine engine = new ValuedJvmAnalysisEngine(lookup);
+                engine.setMethodValueLookup(new BasicMethodValueLookup(List.of(provider)));
+                return engine;
+            });
+            processJvm(source, options, result -> {
+                AnalysisResults results = result.analysisLookup().allResults().values().iterator().next();
+                assertNull(results.getAnalysisFailure());
+                results.terminalFrames().values().stream().map(f -> (ValuedFrame) f).forEach(frame -> {
+                    Value returnValue = frame.peek();
+                    if (returnValue instanceof Value.KnownIntValue known)
+                        assertEquals(-25, known.value());
+                    else
+                        fail("Unexpected ret-val: " + returnValue);
+                });
+            });
+        }
+
+        @Test
+        void pruneKnownBranches() throws Throwable {
+            // The switch is on a constant, so the path to the throw is dead
+            TestArgument arg = TestArgument.fromName("Example-athrow-before-return.jasm");
+            String source = arg.source.get();
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.engineProvider(ValuedJvmAnalysisEngine::new);
+            processJvm(source, options, result -> {
+                AnalysisResults results = result.analysisLookup().allResults().values().iterator().next();
+                assertNull(results.getAnalysisFailure());
+                assertEquals(2, results.terminalFrames().size());
+            });
+
+            options.pruneKnownBranches(true);
+            processJvm(source, options, result -> {
+                AnalysisResults results = result.analysisLookup().allResults().values().iterator().next();
+                assertNull(results.getAnalysisFailure());
+                assertTrue(results.isComplete());
+                // Only the return is reached
+                assertEquals(1, results.terminalFrames().size());
+                ValuedFrame frame = (ValuedFrame) results.terminalFrames().firstEntry().getValue();
+                assertEquals(new Value.KnownStringValue("foo"), frame.peek());
+            });
+        }
+
+        @Test
+        void peepholeOptimization() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-peephole.jasm");
+            String source = arg.source.get();
+            byte[][] plain = new byte[1][];
+            processJvm(source, new TestJvmCompilerOptions(), result -> plain[0] = result.representation().classFile());
+
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.optimization(OptimizationLevel.FULL);
+            processJvm(source, options, result -> {
+                onlyResults(result);
+                byte[] classFile = result.representation().classFile();
+                assertTrue(classFile.length < plain[0].length);
+
+                List<Integer> opcodes = opcodes(classFile);
+                assertFalse(opcodes.contains(Opcodes.ISTORE));
+                assertFalse(opcodes.contains(Opcodes.DUP));
+                assertFalse(opcodes.contains(Opcodes.LOOKUPSWITCH));
+                assertTrue(opcodes.contains(Opcodes.TABLESWITCH));
+                // Line directives don't keep the method from being optimized, and are kept themselves
+                assertEquals(Set.of(3, 5, 7), lines(classFile));
+
+                // Optimized code still runs the same
+                var method = define(classFile).getMethod("exampleMethod", int.class);
+                assertEquals(0, method.invoke(null, 0));
+                assertEquals(1, method.invoke(null, 1));
+            });
+        }
+
+        @Test
+        void constantFolding() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-constant-fold.jasm");
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.foldConstants(true);
+            processJvm(arg.source.get(), options, result -> {
+                onlyResults(result);
+                byte[] classFile = result.representation().classFile();
+
+                // Only the additions of the system property and the parameter are left
+                List<Integer> opcodes = opcodes(classFile);
+                assertFalse(opcodes.contains(Opcodes.IMUL));
+                assertEquals(2, opcodes.stream().filter(opcode -> opcode == Opcodes.IADD).count());
+                // The property is read when the method runs, not when it is compiled
+                assertEquals(List.of("java/lang/System.getProperty", "java/lang/Integer.parseInt"), calls(classFile));
+                // Line directives are kept around the folded code
+                assertEquals(Set.of(4, 5), lines(classFile));
+
+                var method = define(classFile).getMethod("exampleMethod", int.class);
+                assertEquals(57, method.invoke(null, 0));
+                assertEquals(58, method.invoke(null, 1));
+                System.setProperty("jasm.constant-fold", "100");
+                try {
+                    assertEquals(157, method.invoke(null, 0));
+                } finally {
+                    System.clearProperty("jasm.constant-fold");
+                }
+            });
+        }
+
+        @Test
+        void compactLocals() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-compact-locals.jasm");
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.compactLocals(true);
+            processJvm(arg.source.get(), options, result -> {
+                AnalysisResults results = onlyResults(result);
+                byte[] classFile = result.representation().classFile();
+
+                // The ints take turns in one slot, the long can't share it and gets the next two
+                assertEquals(4, maxLocals(classFile));
+                assertEquals(Map.of("x", 0, "a", 1, "b", 1, "c", 2, "d", 1), localIndices(classFile));
+
+                // Variables sharing a slot keep their own names in the analysis frames
+                assertEquals(Set.of("a", "b", "d"), namesAt(results, 1));
+
+                var method = define(classFile).getMethod("exampleMethod", int.class);
+                assertEquals(7, method.invoke(null, 1));
+                assertEquals(5, method.invoke(null, 0));
+            });
+        }
+
+        @Test
+        void compactLocalsAcrossHandler() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-compact-locals-handler.jasm");
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.compactLocals(true);
+            processJvm(arg.source.get(), options, result -> {
+                AnalysisResults results = onlyResults(result);
+                byte[] classFile = result.representation().classFile();
+
+                // The handler reads the fallback, so it stays live over the whole try range and the quotient written
+                // in the range can't take its slot. The result only appears after the fallback is last read.
+                assertEquals(3, maxLocals(classFile));
+                assertEquals(Map.of("x", 0, "fallback", 1, "quotient", 2, "result", 1), localIndices(classFile));
+                assertEquals(Set.of("fallback", "result"), namesAt(results, 1));
+                assertEquals(Set.of(8, 17), lines(classFile));
+
+                var method = define(classFile).getMethod("exampleMethod", int.class);
+                assertEquals(20, method.invoke(null, 5));
+                assertEquals(5, method.invoke(null, 0));
+            });
+        }
+
+        @Test
+        void sharedTypeCache() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-string-ops.jasm");
+            String source = arg.source.get();
+            TypeCache types = new TypeCache();
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.typeCache(types);
+            processJvm(source, options, null);
+            assertSame(types.instanceType("java/lang/String"), types.instanceType("java/lang/String"));
+            int size = types.size();
+            assertTrue(size > 0);
+
+            // Compiling the same class again only finds types which are already in the cache
+            processJvm(source, options, null);
+            assertEquals(size, types.size());
+        }
+
+        @Test
+        void compilationListener() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-string-ops.jasm");
+            String source = arg.source.get();
+            List<String> events = new ArrayList<>();
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.listener(new CompilationListener() {
+                @Override
+                public void onPhaseStart(@NotNull CompilationPhase phase, @Nullable String subject) {
+                    events.add("start " + phase);
+                }
+
+                @Override
+                public void onCount(@NotNull CompilationPhase phase, @NotNull CompilationCounter counter, long value) {
+                    if (value > 0)
+                        events.add(counter + " " + phase);
+                }
+
+                @Override
+                public void onPhaseEnd(@NotNull CompilationPhase phase, @Nullable String subject) {
+                    events.add("end " + phase);
+                }
+            });
+            processJvm(source, options, result -> {
+                assertEquals("start TRANSFORM", events.get(0));
+                assertTrue(events.contains("INSTRUCTIONS ANALYSIS"));
+                assertTrue(events.contains("FRAMES ANALYSIS"));
+                assertTrue(events.contains("BYTES WRITE"));
+                assertEquals("end WRITE", events.get(events.size() - 1));
+                for (CompilationPhase phase : CompilationPhase.values()) {
+                    assertEquals(
+                            events.stream().filter(("start " + phase)::equals).count(),
+                            events.stream().filter(("end " + phase)::equals).count()
+                    );
+                }
+            });
+        }
+
+        @Test
+        void statistics() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-exception.jasm");
+            String source = arg.source.get();
+            processJvm(source, new TestJvmCompilerOptions(), result -> {
+                MethodAnalysisLookup lookup = result.analysisLookup();
+                AnalysisStatistics statistics = lookup.results("exampleMethod", "()LExample;").statistics();
+                assertEquals(1, statistics.methods());
+                // entry point, exception handler and branch target
+                assertTrue(statistics.forks() >= 3, "forks: " + statistics.forks());
+                assertTrue(statistics.instructions() >= 12, "instructions: " + statistics.instructions());
+                assertTrue(statistics.peakQueue() >= 2, "peak queue: " + statistics.peakQueue());
+                assertTrue(statistics.changedMerges() <= statistics.merges());
+
+                assertEquals(statistics, lookup.statistics());
+                assertEquals(1, lookup.mostExpensive(10).size());
+            });
+        }
+
+        @Test
+        void instructionBudget() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-exception.jasm");
+            String source = arg.source.get();
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.analysisInstructionBudget(3);
+            processJvm(source, options, result -> {
+                AnalysisResults results = result.analysisLookup().results("exampleMethod", "()LExample;");
+                assertNull(results.getAnalysisFailure());
+                assertFalse(results.isComplete());
+                assertEquals(3, results.statistics().instructions());
+            });
+        }
+
+        @Test
+        void cancellation() throws Throwable {
+            TestArgument arg = TestArgument.fromName("Example-exception.jasm");
+            String source = arg.source.get();
+            TestJvmCompilerOptions options = new TestJvmCompilerOptions();
+            options.cancellation(() -> true);
+            processAnalysisFailJvm(source, options, result -> {
+                AnalysisResults results = result.analysisLookup().results("exampleMethod", "()LExample;");
+                assertFalse(results.isComplete());
+                assertEquals(0, results.statistics().instructions());
+            });
+        }
+
         @Test
         void fieldLookup() throws Throwable {
             TestArgument arg = TestArgument.fromName("Example-getstatic.jasm");
@@ -222,6 +543,137 @@ void all(TestArgument arg) throws Throwable {
             });
         }
 
+        @ParameterizedTest
+        @MethodSource("getSources")
+        void parallelPrinting(TestArgument arg) throws Throwable {
+            String source = arg.source.get();
+            processJvm(source, new TestJvmCompilerOptions(), result -> {
+                byte[] classFile = result.representation().classFile();
+                PrintContext<?> sequentialCtx = new PrintContext<>("    ");
+                new JvmClassPrinter(classFile).print(sequentialCtx);
+
+                JvmClassPrinter parallelPrinter = new JvmClassPrinter(classFile);
+                parallelPrinter.setExecutor(ForkJoinPool.commonPool());
+                PrintContext<?> parallelCtx = new PrintContext<>("    ");
+                parallelPrinter.print(parallelCtx);
+
+                assertEquals(
+                        sequentialCtx.toString(), parallelCtx.toString(),
+                        "Parallel printing differs from sequential printing: " + arg.name
+                );
+            });
+        }
+
+        @ParameterizedTest
+        @MethodSource("getSources")
+        void disassemblyCache(TestArgument arg, @TempDir Path dir) throws Throwable {
+            String source = arg.source.get();
+            processJvm(source, new TestJvmCompilerOptions(), result -> {
+                byte[] classFile = result.representation().classFile();
+                PrintContext<?> ctx = new PrintContext<>("    ");
+                new JvmClassPrinter(classFile).print(ctx);
+
+                var settings = new DisassemblyCache.Settings("    ");
+                DisassemblyCache cache = new DisassemblyCache(Long.MAX_VALUE, dir);
+                assertEquals(ctx.toString(), cache.print(classFile, settings));
+                assertEquals(1, cache.size());
+                assertEquals(ctx.toString(), cache.print(classFile, settings));
+
+                // A new cache without room in memory reads the entry back from the directory
+                DisassemblyCache diskCache = new DisassemblyCache(0, dir);
+                assertEquals(ctx.toString(), diskCache.get(DisassemblyCache.key(classFile, settings)));
+                assertEquals(0, diskCache.size());
+
+                // Other settings are other entries
+                var tabs = new DisassemblyCache.Settings("\t", "L");
+                assertNotEquals(DisassemblyCache.key(classFile, settings), DisassemblyCache.key(classFile, tabs));
+                assertNull(cache.get(DisassemblyCache.key(classFile, tabs)));
+            });
+        }
+
+        @ParameterizedTest
+        @MethodSource("getSources")
+        void lazyMemberPrinting(TestArgument arg) throws Throwable {
+            String source = arg.source.get();
+            processJvm(source, new TestJvmCompilerOptions(), result -> {
+                byte[] classFile = result.representation().classFile();
+                JvmClassPrinter printer = new JvmClassPrinter(classFile);
+                LazyJvmClassPrinter lazyPrinter = new LazyJvmClassPrinter(classFile);
+                for (LazyJvmClassPrinter.Member member : lazyPrinter.methods()) {
+                    PrintContext<?> ctx = new PrintContext<>("    ");
+                    printer.method(member.name(), member.descriptor()).print(ctx);
+                    PrintContext<?> lazyCtx = new PrintContext<>("    ");
+                    lazyPrinter.method(member.name(), member.descriptor()).print(lazyCtx);
+                    assertEquals(ctx.toString(), lazyCtx.toString(), "Method differs: " + member);
+                }
+                for (LazyJvmClassPrinter.Member member : lazyPrinter.fields()) {
+                    PrintContext<?> ctx = new PrintContext<>("    ");
+                    printer.field(member.name(), member.descriptor()).print(ctx);
+                    PrintContext<?> lazyCtx = new PrintContext<>("    ");
+                    lazyPrinter.field(member.name(), member.descriptor()).print(lazyCtx);
+                    assertEquals(ctx.toString(), lazyCtx.toString(), "Field differs: " + member);
+                }
+                assertNull(lazyPrinter.method("<missing>", "()V"));
+            });
+        }
+
+        @ParameterizedTest
+        @MethodSource("getSources")
+        void astBuilder(TestArgument arg) throws Throwable {
+            String source = arg.source.get();
+            processJvm(source, new TestJvmCompilerOptions(), result -> {
+                byte[] classFile = result.representation().classFile();
+                PrintContext<?> ctx = new PrintContext<>("    ");
+                new JvmClassPrinter(classFile).print(ctx);
+                String printed = ctx.toString();
+
+                // The built AST matches the AST of the printed class
+                ASTClass built = new JvmASTBuilder(classFile).build();
+                List<ASTElement> processed = new ArrayList<>();
+                Processor.processSource(printed, "<printed>", processed::addAll, errors -> fail(errors.toString()),
+                        BytecodeFormat.JVM);
+                ASTClass expected = assertInstanceOf(ASTClass.class, processed.get(0));
+                assertEquals(expected.contents().size(), built.contents().size());
+                for (int i = 0; i < expected.contents().size(); i++) {
+                    if (!(expected.content(i) instanceof ASTMethod expectedMethod))
+                        continue;
+                    ASTMethod builtMethod = assertInstanceOf(ASTMethod.class, built.content(i));
+                    assertEquals(expectedMethod.getName().content(), builtMethod.getName().content());
+                    assertEquals(expectedMethod.instructions(), builtMethod.instructions());
+                    if (expectedMethod.code() == null)
+                        continue;
+                    List<String> expectedCode = expectedMethod.code().instructions().stream()
+                            .map(ASTInstruction::content).toList();
+                    List<String> builtCode = builtMethod.code().instructions().stream()
+                            .map(ASTInstruction::content).toList();
+                    assertEquals(expectedCode, builtCode, "Code differs: " + expectedMethod.getName().content());
+                }
+
+                // And compiles to the same class as the printed class
+                assertEquals(
+                        printCompiled(processed), printCompiled(List.of(built)), "Rebuilt class differs: " + arg.name
+                );
+            });
+        }
+
+        @ParameterizedTest
+        @MethodSource("getSources")
+        void withoutAnalysis(TestArgument arg) throws Throwable {
+            String source = arg.source.get();
+            processJvm(source, new TestJvmCompilerOptions(), analyzed -> {
+                processJvm(source, new TestJvmCompilerOptions().analysis(false), direct -> {
+                    assertTrue(direct.analysisLookup().allResults().isEmpty());
+
+                    // Written straight to ASM, but to the same class apart from the variable table
+                    assertArrayEquals(
+                            withoutDebugInfo(analyzed.representation().classFile()),
+                            withoutDebugInfo(direct.representation().classFile()),
+                            "Class written without analysis differs: " + arg.name
+                    );
+                });
+            });
+        }
+
         @Test
         void supportInfinity() throws Throwable {
             TestArgument arg = TestArgument.fromName("Example-infinity.jasm");
@@ -254,6 +706,20 @@ void supportNan() throws Throwable {
             });
         }
 
+        private static String printCompiled(List<ASTElement> ast) throws IOException {
+            byte[] classFile = new JvmCompiler().compile(ast, new TestJvmCompilerOptions())
+                    .ifErr(errors -> fail("Failed to compile: " + errors)).get().representation().classFile();
+            PrintContext<?> ctx = new PrintContext<>("    ");
+            new JvmClassPrinter(classFile).print(ctx);
+            return ctx.toString();
+        }
+
+        private static byte[] withoutDebugInfo(byte[] classFile) {
+            ClassWriter writer = new ClassWriter(0);
+            new ClassReader(classFile).accept(writer, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            return writer.toByteArray();
+        }
+
         public static List<TestArgument> getSources() {
             try {
                 BiPredicate<Path, BasicFileAttributes> filter = (path, attrib) -> attrib.isRegularFile()
@@ -266,6 +732,186 @@ public static List<TestArgument> getSources() {
         }
     }
 
+    /**
+     * @return Analysis results of the only method of the compiled class, which has to be analyzed without failure.
+     */
+    private static AnalysisResults onlyResults(JavaCompileResult result) {
+        Map<?, AnalysisResults> allResults = result.analysisLookup().allResults();
+        assertEquals(1, allResults.size());
+        AnalysisResults results = allResults.values().iterator().next();
+        assertNull(results.getAnalysisFailure());
+        return results;
+    }
+
+    /**
+     * @return Opcodes of the instructions of all methods of the class, in order.
+     */
+    private static List<Integer> opcodes(byte[] classFile) {
+        List<Integer> opcodes = new ArrayList<>();
+        visitMethods(classFile, new MethodVisitor(Opcodes.ASM9) {
+            @Override
+            public void visitInsn(int opcode) {
+                opcodes.add(opcode);
+            }
+
+            @Override
+            public void visitIntInsn(int opcode, int operand) {
+                opcodes.add(opcode);
+            }
+
+            @Override
+            public void visitVarInsn(int opcode, int varIndex) {
+                opcodes.add(opcode);
+            }
+
+            @Override
+            public void visitTypeInsn(int opcode, String type) {
+                opcodes.add(opcode);
+            }
+
+            @Override
+            public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                opcodes.add(opcode);
+            }
+
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String descriptor,
+                    boolean isInterface) {
+                opcodes.add(opcode);
+            }
+
+            @Override
+            public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+                    Object... bootstrapMethodArguments) {
+                opcodes.add(Opcodes.INVOKEDYNAMIC);
+            }
+
+            @Override
+            public void visitJumpInsn(int opcode, Label label) {
+                opcodes.add(opcode);
+            }
+
+            @Override
+            public void visitLdcInsn(Object value) {
+                opcodes.add(Opcodes.LDC);
+            }
+
+            @Override
+            public void visitIincInsn(int varIndex, int increment) {
+                opcodes.add(Opcodes.IINC);
+            }
+
+            @Override
+            public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+                opcodes.add(Opcodes.TABLESWITCH);
+            }
+
+            @Override
+            public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+                opcodes.add(Opcodes.LOOKUPSWITCH);
+            }
+
+            @Override
+            public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+                opcodes.add(Opcodes.MULTIANEWARRAY);
+            }
+        });
+        return opcodes;
+    }
+
+    /**
+     * @return Methods called by all methods of the class, as {@code owner.name}, in order.
+     */
+    private static List<String> calls(byte[] classFile) {
+        List<String> calls = new ArrayList<>();
+        visitMethods(classFile, new MethodVisitor(Opcodes.ASM9) {
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String descriptor,
+                    boolean isInterface) {
+                calls.add(owner + '.' + name);
+            }
+        });
+        return calls;
+    }
+
+    /**
+     * @return Lines of the line number tables of all methods of the class.
+     */
+    private static Set<Integer> lines(byte[] classFile) {
+        Set<Integer> lines = new HashSet<>();
+        visitMethods(classFile, new MethodVisitor(Opcodes.ASM9) {
+            @Override
+            public void visitLineNumber(int line, Label start) {
+                lines.add(line);
+            }
+        });
+        return lines;
+    }
+
+    /**
+     * @return Slot of each variable in the variable tables of all methods of the class.
+     */
+    private static Map<String, Integer> localIndices(byte[] classFile) {
+        Map<String, Integer> indices = new HashMap<>();
+        visitMethods(classFile, new MethodVisitor(Opcodes.ASM9) {
+            @Override
+            public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end,
+                    int index) {
+                Integer previous = indices.put(name, index);
+                assertTrue(previous == null || previous == index, "Variable " + name + " moved between slots");
+            }
+        });
+        return indices;
+    }
+
+    /**
+     * @return Highest number of slots of the methods of the class.
+     */
+    private static int maxLocals(byte[] classFile) {
+        int[] locals = new int[1];
+        visitMethods(classFile, new MethodVisitor(Opcodes.ASM9) {
+            @Override
+            public void visitMaxs(int maxStack, int maxLocals) {
+                locals[0] = Math.max(locals[0], maxLocals);
+            }
+        });
+        return locals[0];
+    }
+
+    /**
+     * @return Names of the variables in a slot across all frames of the analysis.
+     */
+    private static Set<String> namesAt(AnalysisResults results, int index) {
+        return results.frames().values().stream()
+                .flatMap(Frame::locals)
+                .filter(local -> local.index() == index)
+                .map(Local::name)
+                .collect(Collectors.toSet());
+    }
+
+    private static void visitMethods(byte[] classFile, MethodVisitor visitor) {
+        new ClassReader(classFile).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                    String[] exceptions) {
+                return visitor;
+            }
+        }, 0);
+    }
+
+    /**
+     * @return Class of the class file, loaded by a loader of its own.
+     */
+    private static Class<?> define(byte[] classFile) {
+        return new Loader().define(classFile);
+    }
+
+    private static final class Loader extends ClassLoader {
+        private Class<?> define(byte[] bytes) {
+            return defineClass(null, bytes, 0, bytes.length);
+        }
+    }
+
     private record TestArgument(String name, ThrowingSupplier<String> source) {
         public static TestArgument fromName(String name) {
             Path path = Paths.get(System.getProperty("user.dir")).resolve(PATH_PREFIX).resolve(name);
@@ -2,6 +2,7 @@
 
 import me.darknet.assembler.ast.ASTElement;
 import me.darknet.assembler.ast.ElementType;
+import me.darknet.assembler.instructions.Instructions;
 import me.darknet.assembler.util.CollectionUtil;
 
 import org.jetbrains.annotations.NotNull;
@@ -15,6 +16,7 @@ public class ASTInstruction extends ASTElement {
 
     private final ASTIdentifier identifier;
     private final List<@Nullable ASTElement> arguments;
+    private int opcode = Instructions.UNKNOWN;
 
     public ASTInstruction(ASTIdentifier identifier, List<@Nullable ASTElement> arguments) {
         super(ElementType.CODE_INSTRUCTION, CollectionUtil.mergeNonNull(arguments, identifier));
@@ -39,6 +41,24 @@ public ASTIdentifier identifier() {
         return arguments;
     }
 
+    /**
+     * @return Opcode of the mnemonic within its instruction set, resolved once during processing.
+     *         {@link Instructions#UNKNOWN} for labels and unprocessed instructions.
+     *
+     * @see Instructions#opcode(String)
+     */
+    public int opcode() {
+        return opcode;
+    }
+
+    /**
+     * @param opcode
+     *               Opcode of the mnemonic within its instruction set.
+     */
+    public void setOpcode(int opcode) {
+        this.opcode = opcode;
+    }
+
     @SuppressWarnings("unchecked")
     public <T extends ASTElement> T argument(int index, Class<T> type) {
         ASTElement element = arguments.get(index);
@@ -68,13 +68,14 @@ public void accept(ErrorCollector collector, ASTMethodVisitor visitor) {
         };
         if (instructionVisitor != null) {
             int instructionIndex = 0;
+            int lineOpcode = format.getInstructions().opcode("line");
             List<ASTInstruction> localAstInstructions = code.instructions();
             List<Instruction<?>> localIrInstructions = instructions;
             for (ASTInstruction instruction : localAstInstructions) {
                 if (instruction instanceof ASTLabel lab) {
                     instructionVisitor.visitLabel(lab.identifier());
                 } else {
-                    if (!instruction.identifier().content().equals("line"))
+                    if (instruction.opcode() != lineOpcode)
                         instructionVisitor.visitInstruction(instruction);
                     localIrInstructions.get(instructionIndex++).transform(instruction, instructionVisitor);
                 }
@@ -0,0 +1,125 @@
+package me.darknet.assembler.cache;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.parser.BytecodeFormat;
+import me.darknet.assembler.util.AtomicFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Directory of processed ASTs in the form of {@link ASTCodec}, keyed by a hash of the source content. Loading an entry
+ * maps the file into memory and decodes it in one go, skipping tokenizing, parsing and processing of the source.
+ * <p>
+ * The cache only ever holds ASTs which processed without errors. Entries which can't be read, for instance because
+ * they were written by another version, count as missing. Writes go through {@link AtomicFiles}, so one cache
+ * directory can be shared by multiple threads and processes.
+ */
+public class ASTCache {
+    private static final String EXTENSION = ".jasmast";
+    private final Path directory;
+
+    /**
+     * @param directory
+     *                  Directory to keep the entries in, created when the first entry is stored.
+     */
+    public ASTCache(@NotNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param code
+     *               Source code.
+     * @param source
+     *               Name of the source, used in the locations of the loaded AST.
+     * @param format
+     *               Bytecode format of the source.
+     *
+     * @return Processed AST of the source, or {@code null} if there is no usable entry for it.
+     */
+    @Nullable
+    public List<ASTElement> load(@NotNull String code, @Nullable String source, @NotNull BytecodeFormat format) {
+        Path path = path(code, format);
+        if (!Files.isRegularFile(path))
+            return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return ASTCodec.decode(buffer, source, format);
+        } catch (IOException | RuntimeException ex) {
+            // Corrupt, truncated or from another version, will be replaced by the next store
+            return null;
+        }
+    }
+
+    /**
+     * @param code
+     *               Source code.
+     * @param format
+     *               Bytecode format of the source.
+     * @param ast
+     *               Processed AST of the source, without errors.
+     *
+     * @return {@code true} when the entry was written, {@code false} if the AST could not be encoded or written.
+     */
+    public boolean store(@NotNull String code, @NotNull BytecodeFormat format, @NotNull List<ASTElement> ast) {
+        try {
+            AtomicFiles.write(path(code, format), ASTCodec.encode(ast, format));
+            return true;
+        } catch (IOException | IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @param code
+     *               Source code.
+     * @param format
+     *               Bytecode format of the source.
+     *
+     * @return Path of the entry for the source, which may not exist.
+     */
+    @NotNull
+    public Path path(@NotNull String code, @NotNull BytecodeFormat format) {
+        return directory.resolve(key(code, format) + EXTENSION);
+    }
+
+    /**
+     * @return Directory the entries are kept in.
+     */
+    @NotNull
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * @param code
+     *               Source code.
+     * @param format
+     *               Bytecode format of the source.
+     *
+     * @return Hash of the source content, the format and the {@link ASTCodec#VERSION version} of the binary form.
+     */
+    @NotNull
+    public static String key(@NotNull String code, @NotNull BytecodeFormat format) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        digest.update((byte) ASTCodec.VERSION);
+        digest.update((byte) format.ordinal());
+        digest.update(code.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,439 @@
+package me.darknet.assembler.cache;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.ast.ElementType;
+import me.darknet.assembler.ast.primitive.*;
+import me.darknet.assembler.ast.specific.*;
+import me.darknet.assembler.instructions.Instruction;
+import me.darknet.assembler.instructions.Instructions;
+import me.darknet.assembler.parser.BytecodeFormat;
+import me.darknet.assembler.parser.Token;
+import me.darknet.assembler.parser.TokenType;
+import me.darknet.assembler.util.BinaryIO;
+import me.darknet.assembler.util.ElementMap;
+import me.darknet.assembler.util.Location;
+import me.darknet.assembler.util.Pair;
+import me.darknet.assembler.util.Range;
+import me.darknet.assembler.visitor.Modifiers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Compact binary form of a processed AST, as produced by
+ * {@link me.darknet.assembler.parser.processor.ASTProcessor ASTProcessor}.
+ * <p>
+ * Elements are written depth first with a tag per element, integers as variable length and strings only once, later
+ * uses refer back to the first. Token positions are written relative to the previous token. Token locations are kept without their source name, which is given again when
+ * reading, so the same bytes can be read for any file with the same content. Reading rebuilds the elements through
+ * their constructors, without running any of the validation of the processor.
+ */
+public final class ASTCodec {
+    /**
+     * Version of the binary form, bumped whenever the layout changes.
+     */
+    public static final int VERSION = 2;
+    private static final int MAGIC = 0x4A41534D; // JASM
+
+    private static final byte NULL = 0;
+    private static final byte IDENTIFIER = 1;
+    private static final byte NUMBER = 2;
+    private static final byte STRING = 3;
+    private static final byte CHARACTER = 4;
+    private static final byte BOOL = 5;
+    private static final byte COMMENT = 6;
+    private static final byte EMPTY = 7;
+    private static final byte EMPTY_ARRAY = 8;
+    private static final byte EMPTY_CODE = 9;
+    private static final byte EMPTY_OBJECT = 10;
+    private static final byte EMPTY_DECLARATION = 11;
+    private static final byte ARRAY = 12;
+    private static final byte OBJECT = 13;
+    private static final byte DECLARATION = 14;
+    private static final byte CODE = 15;
+    private static final byte INSTRUCTION = 16;
+    private static final byte LABEL = 17;
+    private static final byte TYPE = 18;
+    private static final byte ENUM = 19;
+    private static final byte ANNOTATION = 20;
+    private static final byte INNER = 21;
+    private static final byte EXCEPTION = 22;
+    private static final byte FIELD = 23;
+    private static final byte METHOD = 24;
+    private static final byte CLASS = 25;
+
+    private static final ElementType[] ELEMENT_TYPES = ElementType.values();
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    private static final BytecodeFormat[] FORMATS = BytecodeFormat.values();
+
+    private ASTCodec() {
+    }
+
+    /**
+     * @param ast
+     *               Processed AST.
+     * @param format
+     *               Bytecode format the AST was processed with.
+     *
+     * @return Binary form of the AST.
+     *
+     * @throws IllegalArgumentException
+     *                                  When the AST contains elements which are not produced by the processor.
+     */
+    public static byte[] encode(@NotNull List<ASTElement> ast, @NotNull BytecodeFormat format) {
+        Writer writer = new Writer();
+        writer.writeInt(MAGIC);
+        writer.writeVarInt(VERSION);
+        writer.writeVarInt(format.ordinal());
+        writer.writeList(ast);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @param buffer
+     *               Buffer holding the binary form, read from its current position.
+     * @param source
+     *               Name of the source, used in the locations of the tokens.
+     * @param format
+     *               Bytecode format to process the AST with, must match the one it was written with.
+     *
+     * @return Processed AST.
+     *
+     * @throws IllegalArgumentException
+     *                                  When the buffer does not hold an AST of this version and format.
+     * @throws java.nio.BufferUnderflowException
+     *                                  When the buffer is truncated.
+     */
+    @NotNull
+    public static List<ASTElement> decode(@NotNull ByteBuffer buffer, @Nullable String source,
+            @NotNull BytecodeFormat format) {
+        Reader reader = new Reader(buffer, source, format);
+        if (reader.readInt() != MAGIC)
+            throw new IllegalArgumentException("Not a serialized AST");
+        int version = reader.readVarInt();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported AST version: " + version);
+        int formatIndex = reader.readVarInt();
+        if (formatIndex != format.ordinal())
+            throw new IllegalArgumentException("AST was processed for " + FORMATS[formatIndex] + ", not " + format);
+        return reader.readList();
+    }
+
+    private static final class Writer extends BinaryIO.Writer {
+        private int lastStart;
+        private int lastLine;
+
+        private void writeToken(Token token) {
+            Location location = token.location();
+            if (location == null)
+                throw new IllegalArgumentException("Token without location: " + token.content());
+            Range range = token.range();
+            int start = range.start();
+            int width = range.end() - start;
+            writeString(token.content());
+            writeVarInt(token.type().ordinal());
+            writeSignedVarInt(start - lastStart);
+            writeSignedVarInt(width);
+            writeSignedVarInt(location.line() - lastLine);
+            writeSignedVarInt(location.column());
+            writeSignedVarInt(location.length() - width);
+            lastStart = start;
+            lastLine = location.line();
+        }
+
+        private void writeList(List<? extends ASTElement> elements) {
+            writeVarInt(elements.size());
+            for (ASTElement element : elements)
+                write(element);
+        }
+
+        private void writeMap(ElementMap<ASTIdentifier, ASTElement> map) {
+            writeVarInt(map.size());
+            for (Pair<ASTIdentifier, ASTElement> pair : map.pairs()) {
+                write(pair.first());
+                write(pair.second());
+            }
+        }
+
+        private void writeMember(ASTMember member) {
+            writeList(member.getModifiers().modifiers());
+            write(member.getName());
+            write(member.getDescriptor());
+            write(member.getSignature());
+            writeList(member.getAnnotations());
+        }
+
+        private void write(@Nullable ASTElement element) {
+            if (element == null) {
+                writeByte(NULL);
+            } else if (element == ASTEmpty.EMPTY_ARRAY) {
+                writeByte(EMPTY_ARRAY);
+            } else if (element == ASTEmpty.EMPTY_CODE) {
+                writeByte(EMPTY_CODE);
+            } else if (element == ASTEmpty.EMPTY_OBJECT) {
+                writeByte(EMPTY_OBJECT);
+            } else if (element == ASTEmpty.EMPTY_DECLARATION) {
+                writeByte(EMPTY_DECLARATION);
+            } else if (element instanceof ASTIdentifier) {
+                writeByte(IDENTIFIER);
+                writeToken(element.value());
+            } else if (element instanceof ASTNumber) {
+                writeByte(NUMBER);
+                writeToken(element.value());
+            } else if (element instanceof ASTString) {
+                writeByte(STRING);
+                writeToken(element.value());
+            } else if (element instanceof ASTCharacter) {
+                writeByte(CHARACTER);
+                writeToken(element.value());
+            } else if (element instanceof ASTBool) {
+                writeByte(BOOL);
+                writeToken(element.value());
+            } else if (element instanceof ASTType) {
+                writeByte(TYPE);
+                writeVarInt(element.type().ordinal());
+                writeToken(element.value());
+            } else if (element instanceof ASTComment) {
+                writeByte(COMMENT);
+                writeToken(element.value());
+            } else if (element instanceof ASTEmpty) {
+                writeByte(EMPTY);
+                writeToken(element.value());
+            } else if (element instanceof ASTArray array) {
+                writeByte(ARRAY);
+                writeList(array.values());
+            } else if (element instanceof ASTObject object) {
+                writeByte(OBJECT);
+                writeMap(object.values());
+            } else if (element instanceof ASTDeclaration declaration) {
+                writeByte(DECLARATION);
+                write(declaration.keyword());
+                writeList(declaration.elements());
+            } else if (element instanceof ASTCode code) {
+                writeByte(CODE);
+                writeList(code.instructions());
+            } else if (element instanceof ASTLabel label) {
+                writeByte(LABEL);
+                write(label.identifier());
+            } else if (element instanceof ASTInstruction instruction) {
+                // Opcodes are positions in the instruction table, so they are looked up again from the mnemonic
+                writeByte(INSTRUCTION);
+                write(instruction.identifier());
+                writeList(instruction.arguments());
+            } else if (element instanceof ASTEnum astEnum) {
+                writeByte(ENUM);
+                write(astEnum.enumType());
+                write(astEnum.enumValue());
+            } else if (element instanceof ASTAnnotation annotation) {
+                writeByte(ANNOTATION);
+                write(annotation.classType());
+                writeMap(annotation.values());
+            } else if (element instanceof ASTInner inner) {
+                writeByte(INNER);
+                writeList(inner.getModifiers().modifiers());
+                write(inner.name());
+                write(inner.outerClass());
+                write(inner.innerClass());
+            } else if (element instanceof ASTException exception) {
+                writeByte(EXCEPTION);
+                write(exception.start());
+                write(exception.end());
+                write(exception.handler());
+                write(exception.exceptionType());
+            } else if (element instanceof ASTField field) {
+                writeByte(FIELD);
+                writeMember(field);
+                write(field.getFieldValue());
+            } else if (element instanceof ASTMethod method) {
+                writeByte(METHOD);
+                writeMember(method);
+                writeList(method.parameters());
+                writeList(method.exceptions());
+                write(method.code());
+            } else if (element instanceof ASTClass clazz) {
+                // The descriptor of a class is its name, so it is not written separately
+                writeByte(CLASS);
+                writeList(clazz.getModifiers().modifiers());
+                write(clazz.getName());
+                write(clazz.getSignature());
+                writeList(clazz.getAnnotations());
+                write(clazz.getSourceFile());
+                write(clazz.getSuperName());
+                writeList(clazz.getInterfaces());
+                writeList(clazz.getInners());
+                writeList(clazz.contents());
+            } else {
+                throw new IllegalArgumentException("Cannot encode element of type " + element.getClass().getName());
+            }
+        }
+    }
+
+    private static final class Reader extends BinaryIO.Reader {
+        private final String source;
+        private final BytecodeFormat format;
+        private final Instructions<?> instructions;
+        private int lastStart;
+        private int lastLine;
+
+        private Reader(ByteBuffer buffer, String source, BytecodeFormat format) {
+            super(buffer);
+            this.source = source;
+            this.format = format;
+            this.instructions = format.getInstructions();
+        }
+
+        private Token readToken() {
+            String content = readString();
+            TokenType type = TOKEN_TYPES[readVarInt()];
+            int start = lastStart + readSignedVarInt();
+            int width = readSignedVarInt();
+            int line = lastLine + readSignedVarInt();
+            int column = readSignedVarInt();
+            int length = width + readSignedVarInt();
+            lastStart = start;
+            lastLine = line;
+            return new Token(new Range(start, start + width), new Location(line, column, length, source), type, content);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends ASTElement> List<T> readList() {
+            int count = readVarInt();
+            List<T> elements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                elements.add((T) read());
+            return elements;
+        }
+
+        private ElementMap<ASTIdentifier, ASTElement> readMap() {
+            int count = readVarInt();
+            ElementMap<ASTIdentifier, ASTElement> map = new ElementMap<>();
+            for (int i = 0; i < count; i++)
+                map.put((ASTIdentifier) read(), read());
+            return map;
+        }
+
+        private Modifiers readModifiers() {
+            Modifiers modifiers = new Modifiers();
+            for (ASTElement modifier : readList())
+                modifiers.addModifier((ASTIdentifier) modifier);
+            return modifiers;
+        }
+
+        private ASTElement read() {
+            byte tag = readByte();
+            return switch (tag) {
+                case NULL -> null;
+                case EMPTY_ARRAY -> ASTEmpty.EMPTY_ARRAY;
+                case EMPTY_CODE -> ASTEmpty.EMPTY_CODE;
+                case EMPTY_OBJECT -> ASTEmpty.EMPTY_OBJECT;
+                case EMPTY_DECLARATION -> ASTEmpty.EMPTY_DECLARATION;
+                case IDENTIFIER -> new ASTIdentifier(readToken());
+                case NUMBER -> new ASTNumber(readToken());
+                case STRING -> new ASTString(readToken());
+                case CHARACTER -> new ASTCharacter(readToken());
+                case BOOL -> new ASTBool(readToken());
+                case TYPE -> new ASTType(ELEMENT_TYPES[readVarInt()], readToken());
+                case COMMENT -> new ASTComment(readToken());
+                case EMPTY -> new ASTEmpty(readToken());
+                case ARRAY -> new ASTArray(readList());
+                case OBJECT -> new ASTObject(readMap());
+                case DECLARATION -> new ASTDeclaration((ASTIdentifier) read(), readList());
+                case CODE -> new ASTCode(readList());
+                case LABEL -> new ASTLabel((ASTIdentifier) read());
+                case INSTRUCTION -> {
+                    ASTInstruction instruction = new ASTInstruction((ASTIdentifier) read(), readList());
+                    instruction.setOpcode(instructions.opcode(instruction.identifier().content()));
+                    yield instruction;
+                }
+                case ENUM -> new ASTEnum((ASTIdentifier) read(), (ASTIdentifier) read());
+                case ANNOTATION -> new ASTAnnotation((ASTIdentifier) read(), readMap());
+                case INNER -> new ASTInner(
+                        readModifiers(), (ASTIdentifier) read(), (ASTIdentifier) read(), (ASTIdentifier) read()
+                );
+                case EXCEPTION -> new ASTException(
+                        (ASTIdentifier) read(), (ASTIdentifier) read(), (ASTIdentifier) read(), (ASTIdentifier) read()
+                );
+                case FIELD -> readField();
+                case METHOD -> readMethod();
+                case CLASS -> readClass();
+                default -> throw new IllegalArgumentException("Unknown element tag: " + tag);
+            };
+        }
+
+        private ASTField readField() {
+            Modifiers modifiers = readModifiers();
+            ASTIdentifier name = (ASTIdentifier) read();
+            ASTIdentifier descriptor = (ASTIdentifier) read();
+            ASTString signature = (ASTString) read();
+            List<ASTAnnotation> annotations = readList();
+            ASTField field = new ASTField(modifiers, name, descriptor, (ASTValue) read());
+            applyAttributes(field, signature, annotations);
+            return field;
+        }
+
+        private ASTMethod readMethod() {
+            Modifiers modifiers = readModifiers();
+            ASTIdentifier name = (ASTIdentifier) read();
+            ASTIdentifier descriptor = (ASTIdentifier) read();
+            ASTString signature = (ASTString) read();
+            List<ASTAnnotation> annotations = readList();
+            List<ASTIdentifier> parameters = readList();
+            List<ASTException> exceptions = readList();
+            ASTCode code = (ASTCode) read();
+
+            // Instructions were resolved and verified when processing, only look them up again
+            List<Instruction<?>> resolved = new ArrayList<>();
+            if (code != null) {
+                for (ASTInstruction instruction : code.instructions()) {
+                    if (instruction == null || instruction instanceof ASTLabel)
+                        continue;
+                    Instruction<?> insn = instructions.get(instruction.opcode());
+                    if (insn == null)
+                        throw new IllegalArgumentException("Unknown instruction: " + instruction.identifier().content());
+                    resolved.add(insn);
+                }
+            }
+            ASTMethod method = new ASTMethod(
+                    modifiers, name, descriptor, parameters, exceptions, code, resolved, format
+            );
+            applyAttributes(method, signature, annotations);
+            return method;
+        }
+
+        private ASTClass readClass() {
+            Modifiers modifiers = readModifiers();
+            ASTIdentifier name = (ASTIdentifier) read();
+            ASTString signature = (ASTString) read();
+            List<ASTAnnotation> annotations = readList();
+            ASTString sourceFile = (ASTString) read();
+            ASTIdentifier superName = (ASTIdentifier) read();
+            List<ASTIdentifier> interfaces = readList();
+            List<ASTInner> inners = readList();
+            List<ASTElement> contents = readList();
+
+            // Same order of attributes as ProcessorAttributes.fill(...)
+            ASTClass clazz = new ASTClass(modifiers, name, contents);
+            applyAttributes(clazz, signature, annotations);
+            if (sourceFile != null)
+                clazz.setSourceFile(sourceFile);
+            if (superName != null)
+                clazz.setSuperName(superName);
+            if (!interfaces.isEmpty())
+                clazz.setInterfaces(interfaces);
+            if (!inners.isEmpty())
+                clazz.setInnerClasses(inners);
+            return clazz;
+        }
+
+        private static void applyAttributes(ASTMember member, @Nullable ASTString signature,
+                List<ASTAnnotation> annotations) {
+            if (!annotations.isEmpty())
+                member.setAnnotations(annotations);
+            if (signature != null)
+                member.setSignature(signature);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package me.darknet.assembler.compiler;
+
+/**
+ * Token polled by long running work to see if its result is still wanted, for instance by an editor which starts a
+ * new compilation whenever the source changes. Any thread may flip the state the token reads, such as an
+ * {@link java.util.concurrent.atomic.AtomicBoolean#get()}.
+ */
+@FunctionalInterface
+public interface CancellationToken {
+
+    /**
+     * Token which is never cancelled.
+     */
+    CancellationToken NONE = () -> false;
+
+    /**
+     * @return {@code true} when the work should be abandoned as soon as possible.
+     */
+    boolean isCancelled();
+}
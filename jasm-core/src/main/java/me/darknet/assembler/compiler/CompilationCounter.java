@@ -0,0 +1,27 @@
+package me.darknet.assembler.compiler;
+
+/**
+ * Counters reported to a {@link CompilationListener} at the end of a {@link CompilationPhase}.
+ */
+public enum CompilationCounter {
+    /**
+     * Number of tokens in the source.
+     */
+    TOKENS,
+    /**
+     * Number of top level declarations.
+     */
+    DECLARATIONS,
+    /**
+     * Number of code elements of a method, instructions and labels.
+     */
+    INSTRUCTIONS,
+    /**
+     * Number of frames computed by the analysis of a method.
+     */
+    FRAMES,
+    /**
+     * Size of the written class file.
+     */
+    BYTES
+}
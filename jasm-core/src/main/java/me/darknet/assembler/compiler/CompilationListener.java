@@ -0,0 +1,51 @@
+package me.darknet.assembler.compiler;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Listener for the phases of processing and compiling a source, to see where time goes. Every
+ * {@link #onPhaseStart(CompilationPhase, String)} is paired with a {@link #onPhaseEnd(CompilationPhase, String)} on
+ * the same thread, with the counters of the phase reported in between.
+ *
+ * @see JfrCompilationListener
+ */
+public interface CompilationListener {
+
+    /**
+     * Listener which ignores everything.
+     */
+    CompilationListener NONE = new CompilationListener() {
+    };
+
+    /**
+     * @param phase
+     *                Phase which started.
+     * @param subject
+     *                What the phase works on, the source name for the front end phases and
+     *                {@code owner.name descriptor} for {@link CompilationPhase#ANALYSIS}. May be {@code null} if not
+     *                known.
+     */
+    default void onPhaseStart(@NotNull CompilationPhase phase, @Nullable String subject) {
+    }
+
+    /**
+     * @param phase
+     *                Phase which is running.
+     * @param counter
+     *                Counter of the phase.
+     * @param value
+     *                Value of the counter.
+     */
+    default void onCount(@NotNull CompilationPhase phase, @NotNull CompilationCounter counter, long value) {
+    }
+
+    /**
+     * @param phase
+     *                Phase which ended.
+     * @param subject
+     *                Same subject as passed to {@link #onPhaseStart(CompilationPhase, String)}.
+     */
+    default void onPhaseEnd(@NotNull CompilationPhase phase, @Nullable String subject) {
+    }
+}
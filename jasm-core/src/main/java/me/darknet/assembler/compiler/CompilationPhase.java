@@ -0,0 +1,32 @@
+package me.darknet.assembler.compiler;
+
+/**
+ * Phases reported to a {@link CompilationListener}, in the order they run.
+ */
+public enum CompilationPhase {
+    /**
+     * Splitting the source into tokens, counts {@link CompilationCounter#TOKENS}.
+     */
+    TOKENIZE,
+    /**
+     * Parsing tokens into declarations, counts {@link CompilationCounter#DECLARATIONS}.
+     */
+    PARSE,
+    /**
+     * Processing declarations into the typed AST, counts {@link CompilationCounter#DECLARATIONS}.
+     */
+    PROCESS,
+    /**
+     * Transforming the AST into the class model of the target.
+     */
+    TRANSFORM,
+    /**
+     * Analysis of a single method, counts {@link CompilationCounter#INSTRUCTIONS} and
+     * {@link CompilationCounter#FRAMES}.
+     */
+    ANALYSIS,
+    /**
+     * Writing the class file, counts {@link CompilationCounter#BYTES}.
+     */
+    WRITE
+}
@@ -0,0 +1,43 @@
+package me.darknet.assembler.compiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning a single {@link CompilationPhase}, recorded by {@link JfrCompilationListener}.
+ * Counters which do not apply to the phase are left at {@code 0}.
+ */
+@Name("me.darknet.assembler.CompilationPhase")
+@Label("Jasm Compilation Phase")
+@Category({ "Jasm", "Compilation" })
+@Description("A phase of processing or compiling a Jasm source")
+@StackTrace(false)
+public class CompilationPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Subject")
+    @Description("Source name, or the method for analysis")
+    public String subject;
+
+    @Label("Tokens")
+    public long tokens;
+
+    @Label("Declarations")
+    public long declarations;
+
+    @Label("Instructions")
+    public long instructions;
+
+    @Label("Frames")
+    public long frames;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -1,5 +1,6 @@
 package me.darknet.assembler.compiler;
 
+import me.darknet.assembler.error.DiagnosticSink;
 import me.darknet.assembler.util.AnnotationKind;
 
 public interface CompilerOptions<B extends CompilerOptions<?>> {
@@ -79,4 +80,35 @@
      */
     InheritanceChecker inheritanceChecker();
 
+    /**
+     * Listener notified of the phases of the compilation, see {@link CompilationListener}.
+     *
+     * @param listener
+     *                 The listener to use
+     *
+     * @return The options
+     */
+    B listener(CompilationListener listener);
+
+    /**
+     * @return The compilation listener, {@link CompilationListener#NONE} when none was set
+     */
+    CompilationListener listener();
+
+    /**
+     * Sink the errors of the compilation are reported to as they are found, see {@link DiagnosticSink}. A sink asking
+     * to abort ends the compilation early, with the errors found until then.
+     *
+     * @param sink
+     *             The sink to use
+     *
+     * @return The options
+     */
+    B diagnostics(DiagnosticSink sink);
+
+    /**
+     * @return The diagnostic sink, {@link DiagnosticSink#NONE} when none was set
+     */
+    DiagnosticSink diagnostics();
+
 }
@@ -0,0 +1,49 @@
+package me.darknet.assembler.compiler;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Listener which records every phase as a {@link CompilationPhaseEvent}, so that flight recordings attribute time
+ * to individual phases and methods. Phases nest per thread, so one instance can be shared between compilations.
+ */
+public class JfrCompilationListener implements CompilationListener {
+
+    private final ThreadLocal<Deque<CompilationPhaseEvent>> events = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void onPhaseStart(@NotNull CompilationPhase phase, @Nullable String subject) {
+        CompilationPhaseEvent event = new CompilationPhaseEvent();
+        event.phase = phase.name();
+        event.subject = subject;
+        event.begin();
+        events.get().push(event);
+    }
+
+    @Override
+    public void onCount(@NotNull CompilationPhase phase, @NotNull CompilationCounter counter, long value) {
+        CompilationPhaseEvent event = events.get().peek();
+        if (event == null)
+            return;
+        switch (counter) {
+            case TOKENS -> event.tokens = value;
+            case DECLARATIONS -> event.declarations = value;
+            case INSTRUCTIONS -> event.instructions = value;
+            case FRAMES -> event.frames = value;
+            case BYTES -> event.bytes = value;
+        }
+    }
+
+    @Override
+    public void onPhaseEnd(@NotNull CompilationPhase phase, @Nullable String subject) {
+        CompilationPhaseEvent event = events.get().poll();
+        if (event == null)
+            return;
+        event.end();
+        if (event.shouldCommit())
+            event.commit();
+    }
+}
@@ -0,0 +1,59 @@
+package me.darknet.assembler.error;
+
+import me.darknet.assembler.exception.AbortedException;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Receiver of errors and warnings as they are found, rather than once a stage is done. Sinks are given to the
+ * tokenizer, parser, processor and transformer, and can end all of them early: once {@link #shouldAbort()} returns
+ * {@code true} after an error, the stage reporting it stops with an {@link AbortedException}.
+ */
+@FunctionalInterface
+public interface DiagnosticSink {
+    /**
+     * Sink ignoring all diagnostics, never aborting.
+     */
+    DiagnosticSink NONE = diagnostic -> {
+    };
+
+    /**
+     * @param diagnostic
+     *                   Error or {@link Warn warning} which was found.
+     */
+    void accept(@NotNull Error diagnostic);
+
+    /**
+     * @return {@code true} to abort the stage which reported the last error.
+     */
+    default boolean shouldAbort() {
+        return false;
+    }
+
+    /**
+     * @param sink
+     *                  Sink to pass diagnostics on to.
+     * @param maxErrors
+     *                  Number of errors after which to abort, warnings do not count towards it.
+     *
+     * @return Sink aborting once the given number of errors has been reported to it, over all stages it is given to.
+     */
+    static DiagnosticSink limit(@NotNull DiagnosticSink sink, int maxErrors) {
+        AtomicInteger errors = new AtomicInteger();
+        return new DiagnosticSink() {
+            @Override
+            public void accept(@NotNull Error diagnostic) {
+                if (!(diagnostic instanceof Warn))
+                    errors.incrementAndGet();
+                sink.accept(diagnostic);
+            }
+
+            @Override
+            public boolean shouldAbort() {
+                return errors.get() >= maxErrors || sink.shouldAbort();
+            }
+        };
+    }
+}
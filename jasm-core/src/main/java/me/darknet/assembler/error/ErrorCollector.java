@@ -1,5 +1,6 @@
 package me.darknet.assembler.error;
 
+import me.darknet.assembler.exception.AbortedException;
 import me.darknet.assembler.util.Location;
 
 import java.util.ArrayList;
@@ -8,28 +9,54 @@
 
 /**
  * Collector for errors.
+ * <p>
+ * Errors and warnings are passed on to a {@link DiagnosticSink} as they are added, and adding an error throws an
+ * {@link AbortedException} once the sink {@link DiagnosticSink#shouldAbort() asks to abort}.
  */
 public class ErrorCollector {
 
     private final List<Error> errors = new ArrayList<>();
     private final List<Warn> warns = new ArrayList<>();
+    private final DiagnosticSink sink;
+
+    public ErrorCollector() {
+        this(DiagnosticSink.NONE);
+    }
+
+    /**
+     * @param sink
+     *             Sink to report errors and warnings to as they are added.
+     */
+    public ErrorCollector(DiagnosticSink sink) {
+        this.sink = sink;
+    }
 
     public void addError(Error error) {
         errors.add(error);
+        sink.accept(error);
+        if (sink.shouldAbort())
+            throw new AbortedException(List.copyOf(errors));
     }
 
     public void addWarn(Warn warn) {
         warns.add(warn);
+        sink.accept(warn);
     }
 
     public void addError(String message, Location location) {
-        errors.add(new Error(message, location));
+        addError(new Error(message, location));
     }
 
     public void addWarn(String message, Location location) {
-        warns.add(new Warn(message, location));
+        addWarn(new Warn(message, location));
     }
 
+    /**
+     * Adds errors which were already reported, such as those of another stage, without reporting them again.
+     *
+     * @param errors
+     *               Errors to add.
+     */
     public void addAll(Collection<Error> errors) {
         this.errors.addAll(errors);
     }
@@ -0,0 +1,25 @@
+package me.darknet.assembler.exception;
+
+import me.darknet.assembler.error.DiagnosticSink;
+import me.darknet.assembler.error.Error;
+
+import java.util.List;
+
+/**
+ * Thrown by a stage when its {@link DiagnosticSink} asks to abort, carrying the errors the stage found until then.
+ */
+public class AbortedException extends RuntimeException {
+    private final List<Error> errors;
+
+    public AbortedException(List<Error> errors) {
+        super("Aborted after " + errors.size() + " errors");
+        this.errors = errors;
+    }
+
+    /**
+     * @return Errors found by the stage before it aborted.
+     */
+    public List<Error> getErrors() {
+        return errors;
+    }
+}
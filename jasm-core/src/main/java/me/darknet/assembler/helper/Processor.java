@@ -1,9 +1,17 @@
 package me.darknet.assembler.helper;
 
 import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.cache.ASTCache;
+import me.darknet.assembler.compiler.CompilationCounter;
+import me.darknet.assembler.compiler.CompilationListener;
+import me.darknet.assembler.compiler.CompilationPhase;
+import me.darknet.assembler.error.DiagnosticSink;
 import me.darknet.assembler.error.Error;
+import me.darknet.assembler.error.Result;
+import me.darknet.assembler.exception.AbortedException;
 import me.darknet.assembler.parser.BytecodeFormat;
 import me.darknet.assembler.parser.DeclarationParser;
+import me.darknet.assembler.parser.Token;
 import me.darknet.assembler.parser.Tokenizer;
 import me.darknet.assembler.parser.processor.ASTProcessor;
 
@@ -15,8 +23,82 @@ public class Processor {
 
     public static void processSource(String code, String source, Consumer<List<ASTElement>> consumer,
             BiConsumer<List<ASTElement>, List<Error>> error, BytecodeFormat format) {
-        new DeclarationParser().parseDeclarations(new Tokenizer().tokenize(source, code).get())
-                .ifOk(lAst -> new ASTProcessor(format).processAST(lAst).ifOk(consumer).ifErr(error)).ifErr(error);
+        processSource(code, source, consumer, error, new ProcessorOptions().format(format));
+    }
+
+    /**
+     * @param code
+     *                 Source code to process.
+     * @param source
+     *                 Name of the source, used in locations.
+     * @param consumer
+     *                 Consumer of the processed AST.
+     * @param error
+     *                 Consumer of the errors, with the AST as far as it could be built. When the diagnostic sink
+     *                 aborts, the AST is empty and the errors are those of the aborted phase.
+     * @param options
+     *                 Format of the source, and the listener, cache and diagnostic sink to process it with.
+     */
+    public static void processSource(String code, String source, Consumer<List<ASTElement>> consumer,
+            BiConsumer<List<ASTElement>, List<Error>> error, ProcessorOptions options) {
+        BytecodeFormat format = options.format();
+        CompilationListener listener = options.listener();
+        ASTCache cache = options.cache();
+        DiagnosticSink sink = options.diagnostics();
+        if (cache != null) {
+            List<ASTElement> cached = cache.load(code, source, format);
+            if (cached != null) {
+                consumer.accept(cached);
+                return;
+            }
+        }
+
+        List<Token> tokens;
+        Result<List<ASTElement>> declarations;
+        Result<List<ASTElement>> processed = null;
+        try {
+            listener.onPhaseStart(CompilationPhase.TOKENIZE, source);
+            try {
+                tokens = new Tokenizer(null, sink).tokenize(source, code).get();
+                listener.onCount(CompilationPhase.TOKENIZE, CompilationCounter.TOKENS, tokens == null ? 0 : tokens.size());
+            } finally {
+                listener.onPhaseEnd(CompilationPhase.TOKENIZE, source);
+            }
+
+            listener.onPhaseStart(CompilationPhase.PARSE, source);
+            try {
+                declarations = new DeclarationParser(sink).parseDeclarations(tokens);
+                count(listener, CompilationPhase.PARSE, declarations);
+            } finally {
+                listener.onPhaseEnd(CompilationPhase.PARSE, source);
+            }
+
+            if (declarations.isOk()) {
+                listener.onPhaseStart(CompilationPhase.PROCESS, source);
+                try {
+                    processed = new ASTProcessor(format, sink).processAST(declarations.get());
+                    count(listener, CompilationPhase.PROCESS, processed);
+                } finally {
+                    listener.onPhaseEnd(CompilationPhase.PROCESS, source);
+                }
+            }
+        } catch (AbortedException ex) {
+            error.accept(List.of(), ex.getErrors());
+            return;
+        }
+
+        if (processed == null) {
+            declarations.ifErr(error);
+            return;
+        }
+        if (cache != null && processed.isOk())
+            cache.store(code, format, processed.get());
+        processed.ifOk(consumer).ifErr(error);
+    }
+
+    private static void count(CompilationListener listener, CompilationPhase phase, Result<List<ASTElement>> result) {
+        List<ASTElement> elements = result.get();
+        listener.onCount(phase, CompilationCounter.DECLARATIONS, elements == null ? 0 : elements.size());
     }
 
     public static void processSource(String code, String source, Consumer<List<ASTElement>> consumer,
@@ -0,0 +1,94 @@
+package me.darknet.assembler.helper;
+
+import me.darknet.assembler.cache.ASTCache;
+import me.darknet.assembler.compiler.CompilationListener;
+import me.darknet.assembler.error.DiagnosticSink;
+import me.darknet.assembler.parser.BytecodeFormat;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Options of {@link Processor#processSource(String, String, java.util.function.Consumer,
+ * java.util.function.BiConsumer, ProcessorOptions)}.
+ */
+public class ProcessorOptions {
+    private BytecodeFormat format = BytecodeFormat.DEFAULT;
+    private CompilationListener listener = CompilationListener.NONE;
+    private ASTCache cache;
+    private DiagnosticSink diagnostics = DiagnosticSink.NONE;
+
+    /**
+     * @param format
+     *               Bytecode format of the source.
+     *
+     * @return Self.
+     */
+    public ProcessorOptions format(@NotNull BytecodeFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * @return Bytecode format of the source, {@link BytecodeFormat#DEFAULT} by default.
+     */
+    public @NotNull BytecodeFormat format() {
+        return format;
+    }
+
+    /**
+     * @param listener
+     *                 Listener notified of the tokenize, parse and process phases. None of them are run when the AST
+     *                 is loaded from the cache.
+     *
+     * @return Self.
+     */
+    public ProcessorOptions listener(@NotNull CompilationListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * @return Listener notified of the processing phases, {@link CompilationListener#NONE} by default.
+     */
+    public @NotNull CompilationListener listener() {
+        return listener;
+    }
+
+    /**
+     * @param cache
+     *              Cache to load the processed AST from, and to store it in once processed without errors.
+     *              May be {@code null} to always process the source.
+     *
+     * @return Self.
+     */
+    public ProcessorOptions cache(@Nullable ASTCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * @return Cache of processed ASTs, or {@code null} to always process the source.
+     */
+    public @Nullable ASTCache cache() {
+        return cache;
+    }
+
+    /**
+     * @param diagnostics
+     *                    Sink to report errors of all phases to as they are found, which may abort processing early.
+     *
+     * @return Self.
+     */
+    public ProcessorOptions diagnostics(@NotNull DiagnosticSink diagnostics) {
+        this.diagnostics = diagnostics;
+        return this;
+    }
+
+    /**
+     * @return Sink errors are reported to as they are found, {@link DiagnosticSink#NONE} by default.
+     */
+    public @NotNull DiagnosticSink diagnostics() {
+        return diagnostics;
+    }
+}
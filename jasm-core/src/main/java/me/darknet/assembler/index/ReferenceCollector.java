@@ -0,0 +1,253 @@
+package me.darknet.assembler.index;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.ast.primitive.*;
+import me.darknet.assembler.error.ErrorCollector;
+import me.darknet.assembler.helper.Handle;
+import me.darknet.assembler.util.Location;
+import me.darknet.assembler.visitor.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the classes, fields and methods declared and referenced by a processed AST. Code is walked as an
+ * {@link ASTJvmInstructionVisitor}, recording the members of field, method and dynamic instructions and the classes of
+ * type instructions. Members declared outside a class have no known owner, so only their references are recorded.
+ */
+class ReferenceCollector implements ASTRootVisitor, ASTClassVisitor, ASTMethodVisitor, ASTFieldVisitor,
+        ASTJvmInstructionVisitor {
+    private final List<Occurrence> occurrences = new ArrayList<>();
+    private String owner;
+    private boolean newInstruction;
+
+    /**
+     * @return Definitions and references collected so far.
+     */
+    @NotNull
+    List<Occurrence> occurrences() {
+        return occurrences;
+    }
+
+    private void define(Symbol symbol, ASTElement element) {
+        occurrences.add(new Occurrence(symbol, element.location(), true));
+    }
+
+    private void reference(Symbol symbol, ASTElement element) {
+        occurrences.add(new Occurrence(symbol, element.location(), false));
+    }
+
+    private void referenceType(@Nullable String internalName, ASTElement element) {
+        if (internalName != null)
+            reference(Symbol.type(internalName), element);
+    }
+
+    private void referenceMember(boolean field, String path, String descriptor, ASTElement element) {
+        int index = path.lastIndexOf('.');
+        if (index < 0)
+            return;
+        String owner = path.substring(0, index);
+        String name = path.substring(index + 1);
+        reference(field ? Symbol.field(owner, name, descriptor) : Symbol.method(owner, name, descriptor), element);
+    }
+
+    private void referenceHandle(Handle handle, ASTElement element) {
+        if (handle != null && handle.kind() != null)
+            referenceMember(handle.kind().isField(), handle.name(), handle.descriptor(), element);
+    }
+
+    /**
+     * @param descriptor
+     *                   Descriptor of a class or array type.
+     *
+     * @return Internal name of the class, or of the element class of the array. {@code null} for primitive types.
+     */
+    private static @Nullable String internalName(String descriptor) {
+        int dimensions = 0;
+        while (dimensions < descriptor.length() && descriptor.charAt(dimensions) == '[')
+            dimensions++;
+        String element = descriptor.substring(dimensions);
+        if (element.length() > 2 && element.charAt(0) == 'L' && element.endsWith(";"))
+            return element.substring(1, element.length() - 1);
+        // arrays of primitives, and plain internal names which some instructions accept as well
+        return dimensions > 0 || element.length() == 1 ? null : element;
+    }
+
+    // Declarations
+
+    @Override
+    public ASTClassVisitor visitClass(Modifiers modifiers, ASTIdentifier name) {
+        owner = name.literal();
+        define(Symbol.type(owner), name);
+        return this;
+    }
+
+    @Override
+    public ASTFieldVisitor visitField(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
+        if (owner != null)
+            define(Symbol.field(owner, name.literal(), descriptor.literal()), name);
+        return this;
+    }
+
+    @Override
+    public ASTMethodVisitor visitMethod(Modifiers modifiers, ASTIdentifier name, ASTIdentifier descriptor) {
+        if (owner != null)
+            define(Symbol.method(owner, name.literal(), descriptor.literal()), name);
+        return this;
+    }
+
+    @Override
+    public ASTAnnotationVisitor visitAnnotation(ASTIdentifier classType) {
+        referenceType(classType.literal(), classType);
+        return null;
+    }
+
+    @Override
+    public void visitSuperClass(@Nullable ASTIdentifier superClass) {
+        if (superClass != null)
+            referenceType(superClass.literal(), superClass);
+    }
+
+    @Override
+    public void visitInterface(@NotNull ASTIdentifier interfaceName) {
+        referenceType(interfaceName.literal(), interfaceName);
+    }
+
+    @Override
+    public void visitSourceFile(@Nullable ASTString sourceFile) {
+    }
+
+    @Override
+    public void visitInnerClass(Modifiers modifiers, @Nullable ASTIdentifier name, @Nullable ASTIdentifier outerClass,
+            ASTIdentifier innerClass) {
+    }
+
+    @Override
+    public void visitSignature(@Nullable ASTString signature) {
+    }
+
+    @Override
+    public void visitValue(ASTElement value) {
+    }
+
+    @Override
+    public void visitParameter(int index, ASTIdentifier name) {
+    }
+
+    @Override
+    public ASTJvmInstructionVisitor visitJvmCode(@NotNull ErrorCollector collector) {
+        return this;
+    }
+
+    @Override
+    public void visitEnd() {
+    }
+
+    // Code
+
+    @Override
+    public void visitInstruction(@NotNull ASTInstruction instruction) {
+        newInstruction = "new".equals(instruction.identifier().content());
+    }
+
+    @Override
+    public void visitException(@NotNull ASTIdentifier start, @NotNull ASTIdentifier end,
+            @NotNull ASTIdentifier handler, @NotNull ASTIdentifier type) {
+        String typeName = type.literal();
+        if (!typeName.equals("*"))
+            referenceType(internalName(typeName), type);
+    }
+
+    @Override
+    public void visitTypeInsn(ASTIdentifier type) {
+        referenceType(newInstruction ? type.literal() : internalName(type.literal()), type);
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(ASTIdentifier descriptor, ASTNumber numDimensions) {
+        referenceType(internalName(descriptor.literal()), descriptor);
+    }
+
+    @Override
+    public void visitFieldInsn(ASTIdentifier path, ASTIdentifier descriptor) {
+        referenceMember(true, path.literal(), descriptor.literal(), path);
+    }
+
+    @Override
+    public void visitMethodInsn(ASTIdentifier path, ASTIdentifier descriptor) {
+        referenceMember(false, path.literal(), descriptor.literal(), path);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(ASTIdentifier name, ASTIdentifier descriptor, ASTElement bsm, ASTArray bsmArgs) {
+        if (bsm instanceof ASTIdentifier identifier) {
+            referenceHandle(Handle.HANDLE_SHORTCUTS.get(identifier.content()), identifier);
+        } else if (bsm instanceof ASTArray array && array.values().size() == 3) {
+            referenceHandle(Handle.from(array), array.values().get(1));
+        }
+        for (ASTElement argument : bsmArgs.values()) {
+            // method handle arguments, such as the implementation of a lambda
+            if (argument instanceof ASTArray array && array.values().size() == 3
+                    && Handle.Kind.from(array.values().get(0).content()) != null)
+                referenceHandle(Handle.from(array), array.values().get(1));
+        }
+    }
+
+    @Override
+    public void visitLabel(@NotNull ASTIdentifier label) {
+    }
+
+    @Override
+    public void visitLineNumber(ASTNumber line) {
+    }
+
+    @Override
+    public void visitInsn() {
+    }
+
+    @Override
+    public void visitIntInsn(ASTNumber operand) {
+    }
+
+    @Override
+    public void visitNewArrayInsn(ASTIdentifier type) {
+    }
+
+    @Override
+    public void visitLdcInsn(ASTElement constant) {
+    }
+
+    @Override
+    public void visitVarInsn(ASTIdentifier var) {
+    }
+
+    @Override
+    public void visitIincInsn(ASTIdentifier var, ASTNumber increment) {
+    }
+
+    @Override
+    public void visitJumpInsn(ASTIdentifier label) {
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(ASTObject lookupSwitchObject) {
+    }
+
+    @Override
+    public void visitTableSwitchInsn(ASTObject tableSwitchObject) {
+    }
+
+    /**
+     * @param symbol
+     *                   Symbol defined or referenced.
+     * @param location
+     *                   Location of the name of the definition, or of the reference.
+     * @param definition
+     *                   {@code true} for definitions, {@code false} for references.
+     */
+    record Occurrence(Symbol symbol, Location location, boolean definition) {
+    }
+}
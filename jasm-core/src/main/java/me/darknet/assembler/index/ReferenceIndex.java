@@ -0,0 +1,343 @@
+package me.darknet.assembler.index;
+
+import me.darknet.assembler.ast.ASTElement;
+import me.darknet.assembler.cache.ASTCache;
+import me.darknet.assembler.error.Error;
+import me.darknet.assembler.helper.Processor;
+import me.darknet.assembler.parser.BytecodeFormat;
+import me.darknet.assembler.transformer.Transformer;
+import me.darknet.assembler.util.AtomicFiles;
+import me.darknet.assembler.util.BinaryIO;
+import me.darknet.assembler.util.Location;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index from classes, fields and methods to the locations in assembled sources which define and reference
+ * them, see {@link ReferenceCollector} for what is recorded.
+ * <p>
+ * The index is updated one source at a time. Each source is recorded with a hash of its content, so sources which did
+ * not change since they were last indexed are skipped without being processed. Sources which fail to process are
+ * recorded without any references until they change. Queries are answered from memory, the file the index is
+ * {@link #load(Path) loaded} from is only read and written as a whole. Strings are written once and referred back to
+ * afterwards, and numbers as variable length integers. Files which can't be read, for instance because they were
+ * written by another version, count as an empty index.
+ */
+public class ReferenceIndex {
+    /**
+     * Version of the file layout, bumped whenever it changes.
+     */
+    public static final int VERSION = 1;
+    private static final int MAGIC = 0x4A585246; // JXRF
+    private static final Symbol.Kind[] KINDS = Symbol.Kind.values();
+    private final Path path;
+    private final Map<String, Source> sources = new HashMap<>();
+    private final Map<Symbol, List<Posting>> definitions = new HashMap<>();
+    private final Map<Symbol, List<Posting>> references = new HashMap<>();
+
+    private ReferenceIndex(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @param path
+     *             File to load the index from and to {@link #save() save} it to.
+     *
+     * @return Index read from the file, or an empty index if there is no readable index at the path.
+     */
+    @NotNull
+    public static ReferenceIndex load(@NotNull Path path) {
+        ReferenceIndex index = new ReferenceIndex(path);
+        if (Files.isRegularFile(path)) {
+            try {
+                index.read(ByteBuffer.wrap(Files.readAllBytes(path)));
+            } catch (IOException | RuntimeException ex) {
+                // Corrupt, truncated or from another version, rebuilt by the next updates
+                index.clear();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Writes the index to the file it was loaded from.
+     *
+     * @throws IOException
+     *                     When the file could not be written.
+     */
+    public synchronized void save() throws IOException {
+        AtomicFiles.write(path, write());
+    }
+
+    /**
+     * Indexes all {@code .jasm} files in a directory which changed since they were last indexed, and drops the
+     * sources in the directory whose files are gone.
+     *
+     * @param directory
+     *                  Directory to index, including its sub directories.
+     * @param format
+     *                  Bytecode format of the sources.
+     *
+     * @return Errors of the files which failed to process.
+     *
+     * @throws IOException
+     *                     When the directory or one of its files could not be read.
+     */
+    @NotNull
+    public List<Error> update(@NotNull Path directory, @NotNull BytecodeFormat format) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream.filter(Files::isRegularFile).filter(file -> file.toString().endsWith(".jasm")).toList();
+        }
+
+        Set<String> present = new HashSet<>();
+        List<Error> errors = new ArrayList<>();
+        for (Path file : files) {
+            String source = file.toString();
+            present.add(source);
+            errors.addAll(update(source, Files.readString(file), format));
+        }
+
+        synchronized (this) {
+            for (String source : List.copyOf(sources.keySet())) {
+                if (!present.contains(source) && Paths.get(source).startsWith(directory))
+                    remove(source);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @param source
+     *               Name of the source.
+     * @param code
+     *               Source code.
+     * @param format
+     *               Bytecode format of the source.
+     *
+     * @return Errors of processing the source, empty when it processed or did not change since it was last indexed.
+     */
+    @NotNull
+    public List<Error> update(@NotNull String source, @NotNull String code, @NotNull BytecodeFormat format) {
+        String hash = ASTCache.key(code, format);
+        synchronized (this) {
+            Source indexed = sources.get(source);
+            if (indexed != null && indexed.hash.equals(hash))
+                return List.of();
+        }
+
+        List<Error> errors = new ArrayList<>();
+        Processor.processSource(code, source, ast -> put(source, hash, ast), (unused, processErrors) -> {
+            errors.addAll(processErrors);
+            put(source, hash, List.of());
+        }, format);
+        return errors;
+    }
+
+    /**
+     * @param source
+     *               Name of the source.
+     * @param code
+     *               Source code the AST was processed from.
+     * @param format
+     *               Bytecode format of the source.
+     * @param ast
+     *               Processed AST of the source, replacing what was indexed for it before.
+     */
+    public void update(@NotNull String source, @NotNull String code, @NotNull BytecodeFormat format,
+            @NotNull List<ASTElement> ast) {
+        put(source, ASTCache.key(code, format), ast);
+    }
+
+    private void put(String source, String hash, List<ASTElement> ast) {
+        ReferenceCollector collector = new ReferenceCollector();
+        new Transformer(collector).transform(ast);
+
+        synchronized (this) {
+            remove(source);
+            Source entry = new Source(source, hash);
+            sources.put(source, entry);
+            for (ReferenceCollector.Occurrence occurrence : collector.occurrences()) {
+                Location location = occurrence.location();
+                if (location == null)
+                    continue;
+                add(occurrence.definition() ? definitions : references, occurrence.symbol(),
+                        new Posting(entry, location.line(), location.column(), location.length()));
+            }
+        }
+    }
+
+    /**
+     * @param source
+     *               Name of the source.
+     *
+     * @return {@code true} if the source was indexed.
+     */
+    public synchronized boolean remove(@NotNull String source) {
+        Source entry = sources.remove(source);
+        if (entry == null)
+            return false;
+        for (Symbol symbol : entry.symbols) {
+            prune(definitions, symbol, entry);
+            prune(references, symbol, entry);
+        }
+        return true;
+    }
+
+    /**
+     * @param symbol
+     *               Class, field or method.
+     *
+     * @return Locations of the names declaring the symbol.
+     */
+    @NotNull
+    public synchronized List<Location> definitions(@NotNull Symbol symbol) {
+        return locations(definitions.get(symbol));
+    }
+
+    /**
+     * @param symbol
+     *               Class, field or method.
+     *
+     * @return Locations of the instructions and declarations referring to the symbol.
+     */
+    @NotNull
+    public synchronized List<Location> usages(@NotNull Symbol symbol) {
+        return locations(references.get(symbol));
+    }
+
+    /**
+     * @return Names of the indexed sources.
+     */
+    @NotNull
+    public synchronized Set<String> sources() {
+        return Set.copyOf(sources.keySet());
+    }
+
+    private void add(Map<Symbol, List<Posting>> postings, Symbol symbol, Posting posting) {
+        postings.computeIfAbsent(symbol, s -> new ArrayList<>()).add(posting);
+        posting.source.symbols.add(symbol);
+    }
+
+    private static void prune(Map<Symbol, List<Posting>> postings, Symbol symbol, Source source) {
+        List<Posting> list = postings.get(symbol);
+        if (list != null && list.removeIf(posting -> posting.source == source) && list.isEmpty())
+            postings.remove(symbol);
+    }
+
+    private static List<Location> locations(List<Posting> postings) {
+        if (postings == null)
+            return List.of();
+        List<Location> locations = new ArrayList<>(postings.size());
+        for (Posting posting : postings)
+            locations.add(new Location(posting.line, posting.column, posting.length, posting.source.name));
+        return locations;
+    }
+
+    private void clear() {
+        sources.clear();
+        definitions.clear();
+        references.clear();
+    }
+
+    private synchronized byte[] write() {
+        Writer writer = new Writer();
+        writer.writeInt(MAGIC);
+        writer.writeVarInt(VERSION);
+
+        Map<Source, Integer> sourceIndices = new HashMap<>();
+        writer.writeVarInt(sources.size());
+        for (Source source : sources.values()) {
+            sourceIndices.put(source, sourceIndices.size());
+            writer.writeString(source.name);
+            writer.writeString(source.hash);
+        }
+
+        Set<Symbol> symbols = new HashSet<>(definitions.keySet());
+        symbols.addAll(references.keySet());
+        writer.writeVarInt(symbols.size());
+        for (Symbol symbol : symbols) {
+            writer.writeVarInt(symbol.kind().ordinal());
+            writer.writeString(symbol.owner());
+            writer.writeString(symbol.name());
+            writer.writeString(symbol.descriptor());
+            writer.writePostings(definitions.getOrDefault(symbol, List.of()), sourceIndices);
+            writer.writePostings(references.getOrDefault(symbol, List.of()), sourceIndices);
+        }
+        return writer.toByteArray();
+    }
+
+    private void read(ByteBuffer buffer) {
+        Reader reader = new Reader(buffer);
+        if (reader.readInt() != MAGIC)
+            throw new IllegalArgumentException("Not a reference index");
+        int version = reader.readVarInt();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported reference index version: " + version);
+
+        Source[] entries = new Source[reader.readVarInt()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Source(reader.readString(), reader.readString());
+            sources.put(entries[i].name, entries[i]);
+        }
+
+        int symbolCount = reader.readVarInt();
+        for (int i = 0; i < symbolCount; i++) {
+            Symbol symbol = new Symbol(KINDS[reader.readVarInt()], reader.readString(), reader.readString(),
+                    reader.readString());
+            int definitionCount = reader.readVarInt();
+            for (int j = 0; j < definitionCount; j++)
+                add(definitions, symbol, reader.readPosting(entries));
+            int referenceCount = reader.readVarInt();
+            for (int j = 0; j < referenceCount; j++)
+                add(references, symbol, reader.readPosting(entries));
+        }
+    }
+
+    private static final class Source {
+        private final String name;
+        private final String hash;
+        /**
+         * Symbols with postings in this source, to find them again when the source is updated.
+         */
+        private final Set<Symbol> symbols = new HashSet<>();
+
+        private Source(String name, String hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+    }
+
+    private record Posting(Source source, int line, int column, int length) {
+    }
+
+    private static final class Writer extends BinaryIO.Writer {
+        private void writePostings(List<Posting> postings, Map<Source, Integer> sourceIndices) {
+            writeVarInt(postings.size());
+            for (Posting posting : postings) {
+                writeVarInt(sourceIndices.get(posting.source));
+                // unknown locations are -1, shift them up so they stay non-negative
+                writeVarInt(posting.line + 1);
+                writeVarInt(posting.column + 1);
+                writeVarInt(posting.length + 1);
+            }
+        }
+    }
+
+    private static final class Reader extends BinaryIO.Reader {
+        private Reader(ByteBuffer buffer) {
+            super(buffer);
+        }
+
+        private Posting readPosting(Source[] sources) {
+            Source source = sources[readVarInt()];
+            return new Posting(source, readVarInt() - 1, readVarInt() - 1, readVarInt() - 1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package me.darknet.assembler.index;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Class, field or method which can be defined and referenced by assembled sources.
+ *
+ * @param kind
+ *                   Kind of symbol.
+ * @param owner
+ *                   Internal name of the class, or of the class declaring the member.
+ * @param name
+ *                   Name of the member, empty for classes.
+ * @param descriptor
+ *                   Descriptor of the member, empty for classes.
+ */
+public record Symbol(@NotNull Kind kind, @NotNull String owner, @NotNull String name, @NotNull String descriptor) {
+
+    /**
+     * @param internalName
+     *                     Internal name of the class, such as {@code java/lang/String}.
+     *
+     * @return Symbol of the class.
+     */
+    public static Symbol type(@NotNull String internalName) {
+        return new Symbol(Kind.TYPE, internalName, "", "");
+    }
+
+    /**
+     * @param owner
+     *                   Internal name of the class declaring the field.
+     * @param name
+     *                   Name of the field.
+     * @param descriptor
+     *                   Descriptor of the field.
+     *
+     * @return Symbol of the field.
+     */
+    public static Symbol field(@NotNull String owner, @NotNull String name, @NotNull String descriptor) {
+        return new Symbol(Kind.FIELD, owner, name, descriptor);
+    }
+
+    /**
+     * @param owner
+     *                   Internal name of the class declaring the method.
+     * @param name
+     *                   Name of the method.
+     * @param descriptor
+     *                   Descriptor of the method.
+     *
+     * @return Symbol of the method.
+     */
+    public static Symbol method(@NotNull String owner, @NotNull String name, @NotNull String descriptor) {
+        return new Symbol(Kind.METHOD, owner, name, descriptor);
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.TYPE ? owner : owner + '.' + name + descriptor;
+    }
+
+    public enum Kind {
+        TYPE,
+        FIELD,
+        METHOD
+    }
+}
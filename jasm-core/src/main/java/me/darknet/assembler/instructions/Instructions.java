@@ -1,21 +1,30 @@
 package me.darknet.assembler.instructions;
 
 import me.darknet.assembler.ast.primitive.ASTInstruction;
+import me.darknet.assembler.util.PerfectHash;
 import me.darknet.assembler.visitor.ASTInstructionVisitor;
 
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiConsumer;
 
 public abstract class Instructions<V extends ASTInstructionVisitor> {
 
-    private final Map<String, Instruction<V>> instructions = new HashMap<>();
+    /**
+     * Opcode of mnemonics which are not part of the instruction set.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Instruction<V>> instructions = new ArrayList<>();
+    private PerfectHash table;
     protected BiConsumer<ASTInstruction, V> defaultTranslator;
 
     public Instructions() {
         registerInstructions();
+        table = PerfectHash.of(names.toArray(new String[0]));
     }
 
     protected static Operand[] ops(Operands... operands) {
@@ -32,7 +41,17 @@ protected static Operand[] ops(Operands... operands) {
     protected abstract void registerInstructions();
 
     public void register(String name, Operand[] operands, BiConsumer<ASTInstruction, V> translator) {
-        instructions.put(name, new Instruction<>(operands, translator));
+        Instruction<V> instruction = new Instruction<>(operands, translator);
+        int opcode = names.indexOf(name);
+        if (opcode != UNKNOWN) {
+            instructions.set(opcode, instruction);
+            return;
+        }
+        names.add(name);
+        instructions.add(instruction);
+        // registering after construction has to refresh the lookup table
+        if (table != null)
+            table = PerfectHash.of(names.toArray(new String[0]));
     }
 
     public void register(String name, BiConsumer<ASTInstruction, V> translator) {
@@ -50,8 +69,52 @@ public void register(String... names) {
         }
     }
 
+    /**
+     * Resolve a mnemonic to the compact opcode of this instruction set. Opcodes are assigned in registration order
+     * and are only meaningful for the instruction set that produced them.
+     *
+     * @param name
+     *             Instruction mnemonic.
+     *
+     * @return Opcode of the instruction, or {@link #UNKNOWN} if there is no such instruction.
+     */
+    public int opcode(String name) {
+        return table.indexOf(name);
+    }
+
+    /**
+     * @param opcode
+     *               Opcode as given by {@link #opcode(String)}.
+     *
+     * @return Instruction, or {@code null} if the opcode is unknown.
+     */
+    public @Nullable Instruction<V> get(int opcode) {
+        if (opcode < 0 || opcode >= instructions.size())
+            return null;
+        return instructions.get(opcode);
+    }
+
     public @Nullable Instruction<V> get(String name) {
-        return instructions.get(name);
+        return get(opcode(name));
+    }
+
+    /**
+     * @param opcode
+     *               Opcode as given by {@link #opcode(String)}.
+     *
+     * @return Mnemonic of the instruction, or {@code null} if the opcode is unknown.
+     */
+    public @Nullable String name(int opcode) {
+        if (opcode < 0 || opcode >= names.size())
+            return null;
+        return names.get(opcode);
+    }
+
+    /**
+     * @return Number of instructions in this set, opcodes range from {@code 0} to {@code size() - 1}.
+     */
+    public int size() {
+        return names.size();
     }
 
 }
@@ -7,50 +7,137 @@
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.function.BiConsumer;
 
 public abstract class ReflectiveInstructions<V extends ASTInstructionVisitor> extends Instructions<V> {
 
+    /**
+     * Highest operand count which is dispatched through {@link MethodHandle#invokeExact}, larger translators are
+     * spread from an array.
+     */
+    private static final int MAX_EXACT_ARITY = 5;
+
     private final Class<V> visitorClass;
-    private final Map<String, MethodHandle> lookupCache = new HashMap<>();
 
     public ReflectiveInstructions(Class<V> visitorClass, String defaultMethod) {
         super();
-        this.defaultTranslator = (instruction, visitor) -> reflectiveAction(instruction, visitor, defaultMethod);
+        this.defaultTranslator = new ReflectiveTranslator(defaultMethod);
         this.visitorClass = visitorClass;
     }
 
     protected void register(String name, String translatorName) {
-        register(
-                name, new Operand[0], (instruction, visitor) -> reflectiveAction(instruction, visitor, translatorName)
-        );
+        register(name, new Operand[0], new ReflectiveTranslator(translatorName));
     }
 
     protected void register(String name, Operand[] operands, String translatorName) {
-        register(name, operands, (instruction, visitor) -> reflectiveAction(instruction, visitor, translatorName));
+        register(name, operands, new ReflectiveTranslator(translatorName));
     }
 
-    void reflectiveAction(ASTInstruction instruction, V instance, String translatorName)
-            throws TransformationException {
-        try {
-            MethodHandle method = lookupCache.get(translatorName);
-            if (method == null) {
-                List<ASTElement> arguments = instruction.arguments();
-                Class<?>[] argumentTypes = new Class<?>[arguments.size()];
-                for (int i = 0; i < arguments.size(); i++) {
-                    argumentTypes[i] = arguments.get(i).getClass();
+    /**
+     * Translator which invokes a visitor method by name. Handles are resolved once per argument shape, being the
+     * runtime classes of the instruction operands, and kept in a small copy-on-write cache so that overloads with
+     * different operand classes each get their own handle.
+     */
+    private final class ReflectiveTranslator implements BiConsumer<ASTInstruction, V> {
+        private final String translatorName;
+        private volatile Shape[] shapes = new Shape[0];
+
+        private ReflectiveTranslator(String translatorName) {
+            this.translatorName = translatorName;
+        }
+
+        @Override
+        public void accept(ASTInstruction instruction, V visitor) {
+            List<ASTElement> arguments = instruction.arguments();
+            MethodHandle handle = handle(arguments);
+            ASTInstructionVisitor receiver = visitor;
+            try {
+                switch (arguments.size()) {
+                    case 0 -> handle.invokeExact(receiver);
+                    case 1 -> handle.invokeExact(receiver, arguments.get(0));
+                    case 2 -> handle.invokeExact(receiver, arguments.get(0), arguments.get(1));
+                    case 3 -> handle.invokeExact(receiver, arguments.get(0), arguments.get(1), arguments.get(2));
+                    case 4 -> handle.invokeExact(
+                            receiver, arguments.get(0), arguments.get(1), arguments.get(2), arguments.get(3)
+                    );
+                    case 5 -> handle.invokeExact(
+                            receiver, arguments.get(0), arguments.get(1), arguments.get(2), arguments.get(3),
+                            arguments.get(4)
+                    );
+                    default -> handle.invokeExact(receiver, arguments.toArray(new ASTElement[0]));
                 }
-                method = MethodHandles.lookup().unreflect(visitorClass.getMethod(translatorName, argumentTypes));
-                lookupCache.put(translatorName, method);
+            } catch (TransformationException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new TransformationException("Failed to invoke translator method", e);
+            }
+        }
+
+        private MethodHandle handle(List<ASTElement> arguments) {
+            Shape[] local = shapes;
+            for (Shape shape : local) {
+                if (shape.matches(arguments))
+                    return shape.handle;
+            }
+            return resolve(arguments);
+        }
+
+        private synchronized MethodHandle resolve(List<ASTElement> arguments) {
+            Shape[] local = shapes;
+            for (Shape shape : local) {
+                if (shape.matches(arguments))
+                    return shape.handle;
+            }
+            int arity = arguments.size();
+            Class<?>[] argumentTypes = new Class<?>[arity];
+            for (int i = 0; i < arity; i++) {
+                ASTElement argument = arguments.get(i);
+                if (argument == null)
+                    throw new TransformationException("Missing operand " + i + " for translator " + translatorName);
+                argumentTypes[i] = argument.getClass();
+            }
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.lookup().unreflect(visitorClass.getMethod(translatorName, argumentTypes));
+            } catch (ReflectiveOperationException e) {
+                throw new TransformationException("Failed to resolve translator method " + translatorName, e);
+            }
+            handle = exact(handle, arity);
+            Shape[] updated = Arrays.copyOf(local, local.length + 1);
+            updated[local.length] = new Shape(argumentTypes, handle);
+            shapes = updated;
+            return handle;
+        }
+    }
+
+    /**
+     * Adapt a handle to the erased signature used at the {@code invokeExact} call sites.
+     */
+    private static MethodHandle exact(MethodHandle handle, int arity) {
+        if (arity > MAX_EXACT_ARITY) {
+            handle = handle.asSpreader(ASTElement[].class, arity);
+            return handle.asType(MethodType.methodType(void.class, ASTInstructionVisitor.class, ASTElement[].class));
+        }
+        Class<?>[] parameters = new Class<?>[arity + 1];
+        parameters[0] = ASTInstructionVisitor.class;
+        Arrays.fill(parameters, 1, parameters.length, ASTElement.class);
+        return handle.asType(MethodType.methodType(void.class, parameters));
+    }
+
+    private record Shape(Class<?>[] types, MethodHandle handle) {
+        boolean matches(List<ASTElement> arguments) {
+            Class<?>[] local = types;
+            if (arguments.size() != local.length)
+                return false;
+            for (int i = 0; i < local.length; i++) {
+                ASTElement argument = arguments.get(i);
+                if (argument == null || argument.getClass() != local[i])
+                    return false;
             }
-            List<Object> arguments = new ArrayList<>(instruction.arguments());
-            arguments.add(0, instance);
-            method.invokeWithArguments(arguments);
-        } catch (Throwable e) {
-            throw new TransformationException("Failed to invoke translator method", e);
+            return true;
         }
     }
 }
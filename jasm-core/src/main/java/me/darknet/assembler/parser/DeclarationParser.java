@@ -3,12 +3,14 @@
 import me.darknet.assembler.ast.ASTElement;
 import me.darknet.assembler.ast.ElementType;
 import me.darknet.assembler.ast.primitive.*;
+import me.darknet.assembler.error.DiagnosticSink;
 import me.darknet.assembler.error.Error;
 import me.darknet.assembler.error.ErrorCollector;
 import me.darknet.assembler.util.ElementMap;
 import me.darknet.assembler.util.Location;
 import me.darknet.assembler.util.Pair;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
@@ -20,8 +22,22 @@
  */
 public class DeclarationParser {
 
+    private final DiagnosticSink sink;
     private ParserContext ctx;
 
+    public DeclarationParser() {
+        this(DiagnosticSink.NONE);
+    }
+
+    /**
+     * @param sink
+     *             Sink to report errors to as they are found, which may abort parsing with an
+     *             {@link me.darknet.assembler.exception.AbortedException AbortedException}.
+     */
+    public DeclarationParser(@NotNull DiagnosticSink sink) {
+        this.sink = sink;
+    }
+
     /**
      * Parse all declarations from the given tokens, this will only try to parse
      * declarations. Result for this method will always be a list of
@@ -37,7 +53,7 @@ public class DeclarationParser {
             return new ParsingResult<>(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
         }
         Pair<List<ASTComment>, Collection<Token>> filtered = filterComments(tokens);
-        this.ctx = new ParserContext(this, new ArrayList<>(filtered.second()));
+        this.ctx = new ParserContext(this, new ArrayList<>(filtered.second()), sink);
         List<ASTElement> declarations = new ArrayList<>();
         while (!this.ctx.done()) {
             declarations.add(parseDeclaration());
@@ -60,7 +76,7 @@ public class DeclarationParser {
             return new ParsingResult<>(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
         }
         Pair<List<ASTComment>, Collection<Token>> filtered = filterComments(tokens);
-        this.ctx = new ParserContext(this, new ArrayList<>(filtered.second()));
+        this.ctx = new ParserContext(this, new ArrayList<>(filtered.second()), sink);
         List<ASTElement> result = new ArrayList<>();
         while (!this.ctx.done()) {
             ASTElement element = parse();
@@ -392,12 +408,13 @@ private static class ParserContext extends Stateful<State> {
 
         private final DeclarationParser parser;
         private final List<Token> tokens;
-        private final ErrorCollector errorCollector = new ErrorCollector();
+        private final ErrorCollector errorCollector;
         private int idx = 0;
         private Token latest;
 
-        private ParserContext(DeclarationParser parser, List<Token> tokens) {
+        private ParserContext(DeclarationParser parser, List<Token> tokens, DiagnosticSink sink) {
             this.parser = parser;
+            this.errorCollector = new ErrorCollector(sink);
             this.tokens = Collections.unmodifiableList(tokens);
             this.latest = tokens.get(0);
         }
@@ -1,9 +1,15 @@
 package me.darknet.assembler.parser;
 
+import me.darknet.assembler.error.DiagnosticSink;
 import me.darknet.assembler.error.ErrorCollector;
 import me.darknet.assembler.error.Result;
+import me.darknet.assembler.util.EscapeUtil;
 import me.darknet.assembler.util.Location;
 import me.darknet.assembler.util.Range;
+import me.darknet.assembler.util.SymbolTable;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,6 +17,35 @@
 
 public class Tokenizer {
 
+    private final SymbolTable symbols;
+    private final DiagnosticSink sink;
+
+    public Tokenizer() {
+        this(null);
+    }
+
+    /**
+     * @param symbols
+     *                Table to deduplicate the content of tokens through, so that repeated content such as owners and
+     *                descriptors is only allocated once and shares the same string instance. May be shared between
+     *                tokenizers used on the same thread. {@code null} to allocate content for every token.
+     */
+    public Tokenizer(@Nullable SymbolTable symbols) {
+        this(symbols, DiagnosticSink.NONE);
+    }
+
+    /**
+     * @param symbols
+     *                Table to deduplicate the content of tokens through, see {@link #Tokenizer(SymbolTable)}.
+     * @param sink
+     *                Sink to report errors to as they are found, which may abort tokenizing with an
+     *                {@link me.darknet.assembler.exception.AbortedException AbortedException}.
+     */
+    public Tokenizer(@Nullable SymbolTable symbols, @NotNull DiagnosticSink sink) {
+        this.symbols = symbols;
+        this.sink = sink;
+    }
+
     public static boolean isOperator(char c) {
         return c == '{' || c == '}' || c == ':' || c == ',';
     }
@@ -120,9 +155,10 @@ private void handleCharacter(TokenizerContext ctx, char currentChar) {
     }
 
     public Result<List<Token>> tokenize(String source, String input) {
-        TokenizerContext ctx = new TokenizerContext();
+        TokenizerContext ctx = new TokenizerContext(sink);
+        ctx.symbols = symbols;
         ctx.input = input;
-        ctx.buffer = new StringBuffer();
+        ctx.buffer = new StringBuilder();
         ctx.source = source;
         int length = input.length();
         while (ctx.index < length) {
@@ -153,11 +189,16 @@ private static class TokenizerContext {
         private boolean inString;
         private boolean inCharacter;
         private boolean inComment;
-        private StringBuffer buffer;
-        private final ErrorCollector errors = new ErrorCollector();
+        private StringBuilder buffer;
+        private final ErrorCollector errors;
         private final List<Token> tokens = new ArrayList<>();
 
         private String input, source;
+        private SymbolTable symbols;
+
+        private TokenizerContext(DiagnosticSink sink) {
+            this.errors = new ErrorCollector(sink);
+        }
 
         public void forward() {
             buffer.append(input.charAt(index));
@@ -241,7 +282,8 @@ public TokenType getType(String content) {
 
         public void collectToken() {
 
-            String content = buffer.toString();
+            // comments are rarely repeated, so they are not worth a place in the symbol table
+            String content = symbols == null || inComment ? buffer.toString() : symbols.intern(buffer);
             Range range = new Range(index - content.length(), index);
             Location location = new Location(line, column, content.length(), source);
 
@@ -261,19 +303,15 @@ public void collectToken() {
         }
 
         public void processEscape() {
-            switch (input.charAt(index++)) {
-                case 'n' -> buffer.append('\n');
-                case 'r' -> buffer.append('\r');
-                case 't' -> buffer.append('\t');
-                case 'b' -> buffer.append('\b');
-                case 'f' -> buffer.append('\f');
-                case '"' -> buffer.append('"');
-                case '\'' -> buffer.append('\'');
-                case 'u' -> {
-                    buffer.append((char) Integer.parseInt(input.substring(index, index + 4), 16));
-                    index += 4;
-                }
-                default -> buffer.append('\\');
+            char c = input.charAt(index++);
+            char unescaped = EscapeUtil.unescape(c);
+            if (unescaped != 0) {
+                buffer.append(unescaped);
+            } else if (c == 'u') {
+                buffer.append(EscapeUtil.parseUnicode(input, index));
+                index += 4;
+            } else {
+                buffer.append('\\');
             }
         }
 
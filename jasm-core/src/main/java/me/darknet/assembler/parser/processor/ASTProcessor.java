@@ -4,6 +4,7 @@
 import me.darknet.assembler.ast.ElementType;
 import me.darknet.assembler.ast.primitive.*;
 import me.darknet.assembler.ast.specific.*;
+import me.darknet.assembler.error.DiagnosticSink;
 import me.darknet.assembler.error.Error;
 import me.darknet.assembler.error.ErrorCollector;
 import me.darknet.assembler.error.Result;
@@ -17,6 +18,7 @@
 import me.darknet.assembler.util.Location;
 import me.darknet.assembler.visitor.Modifiers;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
@@ -66,9 +68,22 @@ public class ASTProcessor {
     }
 
     private final BytecodeFormat format;
+    private final DiagnosticSink sink;
 
     public ASTProcessor(BytecodeFormat format) {
+        this(format, DiagnosticSink.NONE);
+    }
+
+    /**
+     * @param format
+     *               Bytecode format to process with.
+     * @param sink
+     *               Sink to report errors to as they are found, which may abort processing with an
+     *               {@link me.darknet.assembler.exception.AbortedException AbortedException}.
+     */
+    public ASTProcessor(BytecodeFormat format, @NotNull DiagnosticSink sink) {
         this.format = format;
+        this.sink = sink;
     }
 
     private static ASTElement parseDeclaration(ParserContext ctx, ASTDeclaration declaration) {
@@ -207,7 +222,8 @@ private static ASTMethod parseMethod(ParserContext ctx, ASTDeclaration declarati
                     continue;
                 if (instruction instanceof ASTLabel)
                     continue;
-                Instruction<?> insn = ctx.instructions.get(instruction.identifier().content());
+                int opcode = ctx.instructions.opcode(instruction.identifier().content());
+                Instruction<?> insn = ctx.instructions.get(opcode);
                 if (insn == null) {
                     ctx.throwError(
                             "Unknown instruction: " + instruction.identifier().content(),
@@ -215,6 +231,7 @@ private static ASTMethod parseMethod(ParserContext ctx, ASTDeclaration declarati
                     );
                     continue;
                 }
+                instruction.setOpcode(opcode);
                 // validate arguments
                 insn.verify(instruction, ctx);
                 instructions.add(insn);
@@ -341,7 +358,7 @@ public static ASTInner parseInner(ParserContext ctx, ASTDeclaration declaration)
     }
 
     public Result<List<ASTElement>> processAST(List<ASTElement> ast) {
-        ParserContext ctx = new ParserContext(format);
+        ParserContext ctx = new ParserContext(format, sink);
         for (ASTElement astElement : ast) {
             if (astElement instanceof ASTDeclaration) {
                 ctx.add(parseDeclaration(ctx, (ASTDeclaration) astElement));
@@ -363,12 +380,17 @@ enum State {
 
     public static class ParserContext extends Stateful<State> {
 
-        private final ErrorCollector errorCollector = new ErrorCollector();
+        private final ErrorCollector errorCollector;
         private final BytecodeFormat format;
         private final Instructions<?> instructions;
         private ProcessorList result = new ProcessorList();
 
         public ParserContext(BytecodeFormat format) {
+            this(format, DiagnosticSink.NONE);
+        }
+
+        public ParserContext(BytecodeFormat format, DiagnosticSink sink) {
+            this.errorCollector = new ErrorCollector(sink);
             this.format = format;
             this.instructions = format.getInstructions();
         }
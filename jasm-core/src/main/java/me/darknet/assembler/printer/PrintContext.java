@@ -30,8 +30,18 @@ public PrintContext(String indentStep) {
     }
 
     public PrintContext(PrintContext<?> ctx) {
+        this(ctx, ctx.writer);
+    }
+
+    /**
+     * @param ctx
+     *               Context to take the indentation from.
+     * @param writer
+     *               Writer to print to instead of the one of {@code ctx}.
+     */
+    public PrintContext(PrintContext<?> ctx, Writer writer) {
         this.indentStep = ctx.indentStep;
-        this.writer = ctx.writer;
+        this.writer = writer;
         this.indent = ctx.indent;
     }
 
@@ -75,13 +85,21 @@ public T element(String s) {
     }
 
     public T literal(String s) {
-        append(EscapeUtil.escapeLiteral(s));
+        try {
+            EscapeUtil.escapeLiteral(s, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return (T) this;
     }
 
     public T string(String s) {
         append('\"');
-        append(EscapeUtil.escapeString(s));
+        try {
+            EscapeUtil.escapeString(s, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         append('\"');
         return (T) this;
     }
@@ -129,6 +147,21 @@ public T indent() {
         return (T) this;
     }
 
+    /**
+     * Append everything printed to a buffered context, and continue with its indentation.
+     *
+     * @param ctx
+     *            Context created with {@link #PrintContext(PrintContext, Writer)} over a buffering writer such as a
+     *            {@link StringWriter}.
+     *
+     * @return This context.
+     */
+    public T join(PrintContext<?> ctx) {
+        append(ctx.toString());
+        indent = ctx.indent;
+        return (T) this;
+    }
+
     public String toString() {
         return writer.toString();
     }
@@ -4,6 +4,7 @@
 import me.darknet.assembler.ast.specific.ASTClass;
 import me.darknet.assembler.ast.specific.ASTField;
 import me.darknet.assembler.ast.specific.ASTMethod;
+import me.darknet.assembler.error.DiagnosticSink;
 import me.darknet.assembler.error.ErrorCollector;
 import me.darknet.assembler.error.Result;
 import me.darknet.assembler.visitor.ASTRootVisitor;
@@ -13,9 +14,22 @@
 public class Transformer {
 
     private final ASTRootVisitor visitor;
+    private final DiagnosticSink sink;
 
     public Transformer(ASTRootVisitor visitor) {
+        this(visitor, DiagnosticSink.NONE);
+    }
+
+    /**
+     * @param visitor
+     *                the visitor to transform into
+     * @param sink
+     *                the sink to report errors to as they are found, which may abort the transformation with an
+     *                {@link me.darknet.assembler.exception.AbortedException AbortedException}
+     */
+    public Transformer(ASTRootVisitor visitor, DiagnosticSink sink) {
         this.visitor = visitor;
+        this.sink = sink;
     }
 
     /**
@@ -28,7 +42,7 @@ public Transformer(ASTRootVisitor visitor) {
      * @return the result of the transformation
      */
     public Result<Void> transform(List<ASTElement> declarations) {
-        ErrorCollector collector = new ErrorCollector();
+        ErrorCollector collector = new ErrorCollector(sink);
         ASTRootVisitor localVisitor = visitor;
         for (ASTElement declaration : declarations) {
             if (declaration instanceof ASTField field) {
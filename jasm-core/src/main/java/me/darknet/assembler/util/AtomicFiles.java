@@ -0,0 +1,73 @@
+package me.darknet.assembler.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes files through a temporary file in the same directory which is then moved over the target, so readers never
+ * see a partially written file. This makes a directory safe to share between multiple threads and processes, the
+ * last write wins.
+ */
+public final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * @param path
+     *              File to write, its directory is created if missing.
+     * @param bytes
+     *              Content of the file.
+     *
+     * @throws IOException
+     *                     When the file could not be written.
+     */
+    public static void write(@NotNull Path path, byte @NotNull [] bytes) throws IOException {
+        write(path, out -> out.write(bytes));
+    }
+
+    /**
+     * @param path
+     *                File to write, its directory is created if missing.
+     * @param content
+     *                Writer of the content of the file.
+     *
+     * @throws IOException
+     *                     When the file could not be written.
+     */
+    public static void write(@NotNull Path path, @NotNull Content content) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                content.write(out);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Content {
+        /**
+         * @param out
+         *            Stream to the temporary file, closed once this returns.
+         *
+         * @throws IOException
+         *                     When the content could not be written.
+         */
+        void write(@NotNull OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,142 @@
+package me.darknet.assembler.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Building blocks of the binary files jasm keeps, such as the {@link me.darknet.assembler.cache.ASTCache AST cache}
+ * and the {@link me.darknet.assembler.index.ReferenceIndex reference index}. Integers are written as variable length,
+ * seven bits per byte, and strings only once, later uses refer back to the first.
+ */
+public final class BinaryIO {
+
+    private BinaryIO() {
+    }
+
+    public static class Writer {
+        private final Map<String, Integer> strings = new HashMap<>();
+        private byte[] bytes = new byte[4096];
+        private int size;
+
+        public void writeByte(int value) {
+            if (size == bytes.length)
+                bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = (byte) value;
+        }
+
+        public void writeBytes(byte @NotNull [] values) {
+            if (size + values.length > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(size * 2, size + values.length));
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        /**
+         * Writes a fixed size, big endian integer, as read by {@link ByteBuffer#getInt()}.
+         */
+        public void writeInt(int value) {
+            writeByte(value >>> 24);
+            writeByte(value >>> 16);
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        public void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        /**
+         * Writes a variable length integer which stays short for small negative values.
+         */
+        public void writeSignedVarInt(int value) {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        /**
+         * Writes the index of a previously written string plus one, or zero followed by the string itself.
+         */
+        public void writeString(@NotNull String value) {
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarInt(index + 1);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] utf = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(0);
+            writeVarInt(utf.length);
+            writeBytes(utf);
+        }
+
+        public byte @NotNull [] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    /**
+     * Reader of what a {@link Writer} wrote. Reading past the end of the buffer throws
+     * {@link java.nio.BufferUnderflowException}.
+     */
+    public static class Reader {
+        private final List<String> strings = new ArrayList<>();
+        private final ByteBuffer buffer;
+
+        public Reader(@NotNull ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public byte readByte() {
+            return buffer.get();
+        }
+
+        public int readInt() {
+            return buffer.getInt();
+        }
+
+        /**
+         * @throws IllegalArgumentException
+         *                                  When the integer is longer than any written by {@link Writer}.
+         */
+        public int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 28)
+                    throw new IllegalArgumentException("Malformed variable length integer");
+                b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        public int readSignedVarInt() {
+            int value = readVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        @NotNull
+        public String readString() {
+            int index = readVarInt();
+            if (index != 0)
+                return strings.get(index - 1);
+            byte[] utf = new byte[readVarInt()];
+            buffer.get(utf);
+            String value = new String(utf, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+}
@@ -1,87 +1,154 @@
 package me.darknet.assembler.util;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
 public class EscapeUtil {
 
-    private static final Map<Character, String> BASE_ESCAPE_MAP = new HashMap<>(
-            Map.ofEntries(
-                    Map.entry('\b', "\\b"), Map.entry('\t', "\\t"), Map.entry('\n', "\\n"), Map.entry('\f', "\\f"),
-                    Map.entry('\r', "\\r"), Map.entry('\"', "\\\""), Map.entry('\\', "\\\\"), Map.entry('\'', "\\'")
-            )
-    );
-    private static final Map<Character, String> LITERAL_ESCAPE_MAP = new HashMap<>();
     private static final List<Range> LITERAL_UNICODE_ESCAPE_RANGES = List.of(
             new Range(0x0000, 0x001F), new Range(0x007F, 0x009F), new Range(0x06E5, 0x06E5), new Range(0x17B4, 0x17B4),
             new Range(0x180B, 0x180E), new Range(0x200C, 0x200E), new Range(0x2028, 0x202E), new Range(0x205F, 0x206E),
             new Range(0x2400, 0x243E), new Range(0xE000, 0xF8FF), new Range(0xFE00, 0xFE0F), new Range(0xFE1A, 0xFE20),
             new Range(0xFFF0, 0xFFFF)
     );
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    // one bit per character, set when the character is always written as a unicode escape
+    private static final long[] UNICODE_ESCAPES = new long[(Character.MAX_VALUE + 1) >>> 6];
+    // escape sequences of the ascii characters, null when the character is written as is
+    private static final String[] STRING_ESCAPES = new String[128];
+    private static final String[] LITERAL_ESCAPES = new String[128];
+    // value of an ascii hex digit, -1 for anything else
+    private static final byte[] HEX_VALUES = new byte[128];
+    // character produced by a single character escape sequence, 0 for anything else
+    private static final char[] UNESCAPES = new char[128];
 
     static {
         for (Range range : LITERAL_UNICODE_ESCAPE_RANGES) {
             for (int i = range.start(); i <= range.end(); i++) {
-                BASE_ESCAPE_MAP.put((char) i, "\\u" + String.format("%04X", i));
+                UNICODE_ESCAPES[i >>> 6] |= 1L << i;
+                if (i < STRING_ESCAPES.length)
+                    STRING_ESCAPES[i] = unicodeEscape((char) i);
             }
         }
-        LITERAL_ESCAPE_MAP.putAll(BASE_ESCAPE_MAP);
-        LITERAL_ESCAPE_MAP.put(' ', "\\u0020");
-        LITERAL_ESCAPE_MAP.put(',', "\\u002C");
-        LITERAL_ESCAPE_MAP.put(':', "\\u003A");
-        LITERAL_ESCAPE_MAP.put('{', "\\u007B");
-        LITERAL_ESCAPE_MAP.put('}', "\\u007D");
-        LITERAL_ESCAPE_MAP.put('\"', "\\u0022");
-        LITERAL_ESCAPE_MAP.put('\'', "\\u0027");
-        // build unicode escape map
+        // control characters such as '\n' are covered by the unicode ranges above
+        STRING_ESCAPES['\"'] = "\\\"";
+        STRING_ESCAPES['\\'] = "\\\\";
+        STRING_ESCAPES['\''] = "\\'";
+        System.arraycopy(STRING_ESCAPES, 0, LITERAL_ESCAPES, 0, STRING_ESCAPES.length);
+        for (char c : new char[] { ' ', ',', ':', '{', '}', '\"', '\'' }) {
+            LITERAL_ESCAPES[c] = unicodeEscape(c);
+        }
+
+        for (int i = 0; i < HEX_VALUES.length; i++) {
+            HEX_VALUES[i] = (byte) Character.digit(i, 16);
+        }
+
+        UNESCAPES['n'] = '\n';
+        UNESCAPES['r'] = '\r';
+        UNESCAPES['t'] = '\t';
+        UNESCAPES['b'] = '\b';
+        UNESCAPES['f'] = '\f';
+        UNESCAPES['"'] = '"';
+        UNESCAPES['\''] = '\'';
+        UNESCAPES['\\'] = '\\';
     }
 
     public static String escape(String string, Map<Character, String> escapeMap) {
-        StringBuilder sb = new StringBuilder();
-        for (char c : string.toCharArray()) {
+        StringBuilder sb = null;
+        int length = string.length();
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
             String escaped = escapeMap.get(c);
-            if (escaped != null)
+            if (escaped != null) {
+                if (sb == null)
+                    sb = new StringBuilder(length + 16).append(string, 0, i);
                 sb.append(escaped);
-            else
+            } else if (sb != null) {
                 sb.append(c);
+            }
         }
-        return sb.toString();
+        return sb == null ? string : sb.toString();
     }
 
+    /**
+     * @param string
+     *               String to escape.
+     *
+     * @return Escaped string for use inside of a quoted string, or the same instance if nothing needs escaping.
+     */
     public static String escapeString(String string) {
-        return escape(string, BASE_ESCAPE_MAP);
+        return escape(string, STRING_ESCAPES);
     }
 
+    /**
+     * @param string
+     *               String to escape.
+     *
+     * @return Escaped string for use as a bare literal, or the same instance if nothing needs escaping.
+     */
     public static String escapeLiteral(String string) {
-        return escape(string, LITERAL_ESCAPE_MAP);
+        return escape(string, LITERAL_ESCAPES);
+    }
+
+    /**
+     * Escape a string for use inside of a quoted string, writing directly into the given output.
+     *
+     * @param string
+     *               String to escape.
+     * @param out
+     *               Output to append to.
+     *
+     * @throws IOException
+     *                     When the output cannot be appended to.
+     */
+    public static void escapeString(CharSequence string, Appendable out) throws IOException {
+        escape(string, 0, STRING_ESCAPES, out);
+    }
+
+    /**
+     * Escape a string for use as a bare literal, writing directly into the given output.
+     *
+     * @param string
+     *               String to escape.
+     * @param out
+     *               Output to append to.
+     *
+     * @throws IOException
+     *                     When the output cannot be appended to.
+     */
+    public static void escapeLiteral(CharSequence string, Appendable out) throws IOException {
+        escape(string, 0, LITERAL_ESCAPES, out);
     }
 
+    /**
+     * @param escaped
+     *                String with escape sequences.
+     *
+     * @return Unescaped string, or the same instance if there are no escape sequences.
+     */
     public static String unescape(String escaped) {
-        StringBuilder buffer = new StringBuilder();
-        for (int i = 0; i < escaped.toCharArray().length; i++) {
+        int first = escaped.indexOf('\\');
+        if (first < 0)
+            return escaped;
+        int length = escaped.length();
+        StringBuilder buffer = new StringBuilder(length);
+        buffer.append(escaped, 0, first);
+        for (int i = first; i < length; i++) {
             char c = escaped.charAt(i);
             if (c == '\\') {
                 char next = escaped.charAt(++i);
-                switch (next) {
-                    case 'n' -> buffer.append('\n');
-                    case 'r' -> buffer.append('\r');
-                    case 't' -> buffer.append('\t');
-                    case 'b' -> buffer.append('\b');
-                    case 'f' -> buffer.append('\f');
-                    case '"' -> buffer.append('"');
-                    case '\'' -> buffer.append('\'');
-                    case '\\' -> buffer.append('\\');
-                    case 'u' -> {
-                        buffer.append((char) Integer.parseInt(escaped.substring(i + 1, i + 5), 16));
-                        i += 4;
-                    }
-                    default -> {
-                        buffer.append('\\');
-                        buffer.append(next);
-                    }
+                char unescaped = unescape(next);
+                if (unescaped != 0) {
+                    buffer.append(unescaped);
+                } else if (next == 'u') {
+                    buffer.append(parseUnicode(escaped, i + 1));
+                    i += 4;
+                } else {
+                    buffer.append('\\');
+                    buffer.append(next);
                 }
-
             } else {
                 buffer.append(c);
             }
@@ -89,4 +156,94 @@ public static String unescape(String escaped) {
         return buffer.toString();
     }
 
+    /**
+     * @param c
+     *          Character following a backslash.
+     *
+     * @return Character the escape sequence stands for, or {@code 0} if it is not a single character escape such as
+     *         {@code \n}.
+     */
+    public static char unescape(char c) {
+        return c < UNESCAPES.length ? UNESCAPES[c] : 0;
+    }
+
+    /**
+     * @param sequence
+     *                 Sequence holding the four hex digits of a {@code \\u} escape.
+     * @param index
+     *                 Index of the first digit.
+     *
+     * @return Character of the escape.
+     *
+     * @throws NumberFormatException
+     *                                   When one of the digits is not a hex digit.
+     * @throws IndexOutOfBoundsException
+     *                                   When the sequence ends before the fourth digit.
+     */
+    public static char parseUnicode(CharSequence sequence, int index) {
+        int value = 0;
+        for (int i = index; i < index + 4; i++) {
+            char c = sequence.charAt(i);
+            int digit = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+            if (digit < 0)
+                throw new NumberFormatException("Invalid unicode escape: " + sequence.subSequence(index, index + 4));
+            value = (value << 4) | digit;
+        }
+        return (char) value;
+    }
+
+    private static String escape(String string, String[] table) {
+        int length = string.length();
+        int i = 0;
+        while (i < length && !needsEscape(string.charAt(i), table))
+            i++;
+        if (i == length)
+            return string;
+        StringBuilder sb = new StringBuilder(length + 16);
+        try {
+            escape(string, i, table, sb.append(string, 0, i));
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    private static void escape(CharSequence string, int start, String[] table, Appendable out) throws IOException {
+        int length = string.length();
+        int run = start;
+        for (int i = start; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < table.length) {
+                String escaped = table[c];
+                if (escaped == null)
+                    continue;
+                out.append(string, run, i).append(escaped);
+            } else if (isUnicodeEscaped(c)) {
+                out.append(string, run, i).append('\\').append('u').append(HEX_DIGITS[(c >>> 12) & 0xF])
+                        .append(HEX_DIGITS[(c >>> 8) & 0xF]).append(HEX_DIGITS[(c >>> 4) & 0xF])
+                        .append(HEX_DIGITS[c & 0xF]);
+            } else {
+                continue;
+            }
+            run = i + 1;
+        }
+        out.append(string, run, length);
+    }
+
+    private static boolean needsEscape(char c, String[] table) {
+        return c < table.length ? table[c] != null : isUnicodeEscaped(c);
+    }
+
+    private static boolean isUnicodeEscaped(char c) {
+        return (UNICODE_ESCAPES[c >>> 6] & (1L << c)) != 0;
+    }
+
+    private static String unicodeEscape(char c) {
+        return new String(
+                new char[] { '\\', 'u', HEX_DIGITS[(c >>> 12) & 0xF], HEX_DIGITS[(c >>> 8) & 0xF],
+                        HEX_DIGITS[(c >>> 4) & 0xF], HEX_DIGITS[c & 0xF] }
+        );
+    }
+
 }
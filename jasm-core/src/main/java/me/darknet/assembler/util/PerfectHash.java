@@ -0,0 +1,146 @@
+package me.darknet.assembler.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Perfect hash table over a fixed set of string keys.
+ * <p>
+ * Keys are first hashed into buckets, then each bucket is given a displacement seed that places all of its keys
+ * into distinct slots. A lookup hashes the key once, reads the seed of its bucket and compares against the single
+ * candidate in the resulting slot, so there is no probing and no boxing.
+ */
+public final class PerfectHash {
+
+    private static final int MAX_SEED = 1 << 20;
+
+    private final String[] slotKeys;
+    private final int[] slotValues;
+    private final int[] seeds;
+    private final int mask;
+    private final int size;
+
+    private PerfectHash(String[] slotKeys, int[] slotValues, int[] seeds, int size) {
+        this.slotKeys = slotKeys;
+        this.slotValues = slotValues;
+        this.seeds = seeds;
+        this.mask = slotKeys.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * @param keys
+     *             Distinct keys, the index of a key in this array is the value returned by
+     *             {@link #indexOf(String)}.
+     *
+     * @return Table over the given keys.
+     *
+     * @throws IllegalArgumentException
+     *                                  When the keys contain duplicates.
+     */
+    public static @NotNull PerfectHash of(@NotNull String... keys) {
+        Set<String> unique = new HashSet<>(Arrays.asList(keys));
+        if (unique.size() != keys.length)
+            throw new IllegalArgumentException("Perfect hash keys must be distinct");
+
+        int n = keys.length;
+        int tableSize = Integer.highestOneBit(Math.max(1, n) * 2 - 1) << 1;
+        int bucketCount = Math.max(1, n / 2);
+
+        // Group the keys by their bucket
+        int[] hashes = new int[n];
+        List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++)
+            buckets.add(new ArrayList<>());
+        for (int i = 0; i < n; i++) {
+            hashes[i] = hash(keys[i]);
+            buckets.get(Integer.remainderUnsigned(hashes[i], bucketCount)).add(i);
+        }
+
+        // Place the largest buckets first, they are the hardest to fit
+        Integer[] order = new Integer[bucketCount];
+        for (int i = 0; i < bucketCount; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(buckets.get(b).size(), buckets.get(a).size()));
+
+        String[] slotKeys = new String[tableSize];
+        int[] slotValues = new int[tableSize];
+        int[] seeds = new int[bucketCount];
+        int mask = tableSize - 1;
+        for (int bucketIndex : order) {
+            List<Integer> bucket = buckets.get(bucketIndex);
+            if (bucket.isEmpty())
+                continue;
+            int[] slots = new int[bucket.size()];
+            int seed = 1;
+            search:
+            for (; seed < MAX_SEED; seed++) {
+                for (int i = 0; i < slots.length; i++) {
+                    int slot = slot(hashes[bucket.get(i)], seed, mask);
+                    if (slotKeys[slot] != null)
+                        continue search;
+                    for (int j = 0; j < i; j++) {
+                        if (slots[j] == slot)
+                            continue search;
+                    }
+                    slots[i] = slot;
+                }
+                break;
+            }
+            if (seed == MAX_SEED)
+                throw new IllegalStateException("Could not find a perfect hash for the given keys");
+            seeds[bucketIndex] = seed;
+            for (int i = 0; i < slots.length; i++) {
+                int key = bucket.get(i);
+                slotKeys[slots[i]] = keys[key];
+                slotValues[slots[i]] = key;
+            }
+        }
+        return new PerfectHash(slotKeys, slotValues, seeds, n);
+    }
+
+    /**
+     * @param key
+     *            Key to look up.
+     *
+     * @return Index of the key in the array the table was created from, or {@code -1} if it is not a key.
+     */
+    public int indexOf(@NotNull String key) {
+        int hash = hash(key);
+        int slot = slot(hash, seeds[Integer.remainderUnsigned(hash, seeds.length)], mask);
+        String candidate = slotKeys[slot];
+        if (candidate == null || !candidate.equals(key))
+            return -1;
+        return slotValues[slot];
+    }
+
+    /**
+     * @return Number of keys in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int hash(String key) {
+        // FNV-1a
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int slot(int hash, int seed, int mask) {
+        int h = hash + seed * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & mask;
+    }
+}
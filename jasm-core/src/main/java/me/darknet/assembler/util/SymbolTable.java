@@ -0,0 +1,107 @@
+package me.darknet.assembler.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Table of unique strings, looked up by the characters of any {@link CharSequence}.
+ * <p>
+ * The hash is computed over the characters in place and candidates are compared char by char, so looking up content
+ * which is already in the table does not create a string. Every string returned for the same content is the same
+ * instance, which makes identity comparisons possible for content which went through the same table.
+ * <p>
+ * Tables are not thread-safe, use one table per thread or guard it externally.
+ */
+public final class SymbolTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private String[] symbols;
+    private int[] hashes;
+    private int mask;
+    private int size;
+
+    public SymbolTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize
+     *                     Number of distinct symbols expected, to size the table up front.
+     */
+    public SymbolTable(int expectedSize) {
+        // keep the load factor at or below one half
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        symbols = new String[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @param chars
+     *              Characters of the symbol.
+     *
+     * @return String with the given characters, being the same instance for every call with the same characters.
+     */
+    @NotNull
+    public String intern(@NotNull CharSequence chars) {
+        int length = chars.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + chars.charAt(i);
+
+        int slot = spread(hash) & mask;
+        String symbol;
+        while ((symbol = symbols[slot]) != null) {
+            if (hashes[slot] == hash && contentEquals(symbol, chars, length))
+                return symbol;
+            slot = (slot + 1) & mask;
+        }
+
+        symbol = chars.toString();
+        symbols[slot] = symbol;
+        hashes[slot] = hash;
+        if (++size * 2 > symbols.length)
+            grow();
+        return symbol;
+    }
+
+    /**
+     * @return Number of distinct symbols in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        String[] oldSymbols = symbols;
+        int[] oldHashes = hashes;
+        symbols = new String[oldSymbols.length * 2];
+        hashes = new int[oldSymbols.length * 2];
+        mask = symbols.length - 1;
+        for (int i = 0; i < oldSymbols.length; i++) {
+            String symbol = oldSymbols[i];
+            if (symbol == null)
+                continue;
+            int slot = spread(oldHashes[i]) & mask;
+            while (symbols[slot] != null)
+                slot = (slot + 1) & mask;
+            symbols[slot] = symbol;
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    private static boolean contentEquals(String symbol, CharSequence chars, int length) {
+        if (symbol.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != chars.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        // only the low bits pick the slot, mix the high bits into them
+        return hash ^ (hash >>> 16);
+    }
+}
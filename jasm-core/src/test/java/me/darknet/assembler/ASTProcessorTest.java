@@ -3,9 +3,17 @@
 import me.darknet.assembler.ast.ASTElement;
 import me.darknet.assembler.ast.primitive.ASTArray;
 import me.darknet.assembler.ast.primitive.ASTIdentifier;
+import me.darknet.assembler.ast.primitive.ASTInstruction;
+import me.darknet.assembler.ast.primitive.ASTLabel;
 import me.darknet.assembler.ast.specific.*;
+import me.darknet.assembler.cache.ASTCache;
+import me.darknet.assembler.error.DiagnosticSink;
 import me.darknet.assembler.error.Error;
 import me.darknet.assembler.error.Result;
+import me.darknet.assembler.helper.Processor;
+import me.darknet.assembler.helper.ProcessorOptions;
+import me.darknet.assembler.index.ReferenceIndex;
+import me.darknet.assembler.index.Symbol;
 import me.darknet.assembler.parser.BytecodeFormat;
 import me.darknet.assembler.parser.DeclarationParser;
 import me.darknet.assembler.parser.Token;
@@ -16,10 +24,16 @@
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 public class ASTProcessorTest {
@@ -232,4 +246,129 @@ public void testSubAnnotation() {
         );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCachedAst(@TempDir Path directory) {
+        String code = """
+                .super java/lang/Object
+                .class public Example {
+                    .method public static example (I)I {
+                        parameters: { value },
+                        code: {
+                        A:
+                            iload value
+                            ifeq B
+                            ldc 10
+                            ireturn
+                        B:
+                            iconst_0
+                            ireturn
+                        }
+                    }
+                }
+                """;
+        ASTCache cache = new ASTCache(directory);
+        List<List<ASTElement>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Processor.processSource(code, "Example.jasm", results::add, (unused, errors) -> fail(errors.toString()),
+                    new ProcessorOptions().cache(cache));
+            assertTrue(Files.exists(cache.path(code, BytecodeFormat.DEFAULT)));
+        }
+
+        assertEquals(2, results.size());
+        ASTClass processed = assertIs(ASTClass.class, results.get(0).get(0));
+        ASTClass cached = assertIs(ASTClass.class, results.get(1).get(0));
+        assertNotSame(processed, cached);
+        assertEquals(processed.getName().content(), cached.getName().content());
+        assertEquals(processed.getSuperName().content(), cached.getSuperName().content());
+
+        ASTMethod processedMethod = assertIs(ASTMethod.class, processed.content(0));
+        ASTMethod cachedMethod = assertIs(ASTMethod.class, cached.content(0));
+        assertEquals(processedMethod.instructions(), cachedMethod.instructions());
+        assertEquals(processedMethod.code().instructions().size(), cachedMethod.code().instructions().size());
+        for (int i = 0; i < processedMethod.code().instructions().size(); i++) {
+            ASTElement expected = processedMethod.code().instructions().get(i);
+            ASTElement actual = cachedMethod.code().instructions().get(i);
+            assertEquals(expected.content(), actual.content());
+            assertEquals(expected.location(), actual.location());
+            assertEquals(expected.range(), actual.range());
+            // Opcodes are looked up again from the mnemonic rather than read back from the cache
+            if (expected instanceof ASTInstruction instruction && !(expected instanceof ASTLabel))
+                assertEquals(instruction.opcode(), ((ASTInstruction) actual).opcode());
+        }
+    }
+
+    @Test
+    public void testReferenceIndex(@TempDir Path directory) throws IOException {
+        String callee = """
+                .super java/lang/Object
+                .class public Callee {
+                    .method public static target ()V {
+                        code: {
+                            return
+                        }
+                    }
+                }
+                """;
+        String caller = """
+                .super java/lang/Object
+                .class public Caller {
+                    .method public static call ()V {
+                        code: {
+                            invokestatic Callee.target ()V
+                            new Callee
+                            pop
+                            return
+                        }
+                    }
+                }
+                """;
+        Path sources = Files.createDirectories(directory.resolve("src"));
+        Files.writeString(sources.resolve("Callee.jasm"), callee);
+        Path callerFile = Files.writeString(sources.resolve("Caller.jasm"), caller);
+        Path indexFile = directory.resolve("index.bin");
+
+        ReferenceIndex index = ReferenceIndex.load(indexFile);
+        assertEquals(List.of(), index.update(sources, BytecodeFormat.JVM));
+        Symbol target = Symbol.method("Callee", "target", "()V");
+        List<Location> definitions = index.definitions(target);
+        assertEquals(1, definitions.size());
+        assertEquals(sources.resolve("Callee.jasm").toString(), definitions.get(0).source());
+        assertEquals(3, definitions.get(0).line());
+        List<Location> usages = index.usages(target);
+        assertEquals(1, usages.size());
+        assertEquals(callerFile.toString(), usages.get(0).source());
+        assertEquals(5, usages.get(0).line());
+        assertEquals(1, index.usages(Symbol.type("Callee")).size());
+        index.save();
+
+        // Reloaded index only picks up the changed file, and drops the references it no longer has
+        ReferenceIndex loaded = ReferenceIndex.load(indexFile);
+        assertEquals(index.sources(), loaded.sources());
+        assertEquals(usages, loaded.usages(target));
+        Files.writeString(callerFile, caller.replace("invokestatic Callee.target ()V", "nop"));
+        assertEquals(List.of(), loaded.update(sources, BytecodeFormat.JVM));
+        assertEquals(List.of(), loaded.usages(target));
+        assertEquals(1, loaded.usages(Symbol.type("Callee")).size());
+        assertEquals(definitions, loaded.definitions(target));
+
+        Files.delete(callerFile);
+        loaded.update(sources, BytecodeFormat.JVM);
+        assertEquals(Set.of(sources.resolve("Callee.jasm").toString()), loaded.sources());
+        assertEquals(List.of(), loaded.usages(Symbol.type("Callee")));
+    }
+
+    @Test
+    public void testErrorLimit() {
+        String code = ".field x I junk(\n".repeat(1000);
+        List<Error> streamed = new ArrayList<>();
+        List<List<Error>> reported = new ArrayList<>();
+        Processor.processSource(code, "Broken.jasm", ast -> fail("Broken input should not process"),
+                (unused, errors) -> reported.add(errors),
+                new ProcessorOptions().diagnostics(DiagnosticSink.limit(streamed::add, 10)));
+
+        assertEquals(10, streamed.size());
+        assertEquals(1, reported.size());
+        assertEquals(streamed, reported.get(0));
+    }
+
+}
@@ -4,12 +4,16 @@
 import me.darknet.assembler.parser.Tokenizer;
 import me.darknet.assembler.util.EscapeUtil;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 
 public class EscapeTest {
@@ -51,4 +55,59 @@ public void testLiteralEscape(String input) {
         assertEquals(input, EscapeUtil.unescape(tokens.get(0).content()));
     }
 
+    @ParameterizedTest
+    @ValueSource(
+            strings = { "", "\0", "a\nb\rc\td", "\b\f\u001F\u007F", "\\ \" ' , : { }", "\u00E9t\u00E9",
+                    "\u2603 \u200C \u2028 \uE000 \uFFFF", "\\u0041", "java/lang/String" }
+    )
+    public void testRoundTrip(String input) throws IOException {
+        assertEquals(input, EscapeUtil.unescape(EscapeUtil.escapeString(input)));
+        assertEquals(input, EscapeUtil.unescape(EscapeUtil.escapeLiteral(input)));
+
+        // the appending variants write the same as the string ones
+        StringWriter string = new StringWriter();
+        EscapeUtil.escapeString(input, string);
+        assertEquals(EscapeUtil.escapeString(input), string.toString());
+        StringWriter literal = new StringWriter();
+        EscapeUtil.escapeLiteral(input, literal);
+        assertEquals(EscapeUtil.escapeLiteral(input), literal.toString());
+    }
+
+    @Test
+    public void testControlCharacters() {
+        assertEquals("\\u0000", EscapeUtil.escapeString("\0"));
+        assertEquals("a\\u000Ab", EscapeUtil.escapeString("a\nb"));
+        assertEquals("\\u0009", EscapeUtil.escapeLiteral("\t"));
+        assertEquals("\\u007F", EscapeUtil.escapeString("\u007F"));
+
+        assertEquals("\n\r\t\b\f", EscapeUtil.unescape("\\n\\r\\t\\b\\f"));
+        assertEquals("\"'\\", EscapeUtil.unescape("\\\"\\'\\\\"));
+        assertEquals("\0", EscapeUtil.unescape("\\u0000"));
+    }
+
+    @Test
+    public void testUnicode() {
+        // invisible and private use characters are escaped, other non-ascii characters are not
+        assertEquals("\\u200C", EscapeUtil.escapeString("\u200C"));
+        assertEquals("\\uE000", EscapeUtil.escapeLiteral("\uE000"));
+        assertEquals("\u00E9", EscapeUtil.escapeString("\u00E9"));
+
+        assertEquals("A\u2603", EscapeUtil.unescape("\\u0041\\u2603"));
+        assertEquals("\u00E9", EscapeUtil.unescape("\\u00e9"));
+        assertEquals(' ', EscapeUtil.parseUnicode("x0020", 1));
+    }
+
+    @Test
+    public void testCleanStringsAreNotCopied() {
+        String clean = "java/lang/String";
+        assertSame(clean, EscapeUtil.escapeString(clean));
+        assertSame(clean, EscapeUtil.escapeLiteral(clean));
+        assertSame(clean, EscapeUtil.unescape(clean));
+
+        // spaces only need escaping in literals
+        String spaced = "Hello World";
+        assertSame(spaced, EscapeUtil.escapeString(spaced));
+        assertEquals("Hello\\u0020World", EscapeUtil.escapeLiteral(spaced));
+    }
+
 }
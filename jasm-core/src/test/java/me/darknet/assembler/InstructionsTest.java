@@ -2,22 +2,31 @@
 
 import me.darknet.assembler.ast.ASTElement;
 import me.darknet.assembler.ast.primitive.ASTCode;
+import me.darknet.assembler.ast.primitive.ASTIdentifier;
 import me.darknet.assembler.ast.primitive.ASTInstruction;
+import me.darknet.assembler.ast.primitive.ASTNumber;
 import me.darknet.assembler.ast.specific.ASTMethod;
 import me.darknet.assembler.error.Error;
 import me.darknet.assembler.error.Result;
+import me.darknet.assembler.instructions.Instructions;
+import me.darknet.assembler.instructions.ReflectiveInstructions;
+import me.darknet.assembler.instructions.jvm.JvmInstructions;
 import me.darknet.assembler.parser.BytecodeFormat;
 import me.darknet.assembler.parser.DeclarationParser;
 import me.darknet.assembler.parser.Token;
+import me.darknet.assembler.parser.TokenType;
 import me.darknet.assembler.parser.Tokenizer;
 import me.darknet.assembler.parser.processor.ASTProcessor;
 import me.darknet.assembler.util.Location;
+import me.darknet.assembler.util.Range;
+import me.darknet.assembler.visitor.ASTInstructionVisitor;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -168,4 +177,153 @@ public void testLookupSwitch() {
         );
     }
 
+    @Test
+    public void testOpcodeResolution() {
+        Instructions<?> instructions = JvmInstructions.INSTANCE;
+        for (int i = 0; i < instructions.size(); i++) {
+            assertEquals(i, instructions.opcode(instructions.name(i)));
+        }
+        assertEquals(Instructions.UNKNOWN, instructions.opcode("notaninstruction"));
+        assertEquals(Instructions.UNKNOWN, instructions.opcode(""));
+
+        assertCode(
+                new String[] { "L1:", "iconst_0", "invokestaticinterface a/B.c ()V" }, BytecodeFormat.JVM, (code) -> {
+                    List<ASTInstruction> list = code.instructions();
+                    assertEquals(Instructions.UNKNOWN, list.get(0).opcode());
+                    assertEquals(instructions.opcode("iconst_0"), list.get(1).opcode());
+                    assertEquals("invokestaticinterface", instructions.name(list.get(2).opcode()));
+                }
+        );
+    }
+
+    @Test
+    public void testReflectiveDispatch() {
+        ReflectiveTestInstructions instructions = new ReflectiveTestInstructions();
+        RecordingVisitor visitor = new RecordingVisitor();
+        ASTInstruction name = instruction("push", identifier("a"));
+        ASTInstruction number = instruction("push", number("1"));
+        ASTInstruction none = instruction("pop");
+
+        // alternate the argument shapes, so each call has to pick the handle cached for its own overload
+        for (int i = 0; i < 2; i++) {
+            instructions.get("push").transform(name, visitor);
+            instructions.get("push").transform(number, visitor);
+            instructions.get("pop").transform(none, visitor);
+        }
+        assertEquals(
+                List.of("identifier a", "number 1", "pop", "identifier a", "number 1", "pop"), visitor.visited
+        );
+    }
+
+    @Test
+    public void testReflectiveDispatchSpreadsManyOperands() {
+        ReflectiveTestInstructions instructions = new ReflectiveTestInstructions();
+        RecordingVisitor visitor = new RecordingVisitor();
+        ASTInstruction five = instruction(
+                "many", number("1"), number("2"), number("3"), number("4"), number("5")
+        );
+        ASTInstruction seven = instruction(
+                "many", number("1"), number("2"), number("3"), number("4"), number("5"), number("6"),
+                identifier("seven")
+        );
+
+        instructions.get("many").transform(five, visitor);
+        instructions.get("many").transform(seven, visitor);
+        instructions.get("many").transform(seven, visitor);
+        assertEquals(List.of("many 1 5", "many 1 6 seven", "many 1 6 seven"), visitor.visited);
+    }
+
+    private static ASTInstruction instruction(String name, ASTElement... arguments) {
+        return new ASTInstruction(identifier(name), List.of(arguments));
+    }
+
+    private static ASTIdentifier identifier(String content) {
+        return new ASTIdentifier(token(TokenType.IDENTIFIER, content));
+    }
+
+    private static ASTNumber number(String content) {
+        return new ASTNumber(token(TokenType.NUMBER, content));
+    }
+
+    private static Token token(TokenType type, String content) {
+        return new Token(Range.EMPTY, new Location(1, 1, content.length(), "<stdin>"), type, content);
+    }
+
+    public interface ReflectiveTestVisitor extends ASTInstructionVisitor {
+        void visitPush(ASTIdentifier name);
+
+        void visitPush(ASTNumber number);
+
+        void visitPop();
+
+        void visitMany(ASTNumber a, ASTNumber b, ASTNumber c, ASTNumber d, ASTNumber e);
+
+        void visitMany(ASTNumber a, ASTNumber b, ASTNumber c, ASTNumber d, ASTNumber e, ASTNumber f,
+                ASTIdentifier g);
+    }
+
+    private static class ReflectiveTestInstructions extends ReflectiveInstructions<ReflectiveTestVisitor> {
+        ReflectiveTestInstructions() {
+            super(ReflectiveTestVisitor.class, "visitInstruction");
+        }
+
+        @Override
+        protected void registerInstructions() {
+            register("push", "visitPush");
+            register("pop", "visitPop");
+            register("many", "visitMany");
+        }
+    }
+
+    private static class RecordingVisitor implements ReflectiveTestVisitor {
+        private final List<String> visited = new ArrayList<>();
+
+        @Override
+        public void visitPush(ASTIdentifier name) {
+            visited.add("identifier " + name.content());
+        }
+
+        @Override
+        public void visitPush(ASTNumber number) {
+            visited.add("number " + number.content());
+        }
+
+        @Override
+        public void visitPop() {
+            visited.add("pop");
+        }
+
+        @Override
+        public void visitMany(ASTNumber a, ASTNumber b, ASTNumber c, ASTNumber d, ASTNumber e) {
+            visited.add("many " + a.content() + " " + e.content());
+        }
+
+        @Override
+        public void visitMany(ASTNumber a, ASTNumber b, ASTNumber c, ASTNumber d, ASTNumber e, ASTNumber f,
+                ASTIdentifier g) {
+            visited.add("many " + a.content() + " " + f.content() + " " + g.content());
+        }
+
+        @Override
+        public void visitInstruction(ASTInstruction instruction) {
+        }
+
+        @Override
+        public void visitLabel(ASTIdentifier label) {
+        }
+
+        @Override
+        public void visitLineNumber(ASTNumber line) {
+        }
+
+        @Override
+        public void visitException(ASTIdentifier start, ASTIdentifier end, ASTIdentifier handler,
+                ASTIdentifier type) {
+        }
+
+        @Override
+        public void visitEnd() {
+        }
+    }
+
 }
@@ -3,6 +3,7 @@
 import me.darknet.assembler.parser.Token;
 import me.darknet.assembler.parser.TokenType;
 import me.darknet.assembler.parser.Tokenizer;
+import me.darknet.assembler.util.SymbolTable;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -73,4 +74,19 @@ public void testTokenizer(String input) {
         Assertions.assertFalse(tokens.isEmpty());
     }
 
+    @Test
+    public void testSymbolTable() {
+        String input = "iload a\niload b\niadd\nldc \"iload\"\nireturn";
+        SymbolTable symbols = new SymbolTable();
+        List<Token> tokens = new Tokenizer(symbols).tokenize("<stdin>", input).get();
+        Assertions.assertEquals(new Tokenizer().tokenize("<stdin>", input).get(), tokens);
+        // every occurrence of the same content shares one instance, strings included
+        Assertions.assertSame(tokens.get(0).content(), tokens.get(2).content());
+        Assertions.assertSame(tokens.get(0).content(), tokens.get(6).content());
+        Assertions.assertEquals(TokenType.STRING, tokens.get(6).type());
+        // a second source reuses the symbols of the first
+        List<Token> more = new Tokenizer(symbols).tokenize("<stdin>", "iload c").get();
+        Assertions.assertSame(tokens.get(0).content(), more.get(0).content());
+    }
+
 }